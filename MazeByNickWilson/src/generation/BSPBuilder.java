@@ -2,6 +2,10 @@ package generation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import gui.Constants;
 
@@ -14,8 +18,17 @@ import gui.Constants;
  * Paul Falstad granted permission to modify and use code for teaching purposes.
  * Refactored by Peter Kemper
  *
+ * Once the walls of a node are split, its two subtrees are independent.
+ * Subtrees of nodes with at least {@link #setForkThreshold(int) a threshold}
+ * of walls are built in parallel in the common ForkJoinPool. The tree is the same
+ * for any number of threads as each subtree is built from its own walls.
  */
 public class BSPBuilder {
+	/**
+	 * Default number of walls that a node needs such that its subtrees are built in parallel.
+	 */
+	static final int DEFAULT_FORK_THRESHOLD = 2048;
+
 	private final int width ; 				// width of maze
 	private final int height ; 				// height of maze
 	private final Distance dists ; 			// distance matrix
@@ -24,8 +37,10 @@ public class BSPBuilder {
 	// colchange: reason for randomization unclear, used to determine color of wall 
 	private final int expectedPartiters ; 	// comes from Constants partct array, entry chosen according to skill level
 	// only usage is in updateProgressBar to estimate progress made in the BSP tree construction
-	int partiters = 0 ; // relocated from MazeBuilder attribute partiters here. 
-	private final Order order ; 		// current order
+	final AtomicInteger partiters = new AtomicInteger() ; // relocated from MazeBuilder attribute partiters here, shared by parallel subtrees
+	private final ProgressChannel progress ; // passes progress on to the current order
+	private int forkThreshold = DEFAULT_FORK_THRESHOLD ; // nodes with at least this many walls build their subtrees in parallel
+	private Thread owner ; // thread that runs generateBSPNodes, a cancellation interrupts it
 	/**
 	 * Constructor
 	 * @param order provides the spec for the maze to be generated, will receive the result
@@ -37,15 +52,22 @@ public class BSPBuilder {
 	 * @param expectedPartiters the expected number of partition iterations
 	 */
 	public BSPBuilder(Order order, Distance dists, Floorplan floorplan, int width, int height, int colchange, int expectedPartiters) {
-		this.order = order ;
+		this.progress = new ProgressChannel(order) ;
 		this.dists = dists ;
 		this.floorplan = floorplan ;
 		this.width = width ;
 		this.height = height ;
 		this.colchange = colchange ;
 		this.expectedPartiters = expectedPartiters ;
-
-		partiters = 0 ; // counter for keeping track of progress made in BSP calculation, starts at 0
+	}
+	/**
+	 * Sets the number of walls that a node needs such that its subtrees are built in parallel.
+	 * @param threshold number of walls, {@code 0 < threshold}, {@code Integer.MAX_VALUE} 
+	 * builds the whole tree on the calling thread
+	 */
+	public void setForkThreshold(int threshold) {
+		assert 0 < threshold : "BSPBuilder: fork threshold must be positive";
+		forkThreshold = threshold;
 	}
 
 	/**
@@ -63,7 +85,7 @@ public class BSPBuilder {
 	 * The code names lists rather left and right to match the terminology of trees
 	 * rather than front and back which would resemble terminology for drawing.
 	 * The code selects the wall that has the minimum grade value as the one 
-	 * for partitioning.
+	 * for partitioning, see {@link #findSplitter(List)}.
 	 * If all the walls in one node are partitioned, it will stop to split.
 	 * @param walls the list of walls (polygons) to partition
 	 * @return root node for BSP tree
@@ -101,9 +123,46 @@ public class BSPBuilder {
 		
 		// Case: two sided recursion, need to create a node
 		// and recursively calculate subtrees for both sides.
+		// Large subtrees: the right one goes to another worker of the pool
+		final BSPNode leftNode;
+		final BSPNode rightNode;
+		if (walls.size() >= forkThreshold && ForkJoinTask.inForkJoinPool()) {
+			final NodeTask task = new NodeTask(right);
+			task.fork();
+			leftNode = genNodes(left);
+			rightNode = task.join();
+		} else {
+			leftNode = genNodes(left);
+			rightNode = genNodes(right);
+		}
 		return new BSPBranch(splitter.getStartPositionX(), splitter.getStartPositionY(), 
 				splitter.getExtensionX(), splitter.getExtensionY(), 
-				genNodes(left), genNodes(right)); 
+				leftNode, rightNode); 
+	}
+	/**
+	 * Builds a subtree on a worker of the ForkJoinPool.
+	 */
+	private final class NodeTask extends RecursiveTask<BSPNode> {
+		private static final long serialVersionUID = 1L;
+		private final List<Wall> walls; // walls of the subtree
+
+		NodeTask(List<Wall> walls) {
+			this.walls = walls;
+		}
+		@Override
+		protected BSPNode compute() {
+			try {
+				return genNodes(walls);
+			} catch (InterruptedException e) {
+				throw new BuildCancelledException();
+			}
+		}
+	}
+	/**
+	 * Carries a cancellation out of a NodeTask, tasks can not throw an InterruptedException.
+	 */
+	private static final class BuildCancelledException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
 	}
 	
 
@@ -123,55 +182,60 @@ public class BSPBuilder {
 
 	/**
 	 * It finds the wall which has the minimum grade value.
+	 * All walls with a partition flag that is not set are candidates, their exact
+	 * grades are calculated with prefix sums over the coordinates of the walls,
+	 * see {@link SplitterSelector}. Of several walls with the minimum grade,
+	 * the first one in the list is selected.
 	 * @param walls list of walls, remains unchanged
 	 * @return wall that is best candidate according to grade partition (smallest grade)
 	 * @throws InterruptedException if its executing thread is interrupted
 	 */
-	private Wall findSplitter(List<Wall> walls) throws InterruptedException {
+	protected Wall findSplitter(List<Wall> walls) throws InterruptedException {
+		final SplitterSelector selector = new SplitterSelector(walls);
 		Wall result = null ;
-		int bestgrade = 5000; // used to compute the minimum of all observed grade values, set to some high initial value
-		final int maxtries = 50; // constant, only used to determine skip
-		// consider a subset of walls proportional to the number of tries, here 50, seems to randomize the access a bit
-		int skip = (walls.size() / maxtries);
-		if (skip == 0)
-			skip = 1;
-		assert 0 < skip : "Increment for loop must be positive";
-		for (int i = 0; i < walls.size(); i += skip) {
-			Wall wall = walls.get(i);
-			// skip walls where the partition flag was set
+		int bestgrade = Integer.MAX_VALUE;
+		int candidates = 0;
+		for (Wall wall : walls) {
 			if (wall.isPartition())
 				continue;
-			// provide feedback for progress bar every 32 iterations
-			partiters++;
-			if ((partiters & 31) == 0) {
-				updateProgressBar(partiters); // side effect: update progress bar
-			}
-			// check grade and keep track of minimum
-			int grade = wall.calculateGrade(walls);
+			candidates++;
+			int grade = selector.grade(wall);
 			if (grade < bestgrade) {
 				bestgrade = grade;
-				result = wall; // determine wall with smallest grade
+				result = wall;
 			}
 		}
+		// count as many iterations as the previous selection from a sample
+		// of about 50 walls did, the expected number of partition iterations is based on it
+		final int skip = Math.max(1, walls.size() / 50);
+		addPartiters((candidates + skip - 1) / skip);
 		return result;
 	}
 
 	/**
-	 * Push information on progress into maze such that UI can update progress bar
+	 * Counts partition iterations, provides feedback for the progress bar
+	 * and checks for cancellation every 32 iterations.
+	 * @param iterations number of iterations to add, {@code 0 <= iterations}
+	 * @throws InterruptedException if the thread that runs generateBSPNodes is interrupted
+	 */
+	private void addPartiters(int iterations) throws InterruptedException {
+		final int after = partiters.addAndGet(iterations);
+		if (((after - iterations) >>> 5) != (after >>> 5)) {
+			updateProgressBar(after); // side effect: update progress bar
+			// workers of the pool are not interrupted, a cancellation interrupts the owner
+			if (owner.isInterrupted())
+				throw new InterruptedException("BSPBuilder: build is cancelled");
+		}
+	}
+	/**
+	 * Push information on progress into maze such that UI can update progress bar.
+	 * The channel limits the rate of updates and delivers them on another thread,
+	 * so this returns right away.
 	 * @param partiters counting partition iterations (precise semantics obscure)
-	 * @throws InterruptedException if executing thread is interrupted
 	 */
-	private void updateProgressBar(int partiters) throws InterruptedException {
+	private void updateProgressBar(int partiters) {
 		// During maze generation, the most time consuming part needs to occasionally update the current screen
-		// 
-		if (null != order) {
-			int percentage = partiters*100/expectedPartiters ;
-			order.updateProgress(percentage) ;
-			if (percentage < 100) {
-				// give main thread a chance to process keyboard events
-				Thread.sleep(10);
-			}
-		}
+		progress.report(partiters*100/expectedPartiters) ;
 	}
 
 	/**
@@ -218,7 +282,17 @@ public class BSPBuilder {
 		
 		// Start the recursive BSP calculation for the list of polygons
 		// and return the root node of the tree
-		return genNodes(walls); 
+		owner = Thread.currentThread();
+		try {
+			if (walls.size() >= forkThreshold && !ForkJoinTask.inForkJoinPool())
+				return ForkJoinPool.commonPool().invoke(new NodeTask(walls));
+			return genNodes(walls);
+		} catch (BuildCancelledException e) {
+			throw new InterruptedException("BSPBuilder: build is cancelled");
+		} finally {
+			// no more updates, the order receives 100 percent and the maze next
+			progress.close();
+		}
 	}
 
 	/**
@@ -0,0 +1,342 @@
+package generation;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class computes distance values for the Distance class
+ * with a breadth first search that operates on bitsets.
+ * It is intended for very large floorplans where a cell by cell
+ * search spends most of its time on cache misses.
+ *
+ * Each row of the maze is represented by a sequence of 64 bit words,
+ * bit {@code x%64} of word {@code x/64} stands for cell (x,y).
+ * The frontier and the set of visited cells are kept in this format.
+ * Wallboards are translated once into masks of the same format
+ * with {@link Floorplan#getNoWallMask(int, CardinalDirection, long[])}
+ * such that one step of the search expands 64 cells with a few
+ * shift and bit operations.
+ *
+ * The search proceeds level by level. Only rows that have a non-empty
+ * frontier and their adjacent rows are considered for the next level.
+ * The new frontier of a row only depends on the current frontier,
+ * so rows are independent and get distributed over a ForkJoin pool
+ * if there are enough of them. Each row task only writes its own
+ * row of the bitsets and its own y index in the distance matrix.
+ *
+ * The result is identical to the one of the cell by cell
+ * breadth first search in Distance.
+ * 
+ * Note that cells with the same distance never form a horizontal run,
+ * so a row contributes only a few bits per level. On a single core
+ * the engine is about 6 times slower than the plain breadth first search,
+ * it can only pay off if many rows of a large floorplan are expanded in parallel.
+ * This has not been measured on a machine with many cores, so the engine
+ * is opt-in only, see {@link Distance#BIT_PARALLEL_PROPERTY}, and
+ * DistanceBenchmark in the tests compares both engines on a given machine.
+ */
+final class BitParallelDistance {
+	/**
+	 * Minimum number of rows for a level that justifies forking tasks.
+	 */
+	static final int PARALLEL_ROWS = 64;
+
+	private final ForkJoinPool pool; // executes row tasks
+	private final int width;
+	private final int height;
+	private final int words; // number of 64 bit words per row
+	// masks for cells that have no wallboard in the given direction
+	// and where the neighbor in that direction is within the maze
+	private final long[][] openNorth;
+	private final long[][] openEast;
+	private final long[][] openSouth;
+	private final long[][] openWest;
+	// bitsets for the search, indexed by row
+	private long[][] frontier;
+	private long[][] next;
+	private final long[][] visited;
+	// rows to consider for the current level
+	private final int[] candidates;
+	private final int[] rowStamp;
+	// rows with a non-empty frontier
+	private int[] frontierRows;
+	private int frontierCount;
+	// range of words [lo,hi] per row that holds the non-empty part of the frontier,
+	// set by row tasks for the next frontier, empty if lo > hi
+	private int[] frontierLo;
+	private int[] frontierHi;
+	private int[] nextLo;
+	private int[] nextHi;
+	// range of words [lo,hi] per candidate row that needs to be expanded
+	private final int[] candidateLo;
+	private final int[] candidateHi;
+
+	/**
+	 * Constructor, computes the masks for all rows of the given floorplan
+	 * with the common ForkJoin pool.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 */
+	BitParallelDistance(Floorplan cells) {
+		this(cells, ForkJoinPool.commonPool());
+	}
+	/**
+	 * Constructor, computes the masks for all rows of the given floorplan.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param pool executes tasks for rows, tasks are only forked if its parallelism is greater than 1
+	 */
+	BitParallelDistance(Floorplan cells, ForkJoinPool pool) {
+		this.pool = pool;
+		width = cells.getWidth();
+		height = cells.getHeight();
+		words = (width+63) >>> 6;
+		openNorth = new long[height][words];
+		openEast = new long[height][words];
+		openSouth = new long[height][words];
+		openWest = new long[height][words];
+		frontier = new long[height][words];
+		next = new long[height][words];
+		visited = new long[height][words];
+		candidates = new int[height];
+		rowStamp = new int[height];
+		frontierRows = new int[height];
+		frontierLo = new int[height];
+		frontierHi = new int[height];
+		nextLo = new int[height];
+		nextHi = new int[height];
+		candidateLo = new int[height];
+		candidateHi = new int[height];
+		computeMasks(cells);
+	}
+
+	/**
+	 * Computes distances to the given position (ax,ay) for all cells.
+	 * Cells that can not be reached keep the value they have in dists.
+	 * @param dists the matrix to store distance values in, must be of dimension width x height
+	 * @param ax position, x coordinate
+	 * @param ay position, y coordinate
+	 */
+	void computeDists(int[][] dists, int ax, int ay) {
+		for (int y = 0; y < height; y++) {
+			Arrays.fill(frontier[y], 0);
+			Arrays.fill(next[y], 0);
+			Arrays.fill(visited[y], 0);
+			rowStamp[y] = 0;
+		}
+		frontier[ay][ax >>> 6] = 1L << ax;
+		visited[ay][ax >>> 6] = 1L << ax;
+		dists[ax][ay] = 1;
+		frontierRows[0] = ay;
+		frontierLo[ay] = ax >>> 6;
+		frontierHi[ay] = ax >>> 6;
+		frontierCount = 1;
+		int distance = 1;
+		while (frontierCount > 0) {
+			distance++;
+			final int count = collectCandidates(distance);
+			if (count >= PARALLEL_ROWS && pool.getParallelism() > 1) {
+				pool.invoke(new ExpandRows(dists, distance, 0, count));
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					expandRow(dists, distance, candidates[i]);
+				}
+			}
+			// clear the current frontier, it becomes the buffer for the next level
+			for (int i = 0; i < frontierCount; i++) {
+				final int y = frontierRows[i];
+				Arrays.fill(frontier[y], frontierLo[y], frontierHi[y]+1, 0);
+			}
+			frontierCount = 0;
+			for (int i = 0; i < count; i++) {
+				if (nextLo[candidates[i]] <= nextHi[candidates[i]])
+					frontierRows[frontierCount++] = candidates[i];
+			}
+			final long[][] tmp = frontier;
+			frontier = next;
+			next = tmp;
+			int[] tmpRange = frontierLo;
+			frontierLo = nextLo;
+			nextLo = tmpRange;
+			tmpRange = frontierHi;
+			frontierHi = nextHi;
+			nextHi = tmpRange;
+		}
+	}
+
+	/**
+	 * Collects all rows with a non-empty frontier and their adjacent rows
+	 * as candidates for the next level. Each row is listed once.
+	 * The range of words to expand in a candidate row covers the frontier
+	 * of the row itself and of its adjacent rows plus one word on each side
+	 * for moves across word boundaries.
+	 * @param stamp a unique value for the current level, greater than 0
+	 * @return the number of candidate rows
+	 */
+	private int collectCandidates(int stamp) {
+		int count = 0;
+		for (int i = 0; i < frontierCount; i++) {
+			final int row = frontierRows[i];
+			final int lo = Math.max(0, frontierLo[row]-1);
+			final int hi = Math.min(words-1, frontierHi[row]+1);
+			for (int y = Math.max(0, row-1); y <= Math.min(height-1, row+1); y++) {
+				if (rowStamp[y] != stamp) {
+					rowStamp[y] = stamp;
+					candidates[count++] = y;
+					candidateLo[y] = lo;
+					candidateHi[y] = hi;
+				}
+				else {
+					candidateLo[y] = Math.min(candidateLo[y], lo);
+					candidateHi[y] = Math.max(candidateHi[y], hi);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Computes the next frontier for row y, marks its cells as visited
+	 * and assigns them the given distance value.
+	 * Only considers the candidate range of words for row y, words outside
+	 * of it have no neighbor in the current frontier.
+	 * Writes only to row y of next, visited, nextLo, nextHi and to entries dists[x][y].
+	 * @param dists the matrix to store distance values in
+	 * @param distance the distance value for cells of the next frontier
+	 * @param y the row to expand
+	 */
+	private void expandRow(int[][] dists, int distance, int y) {
+		final long[] cur = frontier[y];
+		final long[] east = openEast[y];
+		final long[] west = openWest[y];
+		final long[] above = (y > 0) ? frontier[y-1] : null;
+		final long[] aboveOpen = (y > 0) ? openSouth[y-1] : null;
+		final long[] below = (y+1 < height) ? frontier[y+1] : null;
+		final long[] belowOpen = (y+1 < height) ? openNorth[y+1] : null;
+		final long[] seen = visited[y];
+		final long[] result = next[y];
+		int lo = Integer.MAX_VALUE;
+		int hi = -1;
+		for (int w = candidateLo[y], end = candidateHi[y]; w <= end; w++) {
+			// moving east shifts bits towards higher x, carry from the word before
+			long toEast = (cur[w] & east[w]) << 1;
+			if (w > 0)
+				toEast |= (cur[w-1] & east[w-1]) >>> 63;
+			// moving west shifts bits towards lower x, carry from the word after
+			long toWest = (cur[w] & west[w]) >>> 1;
+			if (w+1 < words)
+				toWest |= (cur[w+1] & west[w+1]) << 63;
+			long bits = toEast | toWest;
+			if (above != null)
+				bits |= above[w] & aboveOpen[w];
+			if (below != null)
+				bits |= below[w] & belowOpen[w];
+			bits &= ~seen[w];
+			result[w] = bits;
+			if (bits != 0) {
+				lo = Math.min(lo, w);
+				hi = w;
+				seen[w] |= bits;
+				final int base = w << 6;
+				while (bits != 0) {
+					dists[base + Long.numberOfTrailingZeros(bits)][y] = distance;
+					bits &= bits - 1;
+				}
+			}
+		}
+		nextLo[y] = lo;
+		nextHi[y] = hi;
+	}
+
+	/**
+	 * Computes the masks for all rows, rows are independent
+	 * and processed on the ForkJoin pool for large floorplans.
+	 * Masks exclude moves that would leave the maze, e.g.
+	 * through the exit.
+	 * @param cells with information on wallboards for a maze, read only
+	 */
+	private void computeMasks(Floorplan cells) {
+		if (height >= PARALLEL_ROWS && pool.getParallelism() > 1) {
+			pool.invoke(new ComputeMasks(cells, 0, height));
+		}
+		else {
+			for (int y = 0; y < height; y++) {
+				computeMasks(cells, y);
+			}
+		}
+	}
+	/**
+	 * Computes the masks for row y.
+	 * @param cells with information on wallboards for a maze, read only
+	 * @param y the row
+	 */
+	private void computeMasks(Floorplan cells, int y) {
+		cells.getNoWallMask(y, CardinalDirection.North, openNorth[y]);
+		cells.getNoWallMask(y, CardinalDirection.East, openEast[y]);
+		cells.getNoWallMask(y, CardinalDirection.South, openSouth[y]);
+		cells.getNoWallMask(y, CardinalDirection.West, openWest[y]);
+		if (y == 0)
+			Arrays.fill(openNorth[y], 0);
+		if (y == height-1)
+			Arrays.fill(openSouth[y], 0);
+		// no move west from x == 0, no move east from x == width-1
+		openWest[y][0] &= ~1L;
+		openEast[y][(width-1) >>> 6] &= ~(1L << (width-1));
+	}
+
+	/**
+	 * Task to expand a range of candidate rows.
+	 */
+	private class ExpandRows extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[][] dists;
+		private final int distance;
+		private final int from;
+		private final int to;
+
+		ExpandRows(int[][] dists, int distance, int from, int to) {
+			this.dists = dists;
+			this.distance = distance;
+			this.from = from;
+			this.to = to;
+		}
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_ROWS) {
+				for (int i = from; i < to; i++) {
+					expandRow(dists, distance, candidates[i]);
+				}
+				return;
+			}
+			final int middle = (from + to) >>> 1;
+			invokeAll(new ExpandRows(dists, distance, from, middle),
+					new ExpandRows(dists, distance, middle, to));
+		}
+	}
+	/**
+	 * Task to compute masks for a range of rows.
+	 */
+	private class ComputeMasks extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Floorplan cells;
+		private final int from;
+		private final int to;
+
+		ComputeMasks(Floorplan cells, int from, int to) {
+			this.cells = cells;
+			this.from = from;
+			this.to = to;
+		}
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_ROWS) {
+				for (int y = from; y < to; y++) {
+					computeMasks(cells, y);
+				}
+				return;
+			}
+			final int middle = (from + to) >>> 1;
+			invokeAll(new ComputeMasks(cells, from, middle), new ComputeMasks(cells, middle, to));
+		}
+	}
+}
@@ -64,6 +64,8 @@ public enum CardinalDirection {
 	}
 	/**
 	 * Gives a random direction. Values are picked with equal probabilities.
+	 * Draws from the shared {@link SingleRandom}, maze builders use
+	 * {@link MazeRandom#nextDirection()} of their order instead.
 	 * @return a random direction, distribution is uniform
 	 */
 	public CardinalDirection randomDirection() {
@@ -145,4 +147,32 @@ public enum CardinalDirection {
 		}
 		return result ;
 	}
+	/**
+	 * Gives the dx value of {@link #getDirection()} without allocating an array.
+	 * @return dx in {-1,0,1}
+	 */
+	public int getDx() {
+		switch(this) {
+		case East : 
+			return 1 ;
+		case West : 
+			return -1 ;
+		default:
+			return 0 ;
+		}
+	}
+	/**
+	 * Gives the dy value of {@link #getDirection()} without allocating an array.
+	 * @return dy in {-1,0,1}
+	 */
+	public int getDy() {
+		switch(this) {
+		case North : // flipped North
+			return -1 ;
+		case South : // flipped South
+			return 1 ;
+		default:
+			return 0 ;
+		}
+	}
 }
@@ -0,0 +1,59 @@
+package generation;
+
+/**
+ * Describes in which order the values for the cells of a maze are stored
+ * in a flat array, see {@link Floorplan#Floorplan(int, int, CellLayout)}
+ * and {@link Distance#Distance(int, int, CellLayout)}.
+ *
+ * ROW_MAJOR stores one row after the other, cell (x,y) is at index {@code y*width+x}.
+ * Moving east or west stays in the same cache line, but moving north or south
+ * jumps a whole row, which misses the cache on large mazes.
+ *
+ * TILED splits the maze into tiles of 8x8 cells that are stored one after the
+ * other in row-major order of tiles. Inside a tile, cells are in Z-order (Morton order),
+ * the bits of x and y within the tile are interleaved to give the position.
+ * All four neighbors of a cell are in the same tile unless the cell is on the
+ * edge of its tile, so a traversal that follows paths of the maze mostly stays
+ * within a few cache lines. Width and height are rounded up to multiples of 8,
+ * the cells outside of the maze are never used.
+ */
+public enum CellLayout {
+	ROW_MAJOR, TILED;
+
+	static final int TILE_SHIFT = 3; // tiles have 8x8 cells
+	private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+	// the 3 bits of a coordinate within a tile spread to the even bit positions
+	private static final int[] SPREAD = {0, 1, 4, 5, 16, 17, 20, 21};
+
+	/**
+	 * Gives the number of tiles in a row of a maze with the TILED layout.
+	 * @param width of the maze, {@code 0 < width}
+	 * @return number of tiles per row
+	 */
+	static int tileColumns(int width) {
+		return (width + TILE_MASK) >>> TILE_SHIFT;
+	}
+	/**
+	 * Gives the number of values needed to store all cells of a maze.
+	 * @param width of the maze, {@code 0 < width}
+	 * @param height of the maze, {@code 0 < height}
+	 * @return number of values, larger than width*height for the TILED layout
+	 * if width or height are not multiples of 8
+	 */
+	long capacity(int width, int height) {
+		if (this == ROW_MAJOR)
+			return (long)width*height;
+		return ((long)tileColumns(width)*tileColumns(height)) << (2*TILE_SHIFT);
+	}
+	/**
+	 * Gives the position of cell (x,y) in the TILED layout.
+	 * @param x coordinate of the cell, {@code 0 <= x}
+	 * @param y coordinate of the cell, {@code 0 <= y}
+	 * @param tileColumns number of tiles in a row, see {@link #tileColumns(int)}
+	 * @return index of the cell
+	 */
+	static int tiledIndex(int x, int y, int tileColumns) {
+		final int tile = (y >>> TILE_SHIFT)*tileColumns + (x >>> TILE_SHIFT);
+		return (tile << (2*TILE_SHIFT)) | SPREAD[x & TILE_MASK] | (SPREAD[y & TILE_MASK] << 1);
+	}
+}
@@ -1,5 +1,12 @@
 package generation;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * This class has the responsibility to provide the distance
  * for each cell to the exit of a maze.
@@ -27,8 +34,20 @@ package generation;
  * Paul Falstad, www.falstad.com, Copyright (C) 1998, all rights reserved
  * Paul Falstad granted permission to modify and use code for teaching purposes.
  * Refactored by Peter Kemper
+ * 
+ * For mazes that do not fit into the heap, distance values can be kept 
+ * in a memory mapped file instead of the matrix, see {@link #Distance(int, int, Path)}.
+ * Values can also be kept in a flat array in the {@link CellLayout#TILED} order,
+ * see {@link #Distance(int, int, CellLayout)}.
  */
 public class Distance {
+	/**
+	 * System property that turns on the {@link BitParallelDistance} engine
+	 * for {@link #computeDistances(Floorplan)}, e.g. {@code -Dmaze.distance.bitparallel=true}.
+	 * The engine is opt-in only, it is slower than the breadth first search
+	 * on a single core and no skill level is large enough to gain from it.
+	 */
+	public static final String BIT_PARALLEL_PROPERTY = "maze.distance.bitparallel";
 	/**
 	 * The width of the distance matrix, same as width of maze and cells
 	 */
@@ -48,6 +67,22 @@ public class Distance {
 	 * obtain it and manipulate its content. 
 	 */
 	private int[][] dists; 
+	/**
+	 * Holds the distance values instead of dists in a flat array, 
+	 * value (x,y) is at {@link #index(int, int)}. Null if dists or mapped is used.
+	 */
+	private int[] values;
+	/**
+	 * Holds the distance values instead of dists for distances outside 
+	 * of the heap, value (x,y) is at {@link #index(int, int)}. 
+	 * Null if dists or values is used.
+	 */
+	private MappedStore mapped;
+	/**
+	 * Number of tiles per row for values and mapped in the TILED layout,
+	 * 0 for the order {@code x*height+y} of dists.
+	 */
+	private int tileColumns;
 	/** 
 	 * The exit position has a distance of 1
 	 * which is also the minimum of all values in dists.
@@ -90,6 +125,81 @@ public class Distance {
 		// exitPosition and startPosition
 		setAllDistanceValues(distances);
 	}
+	/**
+	 * Constructor for distance values that are kept outside of the heap
+	 * in a memory mapped temporary file in the given directory, for mazes
+	 * that are too large for the heap. 
+	 * Distances are computed with the breadth first search, 
+	 * {@link #getAllDistanceValues()} is not supported.
+	 * The file is removed by {@link #close()}, which must be called 
+	 * once the distances are no longer needed.
+	 * @param w is the width of the maze in the horizontal direction
+	 * @param h is the height of the maze in the vertical direction, {@code w*h <= Integer.MAX_VALUE}
+	 * @param directory for the temporary file, must exist
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	public Distance(int w, int h, Path directory) throws IOException {
+		this(w, h, CellLayout.ROW_MAJOR, directory);
+	}
+	/**
+	 * Same as {@link #Distance(int, int, Path)} with values in the given order.
+	 * For ROW_MAJOR, values are stored in the same order as in the matrix, 
+	 * i.e. value (x,y) is at {@code x*height+y}.
+	 * @param w is the width of the maze in the horizontal direction
+	 * @param h is the height of the maze in the vertical direction
+	 * @param layout order of the values
+	 * @param directory for the temporary file, must exist
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	public Distance(int w, int h, CellLayout layout, Path directory) throws IOException {
+		assert layout.capacity(w, h) <= Integer.MAX_VALUE : "too many cells: " + w + "x" + h;
+		width = w;
+		height = h;
+		tileColumns = (CellLayout.TILED == layout) ? CellLayout.tileColumns(w) : 0;
+		mapped = MappedStore.createTemporary(directory, "distance", 4*layout.capacity(w, h));
+	}
+	/**
+	 * Constructor for distance values in the given order.
+	 * ROW_MAJOR is the same as {@link #Distance(int, int)}.
+	 * For TILED, values are kept in a flat array which keeps neighboring cells 
+	 * close together in memory, {@link #getAllDistanceValues()} is not supported.
+	 * @param w is the width of the maze in the horizontal direction
+	 * @param h is the height of the maze in the vertical direction
+	 * @param layout order of the values
+	 */
+	public Distance(int w, int h, CellLayout layout) {
+		if (CellLayout.ROW_MAJOR == layout) {
+			setAllDistanceValues(new int[w][h]);
+			return;
+		}
+		assert layout.capacity(w, h) <= Integer.MAX_VALUE : "too many cells: " + w + "x" + h;
+		width = w;
+		height = h;
+		tileColumns = CellLayout.tileColumns(w);
+		values = new int[(int)layout.capacity(w, h)];
+	}
+	/**
+	 * Tells if distance values are kept in a memory mapped file.
+	 * @return true if the object was created with {@link #Distance(int, int, Path)}
+	 */
+	public boolean isMapped() {
+		return null != mapped;
+	}
+	/**
+	 * Releases the memory mapped file of distances outside of the heap.
+	 * The object must not be used afterwards. Has no effect for
+	 * distances on the heap or if it is already closed.
+	 * @throws UncheckedIOException if the file can not be removed
+	 */
+	public void close() {
+		if (null == mapped)
+			return;
+		try {
+			mapped.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Distance.close: can not release file", e);
+		}
+	}
 	/**
 	 * Sets the internal attribute to the given parameter value.
 	 * Can be used to provide precomputed distance values to an object
@@ -104,6 +214,12 @@ public class Distance {
 		width = distances.length;
 		height = distances[0].length;
 		this.dists = distances;
+		this.values = null;
+		this.mapped = null;
+		this.tileColumns = 0;
+		// scratch space for updates depends on the dimensions
+		touchStamp = null;
+		updateCount = 0;
 		// reset exit and start positions
 		// note: lazy evaluation in the sense that positions are
 		// computed on demand and then cached on corresponding
@@ -117,8 +233,12 @@ public class Distance {
 	 * and is intended for read access only. 
 	 * Do not modify entries of the returned array.
 	 * @return array with distance values
+	 * @throws UnsupportedOperationException if distance values are kept outside of the heap
+	 * or in the TILED layout
 	 */
 	public int[][] getAllDistanceValues() {
+		if (null == dists)
+			throw new UnsupportedOperationException("Distance.getAllDistanceValues: values are not in a matrix");
 		return dists;
 	}
 	/**
@@ -128,7 +248,43 @@ public class Distance {
 	 * @return the distance value for the given (x,y) position
 	 */
 	public int getDistanceValue(int x, int y) {
-		return dists[x][y] ;
+		return get(x, y) ;
+	}
+	/**
+	 * Gives the position of value (x,y) in values or mapped.
+	 * @param x is the x coordinate, {@code 0 <= x < width}
+	 * @param y is the y coordinate, {@code 0 <= y < height}
+	 * @return the index
+	 */
+	private int index(int x, int y) {
+		return (0 == tileColumns) ? x*height + y : CellLayout.tiledIndex(x, y, tileColumns);
+	}
+	/**
+	 * Gets the distance value for the given (x,y) position from
+	 * the matrix, the flat array or the memory mapped file.
+	 * @param x is the x coordinate, {@code 0 <= x < width}
+	 * @param y is the y coordinate, {@code 0 <= y < height}
+	 * @return the distance value
+	 */
+	private int get(int x, int y) {
+		if (null != dists)
+			return dists[x][y];
+		return (null != values) ? values[index(x, y)] : mapped.getInt(index(x, y));
+	}
+	/**
+	 * Sets the distance value for the given (x,y) position in
+	 * the matrix, the flat array or the memory mapped file.
+	 * @param x is the x coordinate, {@code 0 <= x < width}
+	 * @param y is the y coordinate, {@code 0 <= y < height}
+	 * @param value the new distance value
+	 */
+	private void set(int x, int y, int value) {
+		if (null != dists)
+			dists[x][y] = value;
+		else if (null != values)
+			values[index(x, y)] = value;
+		else
+			mapped.putInt(index(x, y), value);
 	}
 	/**
 	 * Compute distances for given cells object of a maze.
@@ -148,19 +304,35 @@ public class Distance {
 	 * @return exit position somewhere on the  border
 	 */
 	public int[] computeDistances(Floorplan cells) {
+		// the bit parallel engine only if it is asked for, it works on the matrix only
+		return computeDistances(cells, null != dists && Boolean.getBoolean(BIT_PARALLEL_PROPERTY));
+	}
+	/**
+	 * Same as {@link #computeDistances(Floorplan)} but with an explicit
+	 * choice of the search engine. Both engines deliver identical results.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param bitParallel true for the {@link BitParallelDistance} engine, 
+	 * false for the breadth first search in {@link #computeDists(Floorplan, int, int)},
+	 * must be false for distances that are not in the matrix
+	 * @return exit position somewhere on the  border
+	 */
+	int[] computeDistances(Floorplan cells, boolean bitParallel) {
 		// constraint: cells must be of size (width x height)
-		
+		assert !bitParallel || null != dists : "bit parallel engine needs the matrix";
+		// the bit parallel engine translates wallboards into masks once
+		// and reuses them for both steps
+		final BitParallelDistance engine = bitParallel ? new BitParallelDistance(cells) : null;
 		// Step 1: find a suitable exit position
 		// Heuristic:
 		// compute temporary distances for a starting point 
 		// (x,y) = (width/2,height/2) 
 		// which is located in the center of the maze
-		computeDists(cells, width/2, height/2);
+		computeDists(cells, engine, width/2, height/2);
 		// figure out which position is the farthest on the border 
 		// to find a candidate for the exit position
 		exitPosition = getPositionWithMaxDistanceOnBorder();
 		// Step 2: compute distances with regards to the exit position
-		computeDists(cells, exitPosition[0], exitPosition[1]);
+		computeDists(cells, engine, exitPosition[0], exitPosition[1]);
 		return exitPosition ;
 	}
 
@@ -268,10 +440,10 @@ public class Distance {
 	 * @return the new maximum distance after the comparison
 	 */
 	private int keepMaxDistance(int x, int y, int d, int[] result) {
-		if (dists[x][y] > d) {
+		if (get(x, y) > d) {
 			result[0] = x;
 			result[1] = y;
-			d = dists[x][y];
+			d = get(x, y);
 		}
 		return d;
 	}
@@ -286,10 +458,10 @@ public class Distance {
 		int[] result = new int[2] ;
 		for (int x = 0; x != width; x++)
 			for (int y = 0; y != height; y++) {
-				if (dists[x][y] < d) {
+				if (get(x, y) < d) {
 					result[0] = x;
 					result[1] = y;
-					d = dists[x][y];
+					d = get(x, y);
 				}
 			}
 		return result ;
@@ -302,80 +474,457 @@ public class Distance {
 	 */
 	static final int INFINITY = Integer.MAX_VALUE; 
 
+	/**
+	 * Computes distances to the given position (ax,ay) for all cells in array dists
+	 * with the given engine or the breadth first search if there is none.
+	 * @param cells with information on wallboards for a maze, can not be null
+	 * @param engine the bit parallel engine for cells or null
+	 * @param ax, position, x coordinate
+	 * @param ay, position, y coordinate
+	 */
+	private void computeDists(Floorplan cells, BitParallelDistance engine, int ax, int ay) {
+		if (null == engine) {
+			computeDists(cells, ax, ay);
+			return;
+		}
+		setAllDistanceValues(INFINITY) ;
+		engine.computeDists(dists, ax, ay);
+		assert (0 == countInfinity()) : 
+			"All positions should have a finite distance to the exit";
+	}
+
 	/**
 	 * Computes distances to the given position (ax,ay) for all cells in array dists.
+	 * Performs a breadth first search that starts at (ax,ay) and visits each
+	 * reachable cell exactly once. Cells are kept in a flat work queue
+	 * of primitive indices {@code x*height+y}, which matches the
+	 * {@code [x][y]} layout of dists.
+	 * A neighbor is reachable if the current cell has no wallboard
+	 * in the direction of that neighbor, which is the same criterion 
+	 * the original fixpoint iteration used, so both deliver identical distance values.
 	 * @param cells with information on wallboards for a maze, can not be null
 	 * @param ax, position, x coordinate
 	 * @param ay, position, y coordinate
 	 */
 	private void computeDists(Floorplan cells, int ax, int ay) {
-		//int x, y;
+		if (null == dists) {
+			computeDistsWithQueue(cells, ax, ay);
+			return;
+		}
 		// initialize the distance array with a value for infinity 
 		setAllDistanceValues(INFINITY) ;
+		// work queue for the breadth first search, each cell enters it at most once
+		final int[] queue = new int[width*height];
+		int head = 0;
+		int tail = 0;
 		// set the final distance at the exit position
 		dists[ax][ay] = 1;
-		// distribute values from this position to get started
-		pushDistanceValuesDFS2(cells, ax, ay);
-		int toDoCounter = countInfinity();
-		int progress; // used to recognize fixpoint, no progress, then stop
-		// go over this array as long as we can find something to do
-		// MEMO: there are likely to be much smarter ways to distribute distances in a breadth first manner...
-		// why not push identified cells with infinite distance on a "work to do" heap
-		// TODO: limit iterations to upperbound which is #cells == width * height
-		// in each iteration at least one cell should benefit from neighbor
-		// in each iteration at least one cell should receive its final value
-		// TODO: do a final checkup for enclosed areas left over with Max Int
-		do {
-			// check all entries in the distance array
-			for (int x = 0; x != width; x++) {
-				for (int y = 0; y != height; y++) 
-				{
-					if (dists[x][y] == INFINITY) {
-						continue;
-					}
-					// if the distance is not infinite, 
-					// let's see if the cell has a neighbor that we can update and 
-					// perform a depth first search on.
-					pushDistanceValuesDFS2(cells, x, y);
-				}
+		queue[tail++] = ax*height + ay;
+		while (head < tail) {
+			final int index = queue[head++];
+			final int x = index / height;
+			final int y = index - x*height;
+			final int nextDistance = dists[x][y] + 1;
+			// read the open sides once, avoids a method call per direction
+			final int open = cells.getOpenMask(x, y);
+			// a cell gets its final value the first time it is reached 
+			// as all cells in the queue are ordered by distance
+			if ((open & Floorplan.CW_TOP) != 0 && 0 < y && dists[x][y-1] == INFINITY) {
+				dists[x][y-1] = nextDistance;
+				queue[tail++] = index - 1;
 			}
-			progress = toDoCounter - countInfinity();
-			toDoCounter -= progress; // update to current value
-		} while (0 < progress);
-		assert (0 == countInfinity()) : 
+			if ((open & Floorplan.CW_RIGHT) != 0 && x+1 < width && dists[x+1][y] == INFINITY) {
+				dists[x+1][y] = nextDistance;
+				queue[tail++] = index + height;
+			}
+			if ((open & Floorplan.CW_BOT) != 0 && y+1 < height && dists[x][y+1] == INFINITY) {
+				dists[x][y+1] = nextDistance;
+				queue[tail++] = index + 1;
+			}
+			if ((open & Floorplan.CW_LEFT) != 0 && 0 < x && dists[x-1][y] == INFINITY) {
+				dists[x-1][y] = nextDistance;
+				queue[tail++] = index - height;
+			}
+		}
+		assert (tail == width*height) : 
 			"All positions should have a finite distance to the exit";
-		// the computation is not good enough to have truly minimum values
-		saturateDistances(cells);
 	}
 	/**
-	 * Follows a path as far as possible to push small distance values
-	 * into the maze
-	 * @param cells needed for checking wallboards, read only
-	 * @param sx starting position
-	 * @param sy starting position
+	 * Same breadth first search as {@link #computeDists(Floorplan, int, int)} 
+	 * for distance values in the flat array or a memory mapped file. 
+	 * The work queue only holds the frontier of the search and grows as needed, 
+	 * as a queue for all cells would not fit into the heap for mazes 
+	 * in memory mapped files.
+	 * @param cells with information on wallboards for a maze, can not be null
+	 * @param ax, position, x coordinate
+	 * @param ay, position, y coordinate
 	 */
-	private void pushDistanceValuesDFS2(Floorplan cells, int sx, int sy) {
-		while (true) {
-			CardinalDirection nextn = updateNeighborDistancesAndDirection(cells, sx, sy);
-			if (nextn == null)
-				break; // exit the loop if we cannot find another cell to proceed with
-			// update coordinates for next cell
-			int[] dir = nextn.getDirection();
-			sx += dir[0];
-			sy += dir[1];
-			// follow the nextn node on a depth-first-search path
+	private void computeDistsWithQueue(Floorplan cells, int ax, int ay) {
+		setAllDistanceValues(INFINITY) ;
+		final IntQueue queue = new IntQueue();
+		// set the final distance at the exit position
+		set(ax, ay, 1);
+		queue.add(ax*height + ay);
+		while (!queue.isEmpty()) {
+			final int index = queue.poll();
+			final int x = index / height;
+			final int y = index - x*height;
+			final int nextDistance = get(x, y) + 1;
+			final int open = cells.getOpenMask(x, y);
+			if ((open & Floorplan.CW_TOP) != 0 && 0 < y && get(x, y-1) == INFINITY) {
+				set(x, y-1, nextDistance);
+				queue.add(index - 1);
+			}
+			if ((open & Floorplan.CW_RIGHT) != 0 && x+1 < width && get(x+1, y) == INFINITY) {
+				set(x+1, y, nextDistance);
+				queue.add(index + height);
+			}
+			if ((open & Floorplan.CW_BOT) != 0 && y+1 < height && get(x, y+1) == INFINITY) {
+				set(x, y+1, nextDistance);
+				queue.add(index + 1);
+			}
+			if ((open & Floorplan.CW_LEFT) != 0 && 0 < x && get(x-1, y) == INFINITY) {
+				set(x-1, y, nextDistance);
+				queue.add(index - height);
+			}
+		}
+		assert (queue.added() == width*height) : 
+			"All positions should have a finite distance to the exit";
+	}
+	
+	/////////////////// incremental update after wallboard changes ////////////////////
+	/**
+	 * Offsets and wallboard bits for the four directions a cell connects to,
+	 * in the order top, right, bottom, left. The wallboard on the 
+	 * neighbor's side has the bit at index {@code (k+2)%4}.
+	 */
+	private static final int[] DX = {0, 1, 0, -1};
+	private static final int[] DY = {-1, 0, 1, 0};
+	private static final int[] WALL_BIT = {Floorplan.CW_TOP, Floorplan.CW_RIGHT, Floorplan.CW_BOT, Floorplan.CW_LEFT};
+	/**
+	 * Scratch space for {@link #updateDistances(Floorplan, Wallboard...)}.
+	 * A cell with index {@code x*height+y} was touched by the current update
+	 * if its entry in touchStamp equals updateCount.
+	 * Allocated on the first update, reset if the storage is replaced.
+	 */
+	private int[] touchStamp;
+	private int updateCount;
+	
+	/**
+	 * Repairs distance values after wallboards have been added to or
+	 * deleted from the floorplan, e.g. with {@link Floorplan#addWallboard(Wallboard, boolean)}
+	 * or {@link Floorplan#deleteWallboard(Wallboard)}.
+	 * The exit position stays the same, distances are updated with regards to it
+	 * such that the result matches a complete recomputation of distances from
+	 * the exit position on the changed floorplan. Work is limited to the 
+	 * region whose distance values change.
+	 * 
+	 * The update proceeds in two phases. Adding a wallboard can only increase
+	 * distance values: cells that lost all neighbors they were reachable
+	 * from on a shortest path get their values reset, in the order of their
+	 * old distance such that a cell is only checked once all cells closer to the
+	 * exit are settled. Deleting a wallboard can only decrease distance values:
+	 * a breadth first search starts from the reset cells and the cells at 
+	 * changed wallboards and proceeds as long as it finds shorter paths.
+	 * 
+	 * Cells that can not reach the exit anymore get the value {@link #INFINITY}. 
+	 * The starting position is recomputed on the next call to {@link #getStartPosition()}
+	 * if any value changed.
+	 * Assumes that distance values are valid for the floorplan before the change.
+	 * @param cells with information on wallboards for the maze after the change, can not be null, read only
+	 * @param changed wallboards that were added or deleted, the direction of the wallboard
+	 * does not matter, wallboards on the outside border of the maze are ignored
+	 * @return positions {@code (x,y)=(array[0],array[1])} of all cells whose distance value changed
+	 */
+	public List<int[]> updateDistances(Floorplan cells, Wallboard... changed) {
+		final int[] exit = getExitPosition();
+		final int exitIndex = exit[0]*height + exit[1];
+		if (null == touchStamp)
+			touchStamp = new int[width*height];
+		updateCount++;
+		// cells touched by this update and their values before the update
+		final IntList touched = new IntList();
+		final IntList oldValues = new IntList();
+		// cells at both sides of the changed wallboards, 
+		// sorted by distance value as keys (value << 32 | index)
+		final LongList ends = new LongList();
+		for (Wallboard wallboard : changed) {
+			final int x = wallboard.getX();
+			final int y = wallboard.getY();
+			final int nx = wallboard.getNeighborX();
+			final int ny = wallboard.getNeighborY();
+			if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+				continue;
+			ends.add(key(get(x, y), x*height + y));
+			ends.add(key(get(nx, ny), nx*height + ny));
+		}
+		ends.sort();
+		// Phase 1: reset cells whose old value is not supported any more
+		final IntList affected = new IntList();
+		final LongList queue = new LongList();
+		final LongList.Merge order = new LongList.Merge(ends, queue);
+		while (order.hasNext()) {
+			final long entry = order.next();
+			final int index = (int)entry;
+			final int value = (int)(entry >>> 32);
+			final int x = index / height;
+			final int y = index - x*height;
+			// skip the exit, unreachable cells and cells that were already checked
+			if (index == exitIndex || value == INFINITY || get(x, y) != value 
+					|| hasSupport(cells, x, y, value)) 
+				continue;
+			touch(index, value, touched, oldValues);
+			set(x, y, INFINITY);
+			affected.add(index);
+			// neighbors reachable through (x,y) on a shortest path need to be checked
+			final int open = cells.getOpenMask(x, y);
+			for (int k = 0; k < 4; k++) {
+				final int nx = x + DX[k];
+				final int ny = y + DY[k];
+				if ((open & WALL_BIT[k]) != 0 && isInRange(nx, ny) && get(nx, ny) == value + 1)
+					queue.add(key(value + 1, nx*height + ny));
+			}
+		}
+		// Phase 2: propagate shorter distances
+		// seeds are reset cells with their best value from unaffected neighbors
+		// and the cells at changed wallboards that may now lead to shorter paths
+		final LongList seeds = new LongList();
+		for (int i = 0; i < affected.size(); i++) {
+			final int index = affected.get(i);
+			final int x = index / height;
+			final int y = index - x*height;
+			int best = INFINITY;
+			for (int k = 0; k < 4; k++) {
+				final int nx = x + DX[k];
+				final int ny = y + DY[k];
+				if (isInRange(nx, ny) && get(nx, ny) != INFINITY 
+						&& (cells.getOpenMask(nx, ny) & WALL_BIT[(k+2)%4]) != 0)
+					best = Math.min(best, get(nx, ny) + 1);
+			}
+			if (best != INFINITY) {
+				set(x, y, best);
+				seeds.add(key(best, index));
+			}
+		}
+		for (int i = 0; i < ends.size(); i++) {
+			final int index = (int)ends.get(i);
+			final int x = index / height;
+			final int y = index - x*height;
+			if (get(x, y) != INFINITY)
+				seeds.add(key(get(x, y), index));
+		}
+		seeds.sort();
+		queue.clear();
+		final LongList.Merge search = new LongList.Merge(seeds, queue);
+		while (search.hasNext()) {
+			final long entry = search.next();
+			final int index = (int)entry;
+			final int value = (int)(entry >>> 32);
+			final int x = index / height;
+			final int y = index - x*height;
+			// skip entries that are outdated by a shorter path
+			if (get(x, y) != value)
+				continue;
+			final int open = cells.getOpenMask(x, y);
+			for (int k = 0; k < 4; k++) {
+				final int nx = x + DX[k];
+				final int ny = y + DY[k];
+				if ((open & WALL_BIT[k]) != 0 && isInRange(nx, ny) && value + 1 < get(nx, ny)) {
+					touch(nx*height + ny, get(nx, ny), touched, oldValues);
+					set(nx, ny, value + 1);
+					queue.add(key(value + 1, nx*height + ny));
+				}
+			}
+		}
+		// collect cells with a different value than before
+		final List<int[]> result = new ArrayList<int[]>();
+		for (int i = 0; i < touched.size(); i++) {
+			final int index = touched.get(i);
+			final int x = index / height;
+			final int y = index - x*height;
+			if (get(x, y) != oldValues.get(i))
+				result.add(new int[] {x, y});
+		}
+		if (!result.isEmpty())
+			startPosition = null;
+		return result;
+	}
+	/**
+	 * Checks if cell (x,y) can keep the given distance value, i.e. if it
+	 * is reachable from a neighbor with a distance value of one less.
+	 * @param cells with information on wallboards for a maze
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param value the distance value of (x,y)
+	 * @return true if there is a neighbor that supports the value, false otherwise
+	 */
+	private boolean hasSupport(Floorplan cells, int x, int y, int value) {
+		for (int k = 0; k < 4; k++) {
+			final int nx = x + DX[k];
+			final int ny = y + DY[k];
+			if (isInRange(nx, ny) && get(nx, ny) == value - 1 
+					&& (cells.getOpenMask(nx, ny) & WALL_BIT[(k+2)%4]) != 0)
+				return true;
+		}
+		return false;
+	}
+	/**
+	 * Records the old value of a cell the first time an update touches it.
+	 * @param index the index {@code x*height+y} of the cell
+	 * @param value the distance value before the update
+	 * @param touched list of touched cells
+	 * @param oldValues list of old values, same order as touched
+	 */
+	private void touch(int index, int value, IntList touched, IntList oldValues) {
+		if (touchStamp[index] != updateCount) {
+			touchStamp[index] = updateCount;
+			touched.add(index);
+			oldValues.add(value);
+		}
+	}
+	/**
+	 * Tells if (x,y) is a position inside the maze.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @return true if {@code 0 <= x < width} and {@code 0 <= y < height}
+	 */
+	private boolean isInRange(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+	/**
+	 * Encodes a distance value and a cell index such that 
+	 * keys sort by distance value first.
+	 * @param value the distance value, not negative
+	 * @param index the index {@code x*height+y} of the cell
+	 * @return the key
+	 */
+	private static long key(int value, int index) {
+		return ((long)value << 32) | index;
+	}
+	/**
+	 * A growable list of primitive int values.
+	 */
+	private static class IntList {
+		private int[] values = new int[16];
+		private int size;
+		
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, 2*size);
+			values[size++] = value;
+		}
+		int get(int i) {
+			return values[i];
+		}
+		int size() {
+			return size;
+		}
+	}
+	/**
+	 * A first in first out queue of primitive int values in a ring buffer
+	 * that doubles its capacity when it is full.
+	 */
+	private static class IntQueue {
+		private int[] values = new int[1024]; // capacity is a power of two
+		private int head; // number of values polled so far
+		private int tail; // number of values added so far
+		
+		void add(int value) {
+			if (tail - head == values.length) {
+				// copy the values in order such that positions stay valid for the new capacity
+				final int[] larger = new int[2*values.length];
+				for (int i = head; i != tail; i++) {
+					larger[i & (larger.length-1)] = values[i & (values.length-1)];
+				}
+				values = larger;
+			}
+			values[tail++ & (values.length-1)] = value;
+		}
+		int poll() {
+			return values[head++ & (values.length-1)];
+		}
+		boolean isEmpty() {
+			return head == tail;
+		}
+		int added() {
+			return tail;
+		}
+	}
+	/**
+	 * A growable list of primitive long values that also serves as 
+	 * a first in first out queue.
+	 */
+	private static class LongList {
+		private long[] values = new long[16];
+		private int size;
+		
+		void add(long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, 2*size);
+			values[size++] = value;
+		}
+		long get(int i) {
+			return values[i];
+		}
+		int size() {
+			return size;
+		}
+		void clear() {
+			size = 0;
+		}
+		void sort() {
+			Arrays.sort(values, 0, size);
+		}
+		/**
+		 * Iterates over a sorted list of keys and a queue that receives keys
+		 * in non-decreasing order while the iteration is going on, 
+		 * and delivers keys of both in non-decreasing order of their distance value.
+		 * For a breadth first search this is a priority queue without a heap.
+		 */
+		static class Merge {
+			private final LongList sorted;
+			private final LongList queue;
+			private int sortedHead;
+			private int queueHead;
+			
+			Merge(LongList sorted, LongList queue) {
+				this.sorted = sorted;
+				this.queue = queue;
+			}
+			boolean hasNext() {
+				return sortedHead < sorted.size || queueHead < queue.size;
+			}
+			long next() {
+				if (queueHead == queue.size)
+					return sorted.values[sortedHead++];
+				if (sortedHead == sorted.size)
+					return queue.values[queueHead++];
+				// compare distance values only, the queue wins ties
+				if ((sorted.values[sortedHead] >>> 32) < (queue.values[queueHead] >>> 32))
+					return sorted.values[sortedHead++];
+				return queue.values[queueHead++];
+			}
 		}
 	}
-
 	
 	/**
 	 * Sets all values in dists to given value
 	 * @param value
 	 */
 	private void setAllDistanceValues(int value) {
+		if (null != dists) {
+			for (int[] column : dists) {
+				Arrays.fill(column, value);
+			}
+			return;
+		}
+		if (null != values) {
+			Arrays.fill(values, value);
+			return;
+		}
 		for (int x = 0; x < width; x++) {
 			for (int y = 0; y < height; y++) {
-				dists[x][y] = value ;
+				set(x, y, value );
 			}
 		}
 	}
@@ -387,76 +936,10 @@ public class Distance {
 		int result = 0;
 		for (int x = 0; x < width; x++) {
 			for (int y = 0; y < height; y++) {
-				if (dists[x][y] == INFINITY)
+				if (get(x, y) == INFINITY)
 					result++;
 			}
 		}
 		return result;
 	}
-	/**
-	 * Updates distance values for adjacent cells that are reachable
-	 * if value can be reduced to current distance plus 1. 
-	 * @param cells with information on wallboards for a maze, can not be null, read only
-	 * @param currentX x coordinate of current position
-	 * @param currentY y coordinate of current position
-	 * @return direction for a neighbor that has been updated or null if there is none
-	 */
-	private CardinalDirection updateNeighborDistancesAndDirection(Floorplan cells, int currentX, int currentY) {
-		CardinalDirection result = null; // returns null by default
-		int nextDistance = dists[currentX][currentY] + 1; // distance of a neighbor
-		int[] dir;
-		int nextX;
-		int nextY;
-		// check all four directions, update distance as needed
-		for (CardinalDirection cd: CardinalDirection.values()) {
-			// check for reachable neighbors
-			if (cells.hasNoWall(currentX, currentY, cd)) {
-				// check if neighbor is on board
-				dir = cd.getDirection();
-				nextX = currentX+dir[0];
-				nextY = currentY+dir[1];
-				// check if cell at (nextX,nextY) is within bounds
-				if ((0 <= nextX && nextX < width) && (0 <= nextY && nextY < height)) {
-					// check if neigbor's distance needs update
-					if (dists[nextX][nextY] > nextDistance) {
-						// update the neighbor's distance value
-						// mark that cell as the next one
-						dists[nextX][nextY] = nextDistance;
-						result = cd;
-					}
-				}
-			}
-		}
-		return result;
-	}
-	
-	/**
-	 * Fix-point iteration on distance matrix.
-	 * @param  cells with information on wallboards for a maze, can not be null, read only
-	 */
-	private void saturateDistances(Floorplan cells) {
-		boolean progress = false; 
-		//int count = 0;
-		int[] dir = null;
-		CardinalDirection nextn;
-		do {
-			progress = false; // reset termination criterion
-			// go through all positions
-			// check if we can update a neighbor to 
-			// a shorter distance, if so we made progress
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					nextn = updateNeighborDistancesAndDirection(cells, x, y);
-					if (null != nextn) {
-						progress = true; // something changed
-						// follow neighbor on a depth-first-search path
-						dir = nextn.getDirection();
-						pushDistanceValuesDFS2(cells, x+dir[0], y+dir[1]);		
-					}
-				}
-			}
-			//count++;
-		} while (progress);
-		//System.out.println("Distance.saturate: #iterations needed " + count);
-	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,322 @@
+package generation;
+
+import java.awt.Color;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A BSP tree in parallel arrays of primitive values instead of a graph of
+ * {@link BSPNode}, {@link BSPBranch}, {@link BSPLeaf} and {@link Wall} objects.
+ * It holds the same information and is meant for code that traverses the tree
+ * often, e.g. the first person view for each frame, and for storing a tree.
+ *
+ * Nodes are numbered in preorder, the root is node 0. A node has the bounds of
+ * its walls, a branch has a splitter (x, y, dx, dy) and the number of its
+ * right child, its left child is the next node. The walls of all leaves are
+ * kept in one wall store with an array per attribute, in the order of the leaves,
+ * the walls of a leaf are the ones with numbers from {@link #getFirstWall(int)}
+ * up to but excluding {@link #getEndWall(int)}. So the end of a leaf is
+ * the first wall of the next node and needs no array of its own.
+ * Walls with the same color share a Color object.
+ *
+ * The tree does not change once it is created, so it can be shared between
+ * threads. Which walls were seen in a game is kept by the first person view.
+ */
+public final class FlatBSPTree {
+	private static final int MAGIC = 0x42535031; // "BSP1", first int of a stored tree
+
+	// nodes
+	private final int[] lowerX;
+	private final int[] lowerY;
+	private final int[] upperX;
+	private final int[] upperY;
+	private final int[] splitX; // splitter of a branch, 0 for a leaf
+	private final int[] splitY;
+	private final int[] splitDx;
+	private final int[] splitDy;
+	private final int[] right; // number of right child, -1 for a leaf, the left child is the next node
+	private final int[] firstWall; // first wall of the leaves of the subtree of a node
+	// walls
+	private final int[] wallX;
+	private final int[] wallY;
+	private final int[] wallDx;
+	private final int[] wallDy;
+	private final int[] wallDistance;
+	private final Color[] wallColor;
+	private final boolean[] wallPartition;
+
+	/**
+	 * Constructor for empty arrays that are filled by the caller.
+	 * @param nodes number of nodes
+	 * @param walls number of walls
+	 */
+	private FlatBSPTree(int nodes, int walls) {
+		lowerX = new int[nodes];
+		lowerY = new int[nodes];
+		upperX = new int[nodes];
+		upperY = new int[nodes];
+		splitX = new int[nodes];
+		splitY = new int[nodes];
+		splitDx = new int[nodes];
+		splitDy = new int[nodes];
+		right = new int[nodes];
+		firstWall = new int[nodes];
+		wallX = new int[walls];
+		wallY = new int[walls];
+		wallDx = new int[walls];
+		wallDy = new int[walls];
+		wallDistance = new int[walls];
+		wallColor = new Color[walls];
+		wallPartition = new boolean[walls];
+	}
+	/**
+	 * Creates the flat form of a tree of BSP nodes. The tree is not changed,
+	 * the seen flags of its walls are not copied.
+	 * @param root of the tree, not null
+	 * @return the flat tree
+	 */
+	public static FlatBSPTree of(BSPNode root) {
+		// count nodes and walls first to allocate the arrays once
+		int nodes = 0;
+		int walls = 0;
+		final List<BSPNode> stack = new ArrayList<BSPNode>();
+		stack.add(root);
+		while (!stack.isEmpty()) {
+			final BSPNode node = stack.remove(stack.size() - 1);
+			nodes++;
+			if (node.isIsleaf()) {
+				walls += ((BSPLeaf)node).getAllWalls().size();
+			} else {
+				stack.add(((BSPBranch)node).getRightBranch());
+				stack.add(((BSPBranch)node).getLeftBranch());
+			}
+		}
+		final FlatBSPTree tree = new FlatBSPTree(nodes, walls);
+		tree.fill(root, 0, new int[1], new HashMap<Integer, Color>());
+		return tree;
+	}
+	/**
+	 * Copies a subtree into the arrays in preorder.
+	 * @param node root of the subtree
+	 * @param number of the node
+	 * @param filled number of walls that are filled in, updated
+	 * @param colors shared Color objects by their rgb values
+	 * @return number of the next node after the subtree in preorder
+	 */
+	private int fill(BSPNode node, int number, int[] filled, HashMap<Integer, Color> colors) {
+		lowerX[number] = node.getLowerBoundX();
+		lowerY[number] = node.getLowerBoundY();
+		upperX[number] = node.getUpperBoundX();
+		upperY[number] = node.getUpperBoundY();
+		firstWall[number] = filled[0];
+		if (node.isIsleaf()) {
+			right[number] = -1;
+			int wall = filled[0];
+			for (Wall w : ((BSPLeaf)node).getAllWalls()) {
+				wallX[wall] = w.getStartPositionX();
+				wallY[wall] = w.getStartPositionY();
+				wallDx[wall] = w.getExtensionX();
+				wallDy[wall] = w.getExtensionY();
+				wallDistance[wall] = w.getDistance();
+				wallColor[wall] = colors.computeIfAbsent(w.getColor().getRGB(), rgb -> new Color(rgb));
+				wallPartition[wall] = w.isPartition();
+				wall++;
+			}
+			filled[0] = wall;
+			return number + 1;
+		}
+		final BSPBranch branch = (BSPBranch)node;
+		splitX[number] = branch.getX();
+		splitY[number] = branch.getY();
+		splitDx[number] = branch.getDx();
+		splitDy[number] = branch.getDy();
+		right[number] = fill(branch.getLeftBranch(), number + 1, filled, colors);
+		return fill(branch.getRightBranch(), right[number], filled, colors);
+	}
+	/**
+	 * Creates a tree of BSP nodes with the same content, none of its walls are seen.
+	 * @return root of the tree
+	 */
+	public BSPNode toNode() {
+		return toNode(0);
+	}
+	private BSPNode toNode(int node) {
+		if (isLeaf(node)) {
+			final int end = getEndWall(node);
+			final List<Wall> walls = new ArrayList<Wall>(end - firstWall[node]);
+			for (int i = firstWall[node]; i < end; i++) {
+				final Wall wall = new Wall(wallX[i], wallY[i], wallDx[i], wallDy[i], wallDistance[i], 0);
+				wall.setColor(wallColor[i]);
+				wall.setPartition(wallPartition[i]);
+				walls.add(wall);
+			}
+			return new BSPLeaf(walls);
+		}
+		return new BSPBranch(splitX[node], splitY[node], splitDx[node], splitDy[node],
+				toNode(node + 1), toNode(right[node]));
+	}
+	/**
+	 * Writes the tree as a single block: the counts, then each array in turn.
+	 * @param out takes the tree
+	 * @throws IOException if writing fails
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(getNodeCount());
+		out.writeInt(getWallCount());
+		for (int[] values : new int[][] {lowerX, lowerY, upperX, upperY, splitX, splitY, splitDx, splitDy,
+				right, firstWall, wallX, wallY, wallDx, wallDy, wallDistance}) {
+			for (int value : values) {
+				out.writeInt(value);
+			}
+		}
+		for (int i = 0; i < wallColor.length; i++) {
+			out.writeInt(wallColor[i].getRGB());
+			out.writeBoolean(wallPartition[i]);
+		}
+	}
+	/**
+	 * Reads a tree that was written with {@link #write(DataOutput)}.
+	 * @param in gives the tree
+	 * @return the tree
+	 * @throws IOException if reading fails or the data is not a tree
+	 */
+	public static FlatBSPTree read(DataInput in) throws IOException {
+		if (MAGIC != in.readInt())
+			throw new IOException("FlatBSPTree: not a stored tree");
+		final int nodes = in.readInt();
+		final int walls = in.readInt();
+		if (nodes <= 0 || walls < 0)
+			throw new IOException("FlatBSPTree: illegal size " + nodes + ", " + walls);
+		final FlatBSPTree tree = new FlatBSPTree(nodes, walls);
+		for (int[] values : new int[][] {tree.lowerX, tree.lowerY, tree.upperX, tree.upperY,
+				tree.splitX, tree.splitY, tree.splitDx, tree.splitDy, tree.right, tree.firstWall,
+				tree.wallX, tree.wallY, tree.wallDx, tree.wallDy, tree.wallDistance}) {
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readInt();
+			}
+		}
+		final HashMap<Integer, Color> colors = new HashMap<Integer, Color>();
+		for (int i = 0; i < walls; i++) {
+			tree.wallColor[i] = colors.computeIfAbsent(in.readInt(), rgb -> new Color(rgb));
+			tree.wallPartition[i] = in.readBoolean();
+		}
+		// children follow their parent in preorder, walls of the leaves are in range and in order
+		for (int node = 0; node < nodes; node++) {
+			final boolean valid = (tree.isLeaf(node) || node + 1 < tree.right[node] && tree.right[node] < nodes)
+					&& 0 <= tree.firstWall[node] && tree.firstWall[node] <= tree.getEndWall(node)
+					&& tree.getEndWall(node) <= walls;
+			if (!valid)
+				throw new IOException("FlatBSPTree: illegal node " + node);
+		}
+		return tree;
+	}
+	///////////////////////////// nodes /////////////////////////////////////////
+	/**
+	 * @return number of nodes, the root is node 0
+	 */
+	public int getNodeCount() {
+		return right.length;
+	}
+	/**
+	 * @param node number of a node
+	 * @return true if the node is a leaf with walls, false for a branch
+	 */
+	public boolean isLeaf(int node) {
+		return -1 == right[node];
+	}
+	/**
+	 * @param node number of a branch
+	 * @return number of its left child
+	 */
+	public int getLeft(int node) {
+		return node + 1;
+	}
+	/**
+	 * @param node number of a branch
+	 * @return number of its right child
+	 */
+	public int getRight(int node) {
+		return right[node];
+	}
+	public int getLowerBoundX(int node) {
+		return lowerX[node];
+	}
+	public int getLowerBoundY(int node) {
+		return lowerY[node];
+	}
+	public int getUpperBoundX(int node) {
+		return upperX[node];
+	}
+	public int getUpperBoundY(int node) {
+		return upperY[node];
+	}
+	/**
+	 * @param node number of a branch
+	 * @return x coordinate of the start of its splitter
+	 */
+	public int getX(int node) {
+		return splitX[node];
+	}
+	public int getY(int node) {
+		return splitY[node];
+	}
+	public int getDx(int node) {
+		return splitDx[node];
+	}
+	public int getDy(int node) {
+		return splitDy[node];
+	}
+	/**
+	 * @param node number of a leaf
+	 * @return number of its first wall
+	 */
+	public int getFirstWall(int node) {
+		return firstWall[node];
+	}
+	/**
+	 * @param node number of a leaf
+	 * @return number of the first wall after its walls
+	 */
+	public int getEndWall(int node) {
+		return (node + 1 < right.length) ? firstWall[node + 1] : wallX.length;
+	}
+	///////////////////////////// walls /////////////////////////////////////////
+	/**
+	 * @return number of walls in all leaves
+	 */
+	public int getWallCount() {
+		return wallX.length;
+	}
+	public int getWallStartX(int wall) {
+		return wallX[wall];
+	}
+	public int getWallStartY(int wall) {
+		return wallY[wall];
+	}
+	public int getWallEndX(int wall) {
+		return wallX[wall] + wallDx[wall];
+	}
+	public int getWallEndY(int wall) {
+		return wallY[wall] + wallDy[wall];
+	}
+	public int getWallExtensionX(int wall) {
+		return wallDx[wall];
+	}
+	public int getWallExtensionY(int wall) {
+		return wallDy[wall];
+	}
+	public int getWallDistance(int wall) {
+		return wallDistance[wall];
+	}
+	public Color getWallColor(int wall) {
+		return wallColor[wall];
+	}
+	public boolean isWallPartition(int wall) {
+		return wallPartition[wall];
+	}
+}
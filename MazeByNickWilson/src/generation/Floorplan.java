@@ -2,6 +2,10 @@ package generation;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -42,9 +46,20 @@ import java.util.NoSuchElementException;
  * 
  * The internal encoding of this information into a single integer
  * for each cell is performed with bit operations {@code (&,|)} 
- * to set individual bits in a 4 byte/32 bit integer 
- * and thus error prone. The encapsulation within this class 
+ * to set individual bits and thus error prone. The encapsulation within this class 
  * localizes all bit operations for this encoding.
+ * All flags fit into 10 bits, so cells are stored as 16 bit values in a single
+ * flat array in row-major order, cell (x,y) is at index {@code y*width+x}.
+ * This takes half the memory of an int per cell and a row of cells is contiguous.
+ * Methods that deliver the value of a cell still deliver an int.
+ * For mazes that do not fit into the heap, the same layout can live in a 
+ * memory mapped file instead, see {@link #Floorplan(int, int, Path)}.
+ * Large mazes that are traversed along their paths benefit from the
+ * {@link CellLayout#TILED} order which keeps neighboring cells close together,
+ * see {@link #Floorplan(int, int, CellLayout)}.
+ * Floorplans that are copied often, e.g. to keep snapshots of the walls seen so far,
+ * store their cells in chunks of 64x64 cells that are shared between copies,
+ * see {@link #createCopyOnWrite(int, int)} and {@link #snapshot()}.
  * 
  * This code is refactored code from Maze.java by Paul Falstad, www.falstad.com, Copyright (C) 1998, all rights reserved
  * Paul Falstad granted permission to modify and use code for teaching purposes.
@@ -90,15 +105,39 @@ public class Floorplan {
 	
 	private int width;
 	private int height ;
-	private int[][] cells; // width x height array of cells, cells[width][height]
-	// each cell contains an integer which encodes presence/absence of wallboards
-	// cells[i][j] can be read as (i,j) coordinates much like (x,y) coordinates
-	// where the first dimension x grows towards the right and 
-	// the second dimension y grows towards the bottom
+	private short[] cells; // width*height cells in row-major order, cell (x,y) is at index y*width+x
+	// or in tiled order if tileColumns is not 0, see index(int, int)
+	private MappedStore mapped; // holds the cells in the same order if cells is null, see Floorplan(int, int, Path)
+	private int tileColumns; // number of tiles per row for the TILED layout, 0 for ROW_MAJOR,
+	// number of chunks per row if chunks is not null
+	private short[][] chunks; // holds the cells if cells and mapped are null, see createCopyOnWrite(int, int)
+	private byte[] chunkFlags; // OWNED and HASHED flags for each chunk
+	private int[] chunkHashes; // hash of each chunk that has the HASHED flag
+	// each cell contains a 16 bit value which encodes presence/absence of wallboards
+	// x grows towards the right and y grows towards the bottom
 	// as if the (0,0) position is in the top-left corner.
-	// cells[i][j] is not intuitive in terms of rows and column indices in matrix notation 
-	// as position (i,j) would be column i and row j which is opposite to the normal  
-	// use of rows and columns indices for matrices.
+	
+	// wallboard bits CW_TOP, CW_RIGHT, CW_BOT, CW_LEFT indexed by the ordinal of a cardinal direction
+	private static final int[] WALL_BIT = new int[CardinalDirection.values().length];
+	static {
+		WALL_BIT[CardinalDirection.North.ordinal()] = CW_TOP;
+		WALL_BIT[CardinalDirection.East.ordinal()] = CW_RIGHT;
+		WALL_BIT[CardinalDirection.South.ordinal()] = CW_BOT;
+		WALL_BIT[CardinalDirection.West.ordinal()] = CW_LEFT;
+	}
+	// wallboard bits indexed by 3*(dy+1)+(dx+1) for a direction (dx,dy), 0 if (dx,dy) is not a direction
+	private static final int[] WALL_BIT_FOR_OFFSET = {0, CW_TOP, 0, CW_LEFT, 0, CW_RIGHT, 0, CW_BOT, 0};
+	
+	// chunks of copy-on-write floorplans have 64x64 cells in row-major order
+	static final int CHUNK_SHIFT = 6;
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+	private static final int CHUNK_CELLS_SHIFT = 2*CHUNK_SHIFT;
+	private static final int CHUNK_CELLS_MASK = (1 << CHUNK_CELLS_SHIFT) - 1;
+	private static final byte OWNED = 1; // chunk is not shared and can be written
+	private static final byte HASHED = 2; // chunkHashes holds the hash of the chunk
+	// all cells 0, shared by all chunks that have not been written yet, never written itself
+	private static final short[] EMPTY_CHUNK = new short[1 << CHUNK_CELLS_SHIFT];
+	private static final int EMPTY_CHUNK_HASH = Arrays.hashCode(EMPTY_CHUNK);
 	
 	/**
 	 * Constructor
@@ -108,30 +147,230 @@ public class Floorplan {
 	public Floorplan(int w, int h) {
 		width = w ;
 		height = h ;
-		cells = new int[w][h];
+		cells = new short[w*h];
+	}
+	/**
+	 * Constructor for a floorplan that stores its cells in the given order.
+	 * The layout is not visible from the outside, it only changes 
+	 * how fast cells are accessed.
+	 * @param w width, {@code 0 < w}
+	 * @param h height, {@code 0 < h}
+	 * @param layout order of cells in memory
+	 */
+	public Floorplan(int w, int h, CellLayout layout) {
+		assert layout.capacity(w, h) <= Integer.MAX_VALUE : "too many cells: " + w + "x" + h;
+		width = w ;
+		height = h ;
+		cells = new short[(int)layout.capacity(w, h)];
+		tileColumns = (CellLayout.TILED == layout) ? CellLayout.tileColumns(w) : 0;
+	}
+	/**
+	 * Constructor for a floorplan whose cells are kept outside of the heap
+	 * in a memory mapped temporary file in the given directory, for mazes
+	 * that are too large for the heap. The operating system pages cells in
+	 * and out as needed. The floorplan behaves the same as one on the heap,
+	 * it is slower to access but does not add to garbage collection pauses.
+	 * The file is removed by {@link #close()}, which must be called 
+	 * once the floorplan is no longer needed.
+	 * @param w width, {@code 0 < w}
+	 * @param h height, {@code 0 < h}, {@code w*h <= Integer.MAX_VALUE}
+	 * @param directory for the temporary file, must exist
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	public Floorplan(int w, int h, Path directory) throws IOException {
+		this(w, h, CellLayout.ROW_MAJOR, directory);
+	}
+	/**
+	 * Same as {@link #Floorplan(int, int, Path)} with cells in the given order.
+	 * @param w width, {@code 0 < w}
+	 * @param h height, {@code 0 < h}, {@code w*h <= Integer.MAX_VALUE}
+	 * @param layout order of cells in memory
+	 * @param directory for the temporary file, must exist
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	public Floorplan(int w, int h, CellLayout layout, Path directory) throws IOException {
+		assert layout.capacity(w, h) <= Integer.MAX_VALUE : "too many cells: " + w + "x" + h;
+		width = w ;
+		height = h ;
+		mapped = MappedStore.createTemporary(directory, "floorplan", 2*layout.capacity(w, h));
+		tileColumns = (CellLayout.TILED == layout) ? CellLayout.tileColumns(w) : 0;
+	}
+	/**
+	 * Creates a floorplan whose cells are kept in chunks of 64x64 cells
+	 * that are copied on write. A {@link #snapshot()} of it shares all chunks,
+	 * so it only takes time and memory for an array of references to them. Writing a cell copies 
+	 * the chunk of the cell unless this floorplan already owns it. Chunks that have
+	 * never been written are not allocated, which also saves memory
+	 * for floorplans that are filled sparsely like the walls seen so far.
+	 * Access to a cell is a little slower than with the other constructors.
+	 * @param w width, {@code 0 < w}
+	 * @param h height, {@code 0 < h}
+	 * @return the floorplan, all cells are 0
+	 */
+	public static Floorplan createCopyOnWrite(int w, int h) {
+		final int columns = (w + CHUNK_MASK) >>> CHUNK_SHIFT;
+		final int count = columns*((h + CHUNK_MASK) >>> CHUNK_SHIFT);
+		assert (long)count << CHUNK_CELLS_SHIFT <= Integer.MAX_VALUE : "too many cells: " + w + "x" + h;
+		final Floorplan result = new Floorplan(w, h, new short[count][], columns);
+		Arrays.fill(result.chunks, EMPTY_CHUNK);
+		Arrays.fill(result.chunkFlags, HASHED);
+		Arrays.fill(result.chunkHashes, EMPTY_CHUNK_HASH);
+		return result;
+	}
+	/**
+	 * Constructor for a copy-on-write floorplan with the given chunks,
+	 * see {@link #createCopyOnWrite(int, int)}.
+	 * @param w width, {@code 0 < w}
+	 * @param h height, {@code 0 < h}
+	 * @param chunks holds the cells, flags and hashes need to be set by the caller
+	 * @param columns number of chunks per row
+	 */
+	private Floorplan(int w, int h, short[][] chunks, int columns) {
+		width = w ;
+		height = h ;
+		this.chunks = chunks;
+		chunkFlags = new byte[chunks.length];
+		chunkHashes = new int[chunks.length];
+		tileColumns = columns;
+	}
+	/**
+	 * Gives an independent copy of this floorplan, later changes to
+	 * either one do not show in the other one.
+	 * For a copy-on-write floorplan, both share all chunks until they are written,
+	 * so the cost does not depend on the number of cells.
+	 * Other floorplans are copied cell by cell into a new copy-on-write 
+	 * floorplan, whose snapshots are then cheap.
+	 * @return copy-on-write floorplan that equals this one
+	 */
+	public Floorplan snapshot() {
+		if (null == chunks) {
+			final Floorplan result = createCopyOnWrite(width, height);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					final int value = getValueOfCell(x, y);
+					if (0 != value)
+						result.setCell(result.index(x, y), value);
+				}
+			}
+			return result;
+		}
+		// both share all chunks, the first write to a chunk copies it,
+		// flags that are already clear are not written such that a floorplan that is
+		// no longer changed can give snapshots to several threads, see FrozenMaze
+		for (int c = 0; c < chunks.length; c++) {
+			if (0 != (chunkFlags[c] & OWNED))
+				chunkFlags[c] &= ~OWNED;
+		}
+		final Floorplan result = new Floorplan(width, height, chunks.clone(), tileColumns);
+		System.arraycopy(chunkFlags, 0, result.chunkFlags, 0, chunks.length);
+		System.arraycopy(chunkHashes, 0, result.chunkHashes, 0, chunks.length);
+		return result;
+	}
+	/**
+	 * Tells if cells are kept in chunks that are copied on write.
+	 * @return true if the floorplan was created with {@link #createCopyOnWrite(int, int)} or {@link #snapshot()}
+	 */
+	public boolean isCopyOnWrite() {
+		return null != chunks;
+	}
+	/**
+	 * Gives the order in which cells are stored.
+	 * @return the layout, ROW_MAJOR for a copy-on-write floorplan as 
+	 * cells within a chunk are in row-major order
+	 */
+	public CellLayout getLayout() {
+		return (0 == tileColumns || null != chunks) ? CellLayout.ROW_MAJOR : CellLayout.TILED;
+	}
+	/**
+	 * Tells if cells are kept in a memory mapped file.
+	 * @return true if the floorplan was created with {@link #Floorplan(int, int, Path)}
+	 */
+	public boolean isMapped() {
+		return null != mapped;
+	}
+	/**
+	 * Releases the memory mapped file of a floorplan outside of the heap.
+	 * The floorplan must not be used afterwards. Has no effect for
+	 * a floorplan on the heap or if it is already closed.
+	 * @throws UncheckedIOException if the file can not be removed
+	 */
+	public void close() {
+		if (null == mapped)
+			return;
+		try {
+			mapped.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Floorplan.close: can not release file", e);
+		}
+	}
+	/**
+	 * Gives the position of cell (x,y) in the array or the mapped file.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return {@code y*width+x} for the row-major layout, the position in the tile otherwise,
+	 * for chunks the number of the chunk in the upper bits and the position within the chunk in the lower 12 bits
+	 */
+	private int index(int x, int y) {
+		if (0 == tileColumns)
+			return y*width+x;
+		if (null == chunks)
+			return CellLayout.tiledIndex(x, y, tileColumns);
+		final int chunk = (y >>> CHUNK_SHIFT)*tileColumns + (x >>> CHUNK_SHIFT);
+		return (chunk << CHUNK_CELLS_SHIFT) | ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+	}
+	/**
+	 * Gives the value of the cell at the given index.
+	 * @param index of the cell, see {@link #index(int, int)}
+	 * @return 16 bit value of the cell
+	 */
+	private int cell(int index) {
+		if (null != cells)
+			return cells[index] & 0xFFFF;
+		if (null != chunks)
+			return chunks[index >>> CHUNK_CELLS_SHIFT][index & CHUNK_CELLS_MASK] & 0xFFFF;
+		return mapped.getShort(index) & 0xFFFF;
+	}
+	/**
+	 * Sets the value of the cell at the given index.
+	 * @param index of the cell, see {@link #index(int, int)}
+	 * @param value new 16 bit value of the cell
+	 */
+	private void setCell(int index, int value) {
+		if (null != cells)
+			cells[index] = (short)value;
+		else if (null != chunks)
+			setChunkCell(index, value);
+		else
+			mapped.putShort(index, (short)value);
+	}
+	/**
+	 * Sets the value of a cell in a chunk, copies the chunk first
+	 * if it is shared.
+	 * @param index of the cell, see {@link #index(int, int)}
+	 * @param value new 16 bit value of the cell
+	 */
+	private void setChunkCell(int index, int value) {
+		final int c = index >>> CHUNK_CELLS_SHIFT;
+		if (0 == (chunkFlags[c] & OWNED))
+			chunks[c] = chunks[c].clone();
+		chunkFlags[c] = OWNED; // the cached hash is no longer valid
+		chunks[c][index & CHUNK_CELLS_MASK] = (short)value;
 	}
 
 	/**
 	 * Constructor that dimensions and initializes cells with the values from the given matrix.
 	 * This constructor is useful to obtain a duplicate of a floorplan.
-	 * @param input provides input data to copy cell content from
-	 * precondition input != null
+	 * @param input provides input data to copy cell content from, input[x][y] is the value of cell (x,y)
+	 * precondition input != null, values are in the range of 16 bits
 	 */
 	public Floorplan(int[][] input){
-		// Alternative, 2d array is a 1d array with arrays as elements
-		width = input.length ;
-		height = input[0].length ;
-		cells = new int[width][];
-		for(int i = 0; i < width; i++)
-		    cells[i] = input[i].clone(); // clone row
-		/* Basic version
 		this(input.length, input[0].length);
 		for (int i = 0; i < width; i++) {
 			for (int j = 0; j < height; j++) {
-				cells[i][j] = input[i][j];
+				assert (input[i][j] & ~0xFFFF) == 0 : "cell value does not fit into 16 bits: " + input[i][j];
+				setCell(index(i, j), input[i][j]);
 			}
 		}
-		*/
 	}
 	
 	/**
@@ -179,23 +418,71 @@ public class Floorplan {
 		final Floorplan o = (Floorplan)other ; // type cast safe after checking class objects
 		if ((width != o.width)||(height != o.height))
 			return false ;
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				if (cells[i][j] != o.cells[i][j])
+		if (null != cells && null != o.cells && tileColumns == o.tileColumns)
+			return Arrays.equals(cells, o.cells) ;
+		if (null != chunks && null != o.chunks) {
+			// shared chunks are equal, different hashes tell chunks apart without looking at cells
+			for (int c = 0; c < chunks.length; c++) {
+				if (chunks[c] != o.chunks[c] && (getChunkHash(c) != o.getChunkHash(c) || !Arrays.equals(chunks[c], o.chunks[c])))
+					return false ;
+			}
+			return true ;
+		}
+		// different storage, compare cell by cell
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (cell(index(x, y)) != o.cell(o.index(x, y)))
 					return false ;
 			}
 		}
 		return true ;
 	}
 	/**
-	 * Hashcode method is not implemented as it is not needed here.
-	 * Dummy method to recognize common pitfall from overriding equals() but 
-	 * not hashcode() method.
+	 * Hashcode method that matches equals, it only depends on
+	 * dimensions and content and not on how cells are stored.
+	 * The hash combines hashes of the 64x64 areas of the chunks of a copy-on-write floorplan,
+	 * which are cached per chunk. It changes whenever a cell changes, so 
+	 * a floorplan must not change while it is a key in a hash table.
 	 */
 	@Override
 	public int hashCode() {
-		  assert false : "hashCode not designed";
-		  return 42; // any arbitrary constant will do
+		int result = 31*width + height;
+		final int columns = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+		final int count = columns*((height + CHUNK_MASK) >>> CHUNK_SHIFT);
+		for (int c = 0; c < count; c++) {
+			result = 31*result + ((null != chunks) ? getChunkHash(c) : 
+				computeAreaHash((c % columns) << CHUNK_SHIFT, (c / columns) << CHUNK_SHIFT));
+		}
+		return result;
+	}
+	/**
+	 * Gives the hash of a chunk of a copy-on-write floorplan, computes it
+	 * if it is not cached.
+	 * @param c number of the chunk
+	 * @return hash of the chunk, same as {@link #computeAreaHash(int, int)} for its area
+	 */
+	private int getChunkHash(int c) {
+		if (0 == (chunkFlags[c] & HASHED)) {
+			chunkHashes[c] = Arrays.hashCode(chunks[c]);
+			chunkFlags[c] |= HASHED;
+		}
+		return chunkHashes[c];
+	}
+	/**
+	 * Computes the hash of a 64x64 area of cells the same way as for
+	 * a chunk, cells outside of the floorplan count as 0.
+	 * @param x0 coordinate of the top left cell of the area
+	 * @param y0 coordinate of the top left cell of the area
+	 * @return hash of the area
+	 */
+	private int computeAreaHash(int x0, int y0) {
+		int result = 1;
+		for (int y = y0; y < y0 + (1 << CHUNK_SHIFT); y++) {
+			for (int x = x0; x < x0 + (1 << CHUNK_SHIFT); x++) {
+				result = 31*result + ((x < width && y < height) ? (short)getValueOfCell(x, y) : 0);
+			}
+		}
+		return result;
 	}
 	/**
 	 * Get the value of a cell at the given position (x,y).
@@ -206,7 +493,30 @@ public class Floorplan {
 	 */
 	public int getValueOfCell( int x, int y )
 	{
-		return cells[x][y] ;
+		return cell(index(x, y)) ;
+	}
+	/**
+	 * Gives the sides of cell (x,y) that have no wallboard with a single read.
+	 * The result holds the bits CW_TOP, CW_BOT, CW_LEFT and CW_RIGHT for the
+	 * open sides, such that {@code (getOpenMask(x, y) & getWallBit(dir)) != 0}
+	 * is the same as {@code hasNoWall(x, y, dir)}. This is meant for loops over 
+	 * many cells that look at all neighbors of a cell.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return 4 bit mask of the sides without a wallboard
+	 */
+	public int getOpenMask(int x, int y) {
+		return ~cell(index(x, y)) & CW_ALL;
+	}
+	/**
+	 * Gives the wallboard bit for the given direction as used by {@link #getOpenMask(int, int)}.
+	 * Same as {@link #getCWConstantForDirection(CardinalDirection)} but 
+	 * public and without a switch statement.
+	 * @param dir gives the direction
+	 * @return one of CW_TOP, CW_BOT, CW_LEFT, CW_RIGHT
+	 */
+	public static int getWallBit(CardinalDirection dir) {
+		return WALL_BIT[dir.ordinal()];
 	}
 	
 	/**
@@ -230,6 +540,23 @@ public class Floorplan {
 		// return true if neighbor has not been visited before
 		return isFirstVisit(x+dx, y+dy);
 	}
+	/**
+	 * Same as {@link #canTearDown(Wallboard)} but for a wallboard given by 
+	 * its primitive components such that no wallboard object is needed.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param cd direction of the wallboard
+	 * precondition borders limit the outside of the maze area
+	 * precondition {@code 0 <= x < width, 0 <= y < height}
+	 * @return true if neighbor in the given direction is new and wallboard can be taken down, false otherwise
+	 */
+	public boolean canTearDown(int x, int y, CardinalDirection cd) {
+		int dx = cd.getDx();
+		int dy = cd.getDy();
+		if (hasBorder(x, y, dx, dy))
+			return false;
+		return isFirstVisit(x+dx, y+dy);
+	}
 	/**
 	 * Checks if the given wall board contributes to a border.
 	 * One can think of exterior walls of the maze and its 
@@ -424,6 +751,20 @@ public class Floorplan {
 	 * @param ryl 2nd corner, y coordinate
 	 */
 	public void markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl) {
+		markAreaAsRoom(rw, rh, rx, ry, rxl, ryl, new MazeRandom(SingleRandom.getRandom().nextInt()));
+	}
+	/**
+	 * Same as {@link #markAreaAsRoom(int, int, int, int, int, int)} with doors
+	 * picked by the given random number generator, e.g. the one of a maze builder.
+	 * @param rw room width
+	 * @param rh room height
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @param random picks the doors
+	 */
+	public void markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl, MazeRandom random) {
 		// Step 1: 
 		// clear all cells in area of room from all wallboards and borders
 		// mark all cells in area as being inside the room
@@ -446,7 +787,6 @@ public class Floorplan {
 		// so a maze generation algorithm can identify
 		// these wallboards and delete them to get into the room
 		int numBoards = (rw+rh)*2; // counter for the total number of wallboards
-		SingleRandom random = SingleRandom.getRandom() ;
 		// pick at most 5 wallboards
 		for (int ct = 0; ct != 5; ct++) { 
 			int door = random.nextIntWithinInterval(0, numBoards-1); // pick a random wallboard
@@ -604,8 +944,26 @@ public class Floorplan {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
 		int[] d = wallboard.getDirection().getDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		deleteWallboard(x, y, d[0], d[1]);
+	}
+	/**
+	 * Same as {@link #deleteWallboard(Wallboard)} but for a wallboard given by 
+	 * its primitive components such that no wallboard object is needed.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param cd direction of the wallboard
+	 */
+	public void deleteWallboard(int x, int y, CardinalDirection cd) {
+		deleteWallboard(x, y, cd.getDx(), cd.getDy());
+	}
+	/**
+	 * Delete both wallboards between to adjacent cells (x,y) and (x+dx,y+dy).
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param dx direction x, in { -1, 0, 1}
+	 * @param dy direction y, in { -1, 0, 1}
+	 */
+	private void deleteWallboard(int x, int y, int dx, int dy) {
 		// delete wallboard on (x,y)
 		setWallToZero(x, y, dx, dy);
 		// delete same wallboard but for adjacent cell
@@ -626,6 +984,19 @@ public class Floorplan {
      * @param map_unit gives the scaling factor to obtain the cell coordinates
      */
     public void addWall(Wall seg, int map_unit) {
+        addWall(seg.getStartPositionX(), seg.getStartPositionY(), seg.getExtensionX(), seg.getExtensionY(), map_unit);
+    }
+    /**
+     * Add wallboards in either north or west direction for the given wall,
+     * same as {@link #addWall(Wall, int)} for a wall that is given by its
+     * coordinates, e.g. a wall of a {@link FlatBSPTree}.
+     * @param startX x coordinate of the start of the wall
+     * @param startY y coordinate of the start of the wall
+     * @param extensionX direction and length of the wall in x coordinate
+     * @param extensionY direction and length of the wall in y coordinate
+     * @param map_unit gives the scaling factor to obtain the cell coordinates
+     */
+    public void addWall(int startX, int startY, int extensionX, int extensionY, int map_unit) {
         // moved method from FirstPersonDrawer here
         // Why: changes seencells by adding wallboards based on info in given seg
         // only piece of information used from FirstPersonDrawer is map_unit
@@ -639,14 +1010,14 @@ public class Floorplan {
         //final int sdy = seg.getExtensionY() / map_unit; // constant, only set once here
         // note: either sdx or sdy is 0
         // define constants to avoid method calls in following loop
-        final int sdsx = MazeBuilder.getSign(seg.getExtensionX()); // 0: vertical, -1,1: horizontal
-        final int sdsy = MazeBuilder.getSign(seg.getExtensionY()); // 0: horizontal, -1,1: vertical
+        final int sdsx = MazeBuilder.getSign(extensionX); // 0: vertical, -1,1: horizontal
+        final int sdsy = MazeBuilder.getSign(extensionY); // 0: horizontal, -1,1: vertical
         
         // Step 2: get initial position (sx,sy) right
-        int sx = seg.getStartPositionX() / map_unit;
+        int sx = startX / map_unit;
         if (sdsx < 0) // this direction and negative 
             sx--;
-        int sy = seg.getStartPositionY() / map_unit; 
+        int sy = startY / map_unit; 
         if (sdsy < 0) // this direction and negative
             sy--;
         
@@ -656,7 +1027,7 @@ public class Floorplan {
         //if (len != seg.length() / map_unit) {
         //    System.out.print("Error: seg length wrong: " + len + " vs " + seg.length());
         //}
-        final int len = seg.getLength() / map_unit;
+        final int len = Math.abs(extensionX + extensionY) / map_unit;
         
         // check conditions
         // warning: step 2 could range for sx, sy such that starting point may be at -1,
@@ -699,7 +1070,7 @@ public class Floorplan {
 	 * @return true if (x,y) position has wallboard in the given direction
 	 */
 	public boolean hasWall(int x, int y, CardinalDirection dir) {
-		return hasMaskedBitsTrue(x, y, getCWConstantForDirection(dir));
+		return hasMaskedBitsTrue(x, y, WALL_BIT[dir.ordinal()]);
 	}
 	/**
 	 * @return width
@@ -724,7 +1095,54 @@ public class Floorplan {
 	 * @return true if (x,y) position has no wallboard in the given direction
 	 */
 	public boolean hasNoWall(int x, int y, CardinalDirection dir) {
-		return !hasMaskedBitsTrue(x, y, getCWConstantForDirection(dir));
+		return hasMaskedBitsFalse(x, y, WALL_BIT[dir.ordinal()]);
+	}
+	/**
+	 * Copies the wallboards and visited flags of a smaller floorplan
+	 * into the rectangular area that starts at position (x,y).
+	 * Borders of this floorplan are kept as they are, borders of the 
+	 * given floorplan are not copied, so a wallboard on the boundary 
+	 * of the area is a regular wallboard in this floorplan.
+	 * Copying different floorplans into disjoint areas from 
+	 * different threads is safe.
+	 * @param tile provides the cells to copy, must fit into this floorplan at (x,y)
+	 * @param x coordinate of the top left cell of the area, {@code 0 <= x}
+	 * @param y coordinate of the top left cell of the area, {@code 0 <= y}
+	 */
+	void copyTile(Floorplan tile, int x, int y) {
+		assert x + tile.width <= width && y + tile.height <= height : "tile does not fit";
+		final int bits = CW_ALL | CW_VISITED;
+		for (int j = 0; j < tile.height; j++) {
+			for (int i = 0; i < tile.width; i++) {
+				final int to = index(x+i, y+j);
+				setCell(to, (cell(to) & ~bits) | (tile.cell(tile.index(i, j)) & bits));
+			}
+		}
+	}
+	/**
+	 * Computes a bit mask for row y that tells which cells of that row
+	 * have no wallboard in the given direction.
+	 * Bit {@code x%64} of {@code mask[x/64]} is set if cell (x,y)
+	 * has no wallboard in the given direction, all bits for {@code x >= width}
+	 * are zero. This provides the information of {@link #hasNoWall(int, int, CardinalDirection)}
+	 * for a whole row such that it can be processed 64 cells at a time.
+	 * @param y coordinate of the row, {@code 0 <= y < height}
+	 * @param dir gives the cardinal direction
+	 * @param mask array to store the result in, must have at least {@code (width+63)/64} elements
+	 */
+	public void getNoWallMask(int y, CardinalDirection dir, long[] mask) {
+		final int bit = WALL_BIT[dir.ordinal()];
+		final int words = (width+63) >>> 6;
+		for (int w = 0; w < words; w++) {
+			long value = 0;
+			final int limit = Math.min(64, width - (w << 6));
+			final int start = w << 6;
+			for (int i = 0; i < limit; i++) {
+				if ((cell(index(start + i, y)) & bit) == 0)
+					value |= 1L << i;
+			}
+			mask[w] = value;
+		}
 	}
 	/**
 	 * Gives the matching bit encoded value,
@@ -741,18 +1159,7 @@ public class Floorplan {
 		static final int CW_LEFT = 4; // 2^2
 		static final int CW_RIGHT = 8;// 2^3
 		 */
-		switch(dir) {
-		case North : 
-			return CW_TOP; // flipped: CW_TOP ;
-		case East : 
-			return CW_RIGHT ;
-		case South : 
-			return CW_BOT; // flipped CW_BOT ;
-		case West : 
-			return CW_LEFT ;
-		default:
-			throw new RuntimeException("Unsupported value in enum type") ;
-		}
+		return WALL_BIT[dir.ordinal()];
 	}
 	////////////////// iterator to access continuous sequences of wallboards //////////////////////////////////////////
 	public Iterator<int[]> iterator(int x, int y, CardinalDirection cd) {
@@ -919,7 +1326,8 @@ public class Floorplan {
 	 * @param cw_bit like CW_LEFT, CW_RIGHT, CW_TOP, CW_BOTTOM
 	 */
 	private void setBitToZero(int x, int y, int cw_bit) {
-		cells[x][y] &= ~cw_bit;
+		final int i = index(x, y);
+		setCell(i, cell(i) & ~cw_bit);
 	}
 	/**
 	 * Sets all wallboard bits to zero for a given cell
@@ -936,10 +1344,10 @@ public class Floorplan {
 	// better to directly change client classes
 	//
 	protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
-		return (cells[x][y] & bitmask) != 0;
+		return (cell(index(x, y)) & bitmask) != 0;
 	}
 	protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
-		return (cells[x][y] & bitmask) == 0;
+		return (cell(index(x, y)) & bitmask) == 0;
 	}
 
 	/**
@@ -960,9 +1368,9 @@ public class Floorplan {
 		}
 		return bit;
 		*/
-		// changed to reduce chances for inconsistent mappings
-		CardinalDirection dir = CardinalDirection.getDirection(dx, dy);
-		return getCWConstantForDirection(dir);
+		// table lookup, same mapping as getCWConstantForDirection(CardinalDirection.getDirection(dx, dy))
+		assert -1 <= dx && dx <= 1 && -1 <= dy && dy <= 1 && (dx == 0) != (dy == 0) : "not a direction: " + dx + ", " + dy;
+		return WALL_BIT_FOR_OFFSET[3*(dy+1) + dx+1];
 	}
 	/**
 	 * Sets bits to 1 for given bitmask
@@ -971,7 +1379,8 @@ public class Floorplan {
 	 * @param bitmask is the bitmask to use for adding 1's
 	 */
 	private void setBitToOne(int x, int y, int bitmask) {
-		cells[x][y] |= bitmask ;
+		final int i = index(x, y);
+		setCell(i, cell(i) | bitmask) ;
 	}
 
 	///////////////// code for debugging ///////////////////////////////////////
@@ -989,7 +1398,7 @@ public class Floorplan {
 		{
 			prefix = " i:" + i + " j:";
 			for (int j = 0 ; j < height ; j++)
-				s += prefix + j + "=" + cells[i][j] ;
+				s += prefix + j + "=" + getValueOfCell(i, j) ;
 			s += "\n" ;
 		}
 		return s ;
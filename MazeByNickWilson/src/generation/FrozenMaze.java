@@ -0,0 +1,226 @@
+package generation;
+
+/**
+ * An immutable view of a maze that many threads can read at the same time,
+ * see {@link Maze#freeze()}.
+ *
+ * When it is created, the wallboards and the distances of the maze are copied
+ * into flat arrays in row-major order, cell (x,y) is at index {@code y*width+x}.
+ * {@link #hasWall(int, int, CardinalDirection)}, {@link #isExitPosition(int, int)},
+ * {@link #isInRoom(int, int)}, {@link #getDistanceToExit(int, int)},
+ * {@link #getNeighborCloserToExit(int, int)} and {@link #isValidPosition(int, int)}
+ * read these arrays directly, without locks and without copying anything.
+ * All fields are final, so the view is safely published to other threads
+ * once the constructor is done, even without synchronization.
+ *
+ * Methods that give mutable objects give copies, a floorplan from
+ * {@link #getFloorplan()} is a copy-on-write snapshot, see {@link Floorplan#snapshot()},
+ * and {@link #getMazedists()} copies the distances. These are meant for code that
+ * needs the objects, readers that care about speed such as robots and their
+ * sensors should use the methods above.
+ * The BSP tree is shared and must not be changed.
+ * All methods that would change the maze throw an UnsupportedOperationException.
+ */
+final class FrozenMaze implements Maze {
+	// offsets of neighbors indexed by the ordinal of a cardinal direction
+	private static final CardinalDirection[] DIRECTIONS = CardinalDirection.values();
+	private static final int[] DX = new int[DIRECTIONS.length];
+	private static final int[] DY = new int[DIRECTIONS.length];
+	static {
+		for (CardinalDirection cd : DIRECTIONS) {
+			DX[cd.ordinal()] = cd.getDirection()[0];
+			DY[cd.ordinal()] = cd.getDirection()[1];
+		}
+	}
+
+	private final int width;
+	private final int height;
+	// marks cells in a room in the walls array, the visited bit of a floorplan is not needed here
+	private static final int IN_ROOM = Floorplan.CW_VISITED;
+
+	private final byte[] walls; // wallboard bits CW_TOP, CW_BOT, CW_LEFT, CW_RIGHT and IN_ROOM of each cell
+	private final int[] distances; // distance to the exit of each cell
+	private final Floorplan floorplan; // copy-on-write copy that is never changed, gives snapshots
+	private final BSPNode rootnode;
+	private final FlatBSPTree flatTree;
+	private final int startX;
+	private final int startY;
+
+	/**
+	 * Constructor that copies the given maze. The maze must not change
+	 * while it is copied, later changes do not show in this view.
+	 * @param maze fully operational maze
+	 */
+	FrozenMaze(Maze maze) {
+		width = maze.getWidth();
+		height = maze.getHeight();
+		final Floorplan source = maze.getFloorplan();
+		final Distance dists = maze.getMazedists();
+		walls = new byte[width*height];
+		distances = new int[width*height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				walls[y*width+x] = (byte)((source.getValueOfCell(x, y) & Floorplan.CW_ALL)
+						| (source.isInRoom(x, y) ? IN_ROOM : 0));
+				distances[y*width+x] = dists.getDistanceValue(x, y);
+			}
+		}
+		floorplan = source.snapshot();
+		rootnode = maze.getRootnode();
+		flatTree = maze.getFlatTree();
+		final int[] start = maze.getStartingPosition();
+		startX = start[0];
+		startY = start[1];
+	}
+	/**
+	 * Gives this view as it is already frozen.
+	 * @return this
+	 */
+	@Override
+	public Maze freeze() {
+		return this;
+	}
+	@Override
+	public int getWidth() {
+		return width;
+	}
+	@Override
+	public int getHeight() {
+		return height;
+	}
+	@Override
+	public boolean isValidPosition(int x, int y) {
+		return ((0 <= x && x < width) && (0 <= y && y < height));
+	}
+	@Override
+	public int getDistanceToExit(int x, int y) {
+		return distances[y*width+x];
+	}
+	@Override
+	public boolean hasWall(int x, int y, CardinalDirection dir) {
+		return (walls[y*width+x] & Floorplan.getWallBit(dir)) != 0;
+	}
+	/**
+	 * Gives a (x',y') neighbor for given (x,y) that is closer to exit
+	 * if it exists, same as {@link MazeContainer#getNeighborCloserToExit(int, int)}.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return new array with neighbor coordinates if neighbor exists, null otherwise
+	 */
+	@Override
+	public int[] getNeighborCloserToExit(int x, int y) {
+		assert isValidPosition(x,y) : "Invalid position";
+		final int index = y*width+x;
+		final int cell = walls[index];
+		if (isExitPosition(x, y, cell))
+			return null;
+		final int distance = distances[index];
+		int dnext = distance;
+		int next = -1;
+		for (int d = 0; d < DIRECTIONS.length; d++) {
+			if ((cell & Floorplan.getWallBit(DIRECTIONS[d])) != 0)
+				continue; // there is a wallboard in the way
+			final int neighbor = index + DY[d]*width + DX[d];
+			if (distances[neighbor] < dnext) {
+				next = neighbor;
+				dnext = distances[neighbor];
+			}
+		}
+		assert (distance > dnext) :
+			"cannot identify direction towards solution: stuck at: " + x + ", "+ y ;
+		return (next < 0) ? null : new int[] {next % width, next / width};
+	}
+	@Override
+	public boolean isExitPosition(int x, int y) {
+		return isExitPosition(x, y, walls[y*width+x]);
+	}
+	@Override
+	public boolean isInRoom(int x, int y) {
+		return (walls[y*width+x] & IN_ROOM) != 0;
+	}
+	/**
+	 * Tells if the cell is on the border and has no wallboard on its outer side,
+	 * same as {@link Floorplan#isExitPosition(int, int)}.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @param cell wallboard bits of the cell
+	 * @return true if (x,y) is the exit position
+	 */
+	private boolean isExitPosition(int x, int y, int cell) {
+		return (0 == x && 0 == (cell & Floorplan.CW_LEFT))
+				|| (width-1 == x && 0 == (cell & Floorplan.CW_RIGHT))
+				|| (0 == y && 0 == (cell & Floorplan.CW_TOP))
+				|| (height-1 == y && 0 == (cell & Floorplan.CW_BOT));
+	}
+	/**
+	 * Gives the starting position.
+	 * @return new array with the (x,y) coordinates
+	 */
+	@Override
+	public int[] getStartingPosition() {
+		return new int[] {startX, startY};
+	}
+	/**
+	 * Gives a snapshot of the floorplan that the caller may change.
+	 * @return copy-on-write copy of the floorplan
+	 */
+	@Override
+	public Floorplan getFloorplan() {
+		return floorplan.snapshot();
+	}
+	/**
+	 * Gives a copy of the distances that the caller may change.
+	 * @return the distances
+	 */
+	@Override
+	public Distance getMazedists() {
+		final int[][] dists = new int[width][height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				dists[x][y] = distances[y*width+x];
+			}
+		}
+		return new Distance(dists);
+	}
+	/**
+	 * Gives the root of the BSP tree, which is shared and must not be changed.
+	 * @return the rootnode
+	 */
+	@Override
+	public BSPNode getRootnode() {
+		return rootnode;
+	}
+	/**
+	 * Gives the BSP tree in flat form, which is shared as well.
+	 * It does not change, so games can read it at the same time.
+	 * @return the flat tree
+	 */
+	@Override
+	public FlatBSPTree getFlatTree() {
+		return flatTree;
+	}
+	@Override
+	public void setWidth(int width) {
+		throw new UnsupportedOperationException("FrozenMaze: maze can not be changed");
+	}
+	@Override
+	public void setHeight(int height) {
+		throw new UnsupportedOperationException("FrozenMaze: maze can not be changed");
+	}
+	@Override
+	public void setFloorplan(Floorplan floorplan) {
+		throw new UnsupportedOperationException("FrozenMaze: maze can not be changed");
+	}
+	@Override
+	public void setMazedists(Distance mazedists) {
+		throw new UnsupportedOperationException("FrozenMaze: maze can not be changed");
+	}
+	@Override
+	public void setRootnode(BSPNode rootnode) {
+		throw new UnsupportedOperationException("FrozenMaze: maze can not be changed");
+	}
+	@Override
+	public void setStartingPosition(int x, int y) {
+		throw new UnsupportedOperationException("FrozenMaze: maze can not be changed");
+	}
+}
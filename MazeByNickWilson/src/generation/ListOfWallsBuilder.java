@@ -1,7 +1,6 @@
 package generation;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import gui.Constants;
@@ -42,7 +41,9 @@ public class ListOfWallsBuilder {
 		this.colchange = colchange;
 	}
 	/**
-	 * Identifies continuous sequences of wallboards on the maze and fills the wall list 
+	 * Identifies continuous sequences of wallboards on the maze and fills the wall list.
+	 * Runs of wallboards come from a {@link WallRunCursor}, so apart from 
+	 * the walls themselves nothing is allocated per run.
 	 * @return vector of walls
 	 */
 	public List<Wall> generateWalls() {
@@ -57,70 +58,54 @@ public class ListOfWallsBuilder {
      * Identify continuous sequences of wallboards in a vertical direction
      * @param sl the list of walls that carries the result of the computation
      */
-	   private void generateWallsForVerticalWallboards(ArrayList<Wall> sl) {
-	        int x;
-	        int y;
-	        Iterator<int[]> it;
-	        int[] cur;
-	        // we search for vertical wallboards, so for each row
-	        for (x = 0; x < width; x++) {
-	            it = floorplan.iterator(x, 0, CardinalDirection.West);
-	            while(it.hasNext()) {
-	                cur = it.next();
-	                int starty = cur[0];
-	                y = cur[1];
-	                // create wall with (x,starty) being the actual start position of the wall, 
-                    // y-starty being the positive length
-                    sl.add(new Wall(x*Constants.MAP_UNIT, starty*Constants.MAP_UNIT,
-                            0, (y-starty)*Constants.MAP_UNIT, dists.getDistanceValue(x, starty), colchange));
-	            }
-	            
-	            it = floorplan.iterator(x, 0, CardinalDirection.East);
-                while(it.hasNext()) {
-                    cur = it.next();
-                    int starty = cur[0];
-                    y = cur[1];
-                    // create wall with (x+1,y) being being one off in both directions from the last cell in this wall, starty-y being the negative length
-                    // since we are looking at right wallboards, one off in the right direction (x+1) are then cells that have this wall on its left hand side
-                    // for some reason the end position is used as a starting position and therefore the length & direction is inverse 
-                    sl.add(new Wall((x+1)*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
-                            0, (starty-y)*Constants.MAP_UNIT, dists.getDistanceValue(x, starty), colchange));
-                }
-	        }
-	    }
+	private void generateWallsForVerticalWallboards(ArrayList<Wall> sl) {
+		// a single cursor serves all columns, runs are (starty,y) pairs of y coordinates
+		final WallRunCursor runs = new WallRunCursor(floorplan);
+		for (int x = 0; x < width; x++) {
+			runs.reset(x, 0, CardinalDirection.West);
+			while (runs.next()) {
+				final int starty = runs.getStart();
+				final int y = runs.getEnd();
+				// create wall with (x,starty) being the actual start position of the wall, 
+				// y-starty being the positive length
+				sl.add(new Wall(x*Constants.MAP_UNIT, starty*Constants.MAP_UNIT,
+						0, (y-starty)*Constants.MAP_UNIT, dists.getDistanceValue(x, starty), colchange));
+			}
+			runs.reset(x, 0, CardinalDirection.East);
+			while (runs.next()) {
+				final int starty = runs.getStart();
+				final int y = runs.getEnd();
+				// create wall with (x+1,y) being one off in both directions from the last cell in this wall, 
+				// starty-y being the negative length, same as in the iterator version below
+				sl.add(new Wall((x+1)*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
+						0, (starty-y)*Constants.MAP_UNIT, dists.getDistanceValue(x, starty), colchange));
+			}
+		}
+	}
 	/**
      * Identify continuous sequences of wallboards in a horizontal direction
      * @param sl  the list of walls that carries the result of the computation
      */
-    private void generateWallsForHorizontalWallboards(ArrayList<Wall> sl) {
-        int x;
-        int y;
-        Iterator<int[]> it;
-        int[] cur;
-        // we search for horizontal wallboards, so for each column
-        for (y = 0; y < height; y++) {
-            // first round through rows
-            it = floorplan.iterator(0,y, CardinalDirection.North);
-            while(it.hasNext()) {
-                cur = it.next();
-                int startx = cur[0];
-                x = cur[1];
-                // create wall with (x,y) being the end positions, startx-x being the negative length
-                // note the (x,y) is not part of the wall
-                sl.add(new Wall(x*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
-                        (startx-x)*Constants.MAP_UNIT, 0, dists.getDistanceValue(startx, y), colchange));
-            }
-            // second round through rows, same for bottom wallboards
-            it = floorplan.iterator(0,y, CardinalDirection.South);
-            while(it.hasNext()) {
-                cur = it.next();
-                int startx = cur[0];
-                x = cur[1];
-                // create wall with (startx,y+1) being one below the start position, x-startx being the positive length
-                // so this may represent a wallboard at the bottom of the wall as the top wallboard one below
-                sl.add(new Wall(startx*Constants.MAP_UNIT, (y+1)*Constants.MAP_UNIT,
-                        (x-startx)*Constants.MAP_UNIT, 0, dists.getDistanceValue(startx, y), colchange));
-            }
-        }
-    }
+	private void generateWallsForHorizontalWallboards(ArrayList<Wall> sl) {
+		// a single cursor serves all rows, runs are (startx,x) pairs of x coordinates
+		final WallRunCursor runs = new WallRunCursor(floorplan);
+		for (int y = 0; y < height; y++) {
+			runs.reset(0, y, CardinalDirection.North);
+			while (runs.next()) {
+				final int startx = runs.getStart();
+				final int x = runs.getEnd();
+				// create wall with (x,y) being the end positions, startx-x being the negative length
+				sl.add(new Wall(x*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
+						(startx-x)*Constants.MAP_UNIT, 0, dists.getDistanceValue(startx, y), colchange));
+			}
+			runs.reset(0, y, CardinalDirection.South);
+			while (runs.next()) {
+				final int startx = runs.getStart();
+				final int x = runs.getEnd();
+				// create wall with (startx,y+1) being one below the start position, x-startx being the positive length
+				sl.add(new Wall(startx*Constants.MAP_UNIT, (y+1)*Constants.MAP_UNIT,
+						(x-startx)*Constants.MAP_UNIT, 0, dists.getDistanceValue(startx, y), colchange));
+			}
+		}
+	}
 }
@@ -0,0 +1,172 @@
+package generation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fixed size array of 16 bit or 32 bit values outside of the Java heap.
+ * The values live in a file that is mapped into memory, so the operating system
+ * pages them in and out as needed and the garbage collector never scans them.
+ * This is the backing store for floorplans and distances of mazes that
+ * do not fit into the heap, see {@link Floorplan#Floorplan(int, int, Path)}
+ * and {@link Distance#Distance(int, int, Path)}.
+ *
+ * A single MappedByteBuffer covers at most 2 GB, so the file is mapped in
+ * chunks of {@code 1 << CHUNK_SHIFT} bytes. Values never cross the boundary of
+ * a chunk as the chunk size is a multiple of the size of a value.
+ * A new file is filled with zeros.
+ *
+ * The mapping is released with {@link #close()}, which also deletes the file
+ * if the store owns it. A store must not be used after it is closed.
+ */
+final class MappedStore implements Closeable {
+	static final int CHUNK_SHIFT = 30; // chunks of 1 GB
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+	private final Path file; // file that holds the values
+	private final boolean owned; // true if the file is deleted on close
+	private MappedByteBuffer[] chunks; // null after close
+
+	/**
+	 * Maps a file of the given size, the file is created if it does not exist
+	 * and grows to the given size if it is shorter.
+	 * @param file holds the values
+	 * @param bytes size of the mapped area, {@code 0 < bytes}
+	 * @param owned true if the file is deleted on close, e.g. for a temporary file
+	 * @throws IOException if the file can not be opened or mapped
+	 */
+	MappedStore(Path file, long bytes, boolean owned) throws IOException {
+		this.file = file;
+		this.owned = owned;
+		final int count = (int)((bytes + CHUNK_MASK) >>> CHUNK_SHIFT);
+		chunks = new MappedByteBuffer[count];
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			for (int i = 0; i < count; i++) {
+				final long position = (long)i << CHUNK_SHIFT;
+				chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(bytes - position, 1L << CHUNK_SHIFT));
+				chunks[i].order(ByteOrder.nativeOrder());
+			}
+		}
+		// the mapping stays valid after the channel is closed
+	}
+	/**
+	 * Creates a store on a new temporary file in the given directory
+	 * that is deleted when the store is closed.
+	 * @param directory for the file, must exist
+	 * @param prefix for the name of the file
+	 * @param bytes size of the mapped area, {@code 0 < bytes}
+	 * @return the store
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	static MappedStore createTemporary(Path directory, String prefix, long bytes) throws IOException {
+		return new MappedStore(Files.createTempFile(directory, prefix, ".bin"), bytes, true);
+	}
+	/**
+	 * Gets the 16 bit value at the given index.
+	 * @param index of the value, {@code 0 <= index}, within the size of the store
+	 * @return the value
+	 */
+	short getShort(long index) {
+		final long offset = index << 1;
+		return chunks[(int)(offset >>> CHUNK_SHIFT)].getShort((int)(offset & CHUNK_MASK));
+	}
+	/**
+	 * Sets the 16 bit value at the given index.
+	 * @param index of the value, {@code 0 <= index}, within the size of the store
+	 * @param value the new value
+	 */
+	void putShort(long index, short value) {
+		final long offset = index << 1;
+		chunks[(int)(offset >>> CHUNK_SHIFT)].putShort((int)(offset & CHUNK_MASK), value);
+	}
+	/**
+	 * Gets the 32 bit value at the given index.
+	 * @param index of the value, {@code 0 <= index}, within the size of the store
+	 * @return the value
+	 */
+	int getInt(long index) {
+		final long offset = index << 2;
+		return chunks[(int)(offset >>> CHUNK_SHIFT)].getInt((int)(offset & CHUNK_MASK));
+	}
+	/**
+	 * Sets the 32 bit value at the given index.
+	 * @param index of the value, {@code 0 <= index}, within the size of the store
+	 * @param value the new value
+	 */
+	void putInt(long index, int value) {
+		final long offset = index << 2;
+		chunks[(int)(offset >>> CHUNK_SHIFT)].putInt((int)(offset & CHUNK_MASK), value);
+	}
+	/**
+	 * Writes changed values back to the file.
+	 * Only needed if the file outlives the store.
+	 */
+	void force() {
+		for (MappedByteBuffer chunk : chunks) {
+			chunk.force();
+		}
+	}
+	/**
+	 * Releases the mapping and deletes the file if the store owns it.
+	 * Calling close again has no effect.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (null == chunks)
+			return;
+		final MappedByteBuffer[] released = chunks;
+		chunks = null;
+		for (MappedByteBuffer chunk : released) {
+			unmap(chunk);
+		}
+		if (owned)
+			Files.deleteIfExists(file);
+	}
+
+	/////////////////// explicit unmapping ////////////////////
+	// Java has no public API to unmap a buffer before it is garbage collected.
+	// sun.misc.Unsafe.invokeCleaner does it since Java 9, it is looked up
+	// reflectively such that the class still works if it is not accessible.
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			final Class<?> c = Class.forName("sun.misc.Unsafe");
+			final Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+			invokeCleaner = c.getMethod("invokeCleaner", java.nio.ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// no explicit unmapping, the garbage collector releases the mapping
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+	/**
+	 * Unmaps the buffer right away if possible, otherwise leaves
+	 * it to the garbage collector.
+	 * @param buffer must not be used afterwards
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		if (null == INVOKE_CLEANER)
+			return;
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// leave it to the garbage collector
+		}
+	}
+}
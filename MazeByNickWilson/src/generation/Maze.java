@@ -78,6 +78,14 @@ public interface Maze {
 	 * @param rootnode the rootnode to set
 	 */
 	void setRootnode(BSPNode rootnode);
+
+	/**
+	 * Gives the tree of nodes for segments of wallboards in a flat form
+	 * that is faster to traverse, e.g. for drawing the visible part.
+	 * It has the same content as {@link #getRootnode()}.
+	 * @return the flat tree
+	 */
+	FlatBSPTree getFlatTree();
 	/**
 	 * Tells if (x,y) coordinate is within range.
 	 * @param x is on the horizontal axis
@@ -103,6 +111,22 @@ public interface Maze {
 	 * @return true if (x,y) is valid and there is a wallboard in the given direction, false otherwise
 	 */
 	public boolean hasWall(int x, int y, CardinalDirection dir) ;
+	/**
+	 * Tells if the given position is the exit position, same as
+	 * {@link Floorplan#isExitPosition(int, int)} but without access to the floorplan.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return true if position is on the border and there is no wallboard to the outside, false otherwise
+	 */
+	public boolean isExitPosition(int x, int y);
+	/**
+	 * Tells if the given position is inside a room, same as
+	 * {@link Floorplan#isInRoom(int, int)} but without access to the floorplan.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return true if (x,y) position resides in a room, false otherwise
+	 */
+	public boolean isInRoom(int x, int y);
 	/**
 	 * Provides coordinates of a position adjacent to the given (x,y)
 	 * position that has a distance to the exit that is less than
@@ -131,4 +155,13 @@ public interface Maze {
 	 * @param y is on the vertical axis, {@code 0 <= y < height}
 	 */
 	public void setStartingPosition(int x, int y);
+	/**
+	 * Gives an immutable view of this maze that many threads can read
+	 * at the same time without synchronization, e.g. for robots that
+	 * explore the same maze in parallel. 
+	 * Later changes to this maze do not show in the view.
+	 * Methods that would change the view throw an UnsupportedOperationException.
+	 * @return frozen view of the maze
+	 */
+	public Maze freeze();
 }
@@ -1,5 +1,9 @@
 package generation;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
 import gui.Constants;
 
 
@@ -16,7 +20,7 @@ import gui.Constants;
 public class MazeBuilder implements Runnable {
 	// Given input information: 
 	protected int width, height ; 	// width and height of maze, 
-	private int rooms; 		// requested number of rooms in maze, a room is an area with no walls and larger than a single cell
+	protected int rooms; 	// requested number of rooms in maze, a room is an area with no walls and larger than a single cell
 	private int expectedPartiters; 	// user given limit for partiters
 	
 	// Produced output information to create the new maze
@@ -31,11 +35,11 @@ public class MazeBuilder implements Runnable {
 	// the distance to exit for a cell at position (i,j) in the floor plan.
 
 	// class internal local variables
-	protected SingleRandom random ; // random number stream, used to make randomized decisions, e.g for direction to go
+	protected MazeRandom random ; // random number stream of the order, used to make randomized decisions, e.g for direction to go
 	Order order; // describes what is wanted, e.g. a perfect maze or not
+	private Path storageDirectory; // holds memory mapped files for floorplan and dists, null to keep them on the heap
 	
 	// constants
-	static final long SLEEP_INTERVAL = 100 ; //constant used for brief breaks to recognize interrupted signal, unit is millisecond
 	static final int MAX_TRIES = 250 ; // room generation: max number of tries to find a random location for a room
 	static final int MIN_ROOM_DIMENSION = 3; // room generation: min dimension
 	static final int MAX_ROOM_DIMENSION = 8; // room generation: max dimension
@@ -45,6 +49,24 @@ public class MazeBuilder implements Runnable {
 	 */
 	public MazeBuilder(){
 	}
+	/**
+	 * Makes the builder keep the floorplan and the distances of subsequent orders 
+	 * outside of the heap in memory mapped files in the given directory,
+	 * see {@link Floorplan#Floorplan(int, int, Path)}. This is meant for mazes
+	 * that are too large for the heap. The delivered maze owns the files,
+	 * they are removed with {@link MazeContainer#close()}.
+	 * @param directory for the files, must exist, null to keep everything on the heap
+	 */
+	public void setStorageDirectory(Path directory) {
+		storageDirectory = directory;
+	}
+	/**
+	 * Gives the directory for the memory mapped files of subsequent orders.
+	 * @return the directory, null if everything is kept on the heap
+	 */
+	public Path getStorageDirectory() {
+		return storageDirectory;
+	}
 
 	/**
 	 * Sets internal fields according to given order
@@ -52,9 +74,8 @@ public class MazeBuilder implements Runnable {
 	 */
 	public void buildOrder(Order order) {
 		this.order = order;
-		// configure and obtain the random number generator
-		SingleRandom.setSeed(order.getSeed());
-		random = SingleRandom.getRandom();
+		// obtain a random number generator of its own for this order
+		random = order.createRandom();
 		// derive parameters 
 		int skill = order.getSkillLevel() ;
 		width = Constants.SKILL_X[skill];
@@ -64,8 +85,18 @@ public class MazeBuilder implements Runnable {
 		rooms = order.isPerfect() ? 0 : Constants.SKILL_ROOMS[skill];
 		expectedPartiters = Constants.SKILL_PARTCT[skill];
 		// instantiate data structures
-		floorplan = new Floorplan(width,height) ;
-		dists = new Distance(width,height) ;
+		if (null == storageDirectory) {
+			floorplan = new Floorplan(width,height) ;
+			dists = new Distance(width,height) ;
+			return;
+		}
+		try {
+			floorplan = new Floorplan(width, height, storageDirectory) ;
+			dists = new Distance(width, height, storageDirectory) ;
+		} catch (IOException e) {
+			releaseStorage();
+			throw new UncheckedIOException("MazeBuilder.buildOrder: can not map files in " + storageDirectory, e);
+		}
 	}
 	/**
 	 * Main method to run construction of a new maze in a thread of its own.
@@ -80,12 +111,12 @@ public class MazeBuilder implements Runnable {
 			if (rooms > 0)
 				generateRooms();
 			
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			ProgressChannel.checkCancelled() ; // test if thread has been interrupted, i.e. notified to stop
 
 			// put pathways into the maze, determine its starting and end position and calculate distances
 			generate();
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			ProgressChannel.checkCancelled() ; // test if thread has been interrupted, i.e. notified to stop
 
 			final int colchange = random.nextIntWithinInterval(0, 255); // used in the constructor for Segments  class Seg
 			final BSPBuilder b = new BSPBuilder(order, dists, floorplan, width, height, colchange, expectedPartiters) ;
@@ -93,7 +124,7 @@ public class MazeBuilder implements Runnable {
 			// it also internally checks for cancel requests
 			// and throws an interrupted exception if that happens
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			ProgressChannel.checkCancelled() ; // test if thread has been interrupted, i.e. notified to stop
 
 			// communicate results back to Controller
 			order.updateProgress(100); // Order interface promises to communicate 100% upon delivery
@@ -107,11 +138,23 @@ public class MazeBuilder implements Runnable {
 			// exception mechanism is basically used to exit method in a controlled way
 			// 
 			dbg("Catching signal to stop") ;
+			// the maze is not delivered, so nobody else will release its files
+			releaseStorage();
 			// reset order and other fields for safe repeated operation and garbage collection
 			reset();
 		}
 	}
 
+	/**
+	 * Releases memory mapped files of the floorplan and dists
+	 * if they are outside of the heap.
+	 */
+	private void releaseStorage() {
+		if (null != floorplan)
+			floorplan.close();
+		if (null != dists)
+			dists.close();
+	}
 	/**
 	 * Reset all fields to initial values
 	 */
@@ -182,7 +225,7 @@ public class MazeBuilder implements Runnable {
 			return false ;
 		// since the area is available, mark it for this room and remove all wallboards
 		// from this on it is clear that we can place the room on the maze
-		floorplan.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl); 
+		floorplan.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl, random); 
 		return true;
 	}
 
@@ -209,57 +252,138 @@ public class MazeBuilder implements Runnable {
 		floorplan.setExitPosition(remote[0], remote[1]);
 	}
 	/**
-	 * This method generates pathways into the maze.
-	 * Comments have been removed to make students 
-	 * recognize the difference between readable and unreadable code
-	 * and what kind of comments are needed to understand code.
-	 * A previous version is kept below and commented out which is 
-	 * even worse than this one.
+	 * The four directions in the order of their ordinal values.
+	 */
+	private static final CardinalDirection[] DIRECTIONS = CardinalDirection.values();
+	/**
+	 * Wallboard bits in Floorplan for the directions in {@link #DIRECTIONS}.
+	 */
+	private static final int[] WALL_BITS = {Floorplan.CW_TOP, Floorplan.CW_RIGHT, Floorplan.CW_BOT, Floorplan.CW_LEFT};
+	
+	/**
+	 * This method generates pathways into the maze with a randomized depth first search.
+	 * Starting at a random cell in the top row, it repeatedly tears down a wallboard 
+	 * to a new neighbor and moves there. Neighbors are tried clockwise, starting
+	 * from a random direction after a move forward and from the direction after
+	 * the one that led into the cell after a move back. If there is no new neighbor,
+	 * it backtracks to the cell it came from. It stops when it is back at the start. 
+	 * 
+	 * The way back is stored as one byte per cell, the ordinal of the direction
+	 * that led into the cell plus one, 0 for the start and for new cells, 
+	 * which also tells which cells have been visited. 
+	 * Directions are tried in the same order and random values are drawn in the same
+	 * order as in the previous implementation with a matrix of directions, so a seed
+	 * gives the same maze as before, but this needs a fraction of the memory and does not 
+	 * allocate objects per step.
 	 */
 	protected void generatePathways() {
-		int x = random.nextIntWithinInterval(0, width-1);
-		int y = 0; 
-		final int firstx = x; 
-		final int firsty = y;
-		
-		CardinalDirection[][] origcds = new CardinalDirection[width][height]; 
-		CardinalDirection cd = CardinalDirection.East;
-		CardinalDirection origcd = cd;
-		
-		floorplan.setCellAsVisited(x, y); 
-		Wallboard wallboard = new Wallboard(x, y, cd);
-		while (true) { 
-			wallboard.setLocationDirection(x, y, cd);
-			if (!floorplan.canTearDown(wallboard)) {
-				cd = cd.rotateClockwise();
-				if (origcd == cd) {				
-					if (x == firstx && y == firsty)
-						break; 			
-					int[] dxy = origcds[x][y].getDirection();
-					x -= dxy[0];
-					y -= dxy[1];
-					if (null == origcds[x][y]) {
-						// Happens at starting position
-						assert (x == firstx && y == firsty) : "catching null elsewhere than starting position" ;
-						cd = cd.randomDirection() ;
-					}
-					else
-						cd = origcds[x][y] ;
-					cd = cd.rotateClockwise();
-					origcd = cd;
-				}
-			} else {
-				floorplan.deleteWallboard(wallboard);
-				int[] dxy = cd.getDirection();
-				x += dxy[0];
-				y += dxy[1];
+		// direction that led into a cell, ordinal+1, 0 for the start and unvisited cells
+		final byte[] from = new byte[width*height];
+		final int firstx = random.nextIntWithinInterval(0, width-1);
+		final int firsty = 0;
+		int x = firstx;
+		int y = firsty;
+		// ordinal of the direction to try next and of the first one tried at this cell
+		int d = CardinalDirection.East.ordinal();
+		int first = d;
+		floorplan.setCellAsVisited(x, y);
+		// bits of the current cell, read once per cell
+		int value = floorplan.getValueOfCell(x, y);
+		while (true) {
+			// same criterion as floorplan.canTearDown: no border and the neighbor is new,
+			// borders include the outside of the maze, so the neighbor is in range
+			final CardinalDirection cd = DIRECTIONS[d];
+			final int nx = x + cd.getDx();
+			final int ny = y + cd.getDy();
+			if ((value & (WALL_BITS[d] << Floorplan.CW_BOUND_SHIFT)) == 0
+					&& from[nx*height + ny] == 0 && (nx != firstx || ny != firsty)) {
+				// go forward
+				floorplan.deleteWallboard(x, y, cd);
+				x = nx;
+				y = ny;
 				floorplan.setCellAsVisited(x, y);
-				origcds[x][y] = cd;
-				cd = cd.randomDirection();
-				origcd = cd;
+				from[x*height + y] = (byte)(d + 1);
+				value = floorplan.getValueOfCell(x, y);
+				d = random.nextIntWithinInterval(0, DIRECTIONS.length-1);
+				first = d;
+				continue;
+			}
+			d = (d + 1) % DIRECTIONS.length; // rotate clockwise
+			if (d != first)
+				continue;
+			// all directions tried, backtrack, done when back at the start
+			if (x == firstx && y == firsty)
+				break;
+			final CardinalDirection back = DIRECTIONS[from[x*height + y] - 1];
+			x -= back.getDx();
+			y -= back.getDy();
+			value = floorplan.getValueOfCell(x, y);
+			// the start has no direction that led into it, pick one at random
+			d = (from[x*height + y] == 0) ? random.nextIntWithinInterval(0, DIRECTIONS.length-1) : from[x*height + y] - 1;
+			d = (d + 1) % DIRECTIONS.length;
+			first = d;
+		}
+	}
+	/**
+	 * Connects areas that ended up separated because borders of rooms
+	 * were in the way of a builder that does not grow its pathways
+	 * from cell to cell, e.g. Eller's algorithm.
+	 * Scans all cells once and removes a wallboard between any two
+	 * adjacent cells of different areas unless it is a border.
+	 */
+	protected void connectSeparateAreas() {
+		// union-find over all cells, cell (x,y) has index x*height+y
+		final int[] area = new int[width*height];
+		for (int i = 0; i < area.length; i++) {
+			area[i] = i;
+		}
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				final int open = floorplan.getOpenMask(x, y);
+				if (x+1 < width && (open & Floorplan.CW_RIGHT) != 0)
+					unionCells(area, x*height+y, (x+1)*height+y);
+				if (y+1 < height && (open & Floorplan.CW_BOT) != 0)
+					unionCells(area, x*height+y, x*height+y+1);
+			}
+		}
+		final Wallboard wb = new Wallboard(0, 0, CardinalDirection.East);
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				final int value = floorplan.getValueOfCell(x, y);
+				if (x+1 < width && (value & (Floorplan.CW_RIGHT << Floorplan.CW_BOUND_SHIFT)) == 0
+						&& unionCells(area, x*height+y, (x+1)*height+y)) {
+					wb.setLocationDirection(x, y, CardinalDirection.East);
+					floorplan.deleteWallboard(wb);
+				}
+				if (y+1 < height && (value & (Floorplan.CW_BOT << Floorplan.CW_BOUND_SHIFT)) == 0
+						&& unionCells(area, x*height+y, x*height+y+1)) {
+					wb.setLocationDirection(x, y, CardinalDirection.South);
+					floorplan.deleteWallboard(wb);
+				}
 			}
 		}
 	}
+	/**
+	 * Merges the areas of two cells.
+	 * @param area union-find array over cell indices
+	 * @param a index of the first cell
+	 * @param b index of the second cell
+	 * @return true if the cells were in different areas before, false otherwise
+	 */
+	private static boolean unionCells(int[] area, int a, int b) {
+		while (area[a] != a) {
+			area[a] = area[area[a]];
+			a = area[a];
+		}
+		while (area[b] != b) {
+			area[b] = area[area[b]];
+			b = area[b];
+		}
+		if (a == b)
+			return false;
+		area[b] = a;
+		return true;
+	}
 	/* original, kept  for discussion in class !!!!
 	protected void generatePathways() {
 		int[][] origdirs = new int[width][height] ; 
@@ -0,0 +1,298 @@
+package generation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Generates pathways as a minimum spanning tree under random edge weights
+ * with Boruvka's algorithm.
+ * The cells are the nodes of the graph, an edge connects adjacent cells that
+ * are separated by a wallboard that is not a border. Edges are encoded as in
+ * MazeBuilderKruskal, {@code 2*(x*height+y)} for the edge east of cell (x,y)
+ * and {@code 2*(x*height+y)+1} for the edge south of it.
+ *
+ * The weight of an edge is a hash of the edge and a value drawn from the
+ * random number generator of the order, see {@link #edgeKey(int, int)}.
+ * Weights are unique, so the minimum spanning tree is unique and the maze
+ * only depends on the seed, not on the number of threads.
+ * Kruskal's algorithm on a random permutation of the edges computes a minimum
+ * spanning tree for random weights as well, so both builders produce mazes
+ * with the same statistics.
+ *
+ * Each round of Boruvka's algorithm selects the cheapest edge that leaves each
+ * component and merges the components along the selected edges. Both steps
+ * work on ranges of columns in parallel: the cheapest edge of a component is
+ * kept in an AtomicLongArray and updated with compare and set, components are
+ * merged in a union-find over an AtomicIntegerArray that links roots with
+ * compare and set. The number of components at least halves in each round.
+ * Wallboards of the selected edges are deleted by a single thread as
+ * neighboring cells share wallboards.
+ */
+public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
+	/**
+	 * Maximum number of columns that a task processes without forking.
+	 */
+	static final int PARALLEL_COLUMNS = 8;
+	private static final long NONE = Long.MAX_VALUE; // key for a component without an outgoing edge
+
+	// phases of a round that are executed by a Sweep task
+	private static final int JOIN_OPEN = 0; // merges cells that are not separated by a wallboard
+	private static final int LABEL = 1; // records the root of each cell
+	private static final int SELECT = 2; // finds the cheapest edge leaving each component
+	private static final int MERGE = 3; // merges components along their cheapest edges
+
+	private final ForkJoinPool pool; // executes the sweeps in parallel
+	private int salt; // drawn from the random number generator, makes edge weights depend on the seed
+	// cell (x,y) has index x*height+y in the following arrays
+	private AtomicIntegerArray parent; // union-find over cells
+	private int[] component; // root of each cell at the start of a round
+	private AtomicLongArray cheapest; // key of the cheapest edge leaving a component, indexed by its root
+	private int[] accepted; // edges that joined two components in the current round
+	private AtomicInteger acceptedCount;
+
+	/**
+	 * Constructor for a builder that works in the common fork join pool.
+	 * Prints the string "MazeBuilderBoruvka uses Boruvka's algorithm to generate maze."
+	 */
+	public MazeBuilderBoruvka() {
+		this(ForkJoinPool.commonPool());
+	}
+	/**
+	 * Constructor
+	 * @param pool executes the rounds in parallel
+	 */
+	public MazeBuilderBoruvka(ForkJoinPool pool) {
+		super();
+		this.pool = pool;
+		System.out.println("MazeBuilderBoruvka uses Boruvka's algorithm to generate maze.");
+	}
+
+	/**
+	 * Generates pathways with Boruvka's algorithm.
+	 * Cells within a room are not separated by wallboards and
+	 * form a single component from the start.
+	 * Rounds continue until there is no edge that leaves a component.
+	 */
+	@Override
+	protected void generatePathways() {
+		salt = random.nextIntWithinInterval(0, Integer.MAX_VALUE-1);
+		parent = new AtomicIntegerArray(width*height);
+		for (int i = 0; i < width*height; i++) {
+			parent.set(i, i);
+		}
+		component = new int[width*height];
+		cheapest = new AtomicLongArray(width*height);
+		accepted = new int[width*height];
+		acceptedCount = new AtomicInteger();
+		if (rooms > 0)
+			pool.invoke(new Sweep(JOIN_OPEN, 0, width));
+		while (true) {
+			pool.invoke(new Sweep(LABEL, 0, width));
+			pool.invoke(new Sweep(SELECT, 0, width));
+			acceptedCount.set(0);
+			pool.invoke(new Sweep(MERGE, 0, width));
+			final int n = acceptedCount.get();
+			if (n == 0)
+				break;
+			for (int i = 0; i < n; i++) {
+				final int cell = accepted[i] >>> 1;
+				final int x = cell / height;
+				final int y = cell - x*height;
+				floorplan.deleteWallboard(x, y, (accepted[i] & 1) == 1 ? CardinalDirection.South : CardinalDirection.East);
+			}
+		}
+		parent = null;
+		component = null;
+		cheapest = null;
+		accepted = null;
+	}
+	/**
+	 * Gives the key of an edge that orders edges by a random weight.
+	 * The upper half holds a hash of salt and edge, the lower half
+	 * holds the edge itself such that keys are unique.
+	 * @param salt value drawn from the random number generator of the order
+	 * @param edge encoded edge
+	 * @return key of the edge, {@code key < NONE}
+	 */
+	static long edgeKey(int salt, int edge) {
+		return ((long)(SingleRandom.hash(salt, edge) >>> 1) << 32) | edge;
+	}
+	/**
+	 * Finds the root of the set of a cell and halves the path on the way.
+	 * Other threads may link roots at the same time, the result was
+	 * a root at some point during the call.
+	 * @param cell index of the cell
+	 * @return root of the set that contains the cell
+	 */
+	private int find(int cell) {
+		int p;
+		while ((p = parent.get(cell)) != cell) {
+			final int grandparent = parent.get(p);
+			if (grandparent != p)
+				parent.compareAndSet(cell, p, grandparent);
+			cell = grandparent;
+		}
+		return cell;
+	}
+	/**
+	 * Merges the sets of two cells, the root with the smaller index
+	 * goes below the other one such that links can not form a cycle.
+	 * @param a first cell
+	 * @param b second cell
+	 * @return true if the cells were in different sets, false otherwise
+	 */
+	private boolean union(int a, int b) {
+		while (true) {
+			a = find(a);
+			b = find(b);
+			if (a == b)
+				return false;
+			if (a > b) {
+				final int tmp = a;
+				a = b;
+				b = tmp;
+			}
+			if (parent.compareAndSet(a, a, b))
+				return true;
+		}
+	}
+	/**
+	 * Lowers the key of the cheapest edge of a component.
+	 * @param root of the component
+	 * @param key of an edge that leaves the component
+	 */
+	private void offer(int root, long key) {
+		long current;
+		while (key < (current = cheapest.get(root))) {
+			if (cheapest.compareAndSet(root, current, key))
+				return;
+		}
+	}
+	/**
+	 * Tells if there is a wallboard east or south of the given
+	 * cell that can be torn down.
+	 * @param value of the cell in the floorplan
+	 * @param bit CW_RIGHT or CW_BOT
+	 * @return true if there is a wallboard that is not a border
+	 */
+	private static boolean isEdge(int value, int bit) {
+		return (value & bit) != 0 && (value & (bit << Floorplan.CW_BOUND_SHIFT)) == 0;
+	}
+	/**
+	 * Merges cells in columns {@code from <= x < to} with their east and south neighbors
+	 * if there is neither a wallboard nor a border in between, as in rooms.
+	 * @param from first column
+	 * @param to column after the last one
+	 */
+	private void joinOpen(int from, int to) {
+		final int east = Floorplan.CW_RIGHT | (Floorplan.CW_RIGHT << Floorplan.CW_BOUND_SHIFT);
+		final int south = Floorplan.CW_BOT | (Floorplan.CW_BOT << Floorplan.CW_BOUND_SHIFT);
+		for (int x = from; x < to; x++) {
+			for (int y = 0, cell = x*height; y < height; y++, cell++) {
+				final int value = floorplan.getValueOfCell(x, y);
+				if (x+1 < width && (value & east) == 0)
+					union(cell, cell + height);
+				if (y+1 < height && (value & south) == 0)
+					union(cell, cell + 1);
+			}
+		}
+	}
+	/**
+	 * Records the root of each cell in columns {@code from <= x < to} and
+	 * resets the cheapest edge of the cell in case it is a root.
+	 * @param from first column
+	 * @param to column after the last one
+	 */
+	private void label(int from, int to) {
+		for (int cell = from*height; cell < to*height; cell++) {
+			component[cell] = find(cell);
+			cheapest.set(cell, NONE);
+		}
+	}
+	/**
+	 * Offers the edges east and south of cells in columns {@code from <= x < to}
+	 * to the components on both sides if the edge connects different components.
+	 * @param from first column
+	 * @param to column after the last one
+	 */
+	private void select(int from, int to) {
+		for (int x = from; x < to; x++) {
+			for (int y = 0, cell = x*height; y < height; y++, cell++) {
+				final int value = floorplan.getValueOfCell(x, y);
+				final int root = component[cell];
+				if (x+1 < width && isEdge(value, Floorplan.CW_RIGHT) && root != component[cell + height]) {
+					final long key = edgeKey(salt, 2*cell);
+					offer(root, key);
+					offer(component[cell + height], key);
+				}
+				if (y+1 < height && isEdge(value, Floorplan.CW_BOT) && root != component[cell + 1]) {
+					final long key = edgeKey(salt, 2*cell + 1);
+					offer(root, key);
+					offer(component[cell + 1], key);
+				}
+			}
+		}
+	}
+	/**
+	 * Merges each component whose root is in columns {@code from <= x < to}
+	 * along its cheapest edge and records the edge if it joined two components.
+	 * An edge may be the cheapest one of both of its components, only one of them merges.
+	 * @param from first column
+	 * @param to column after the last one
+	 */
+	private void merge(int from, int to) {
+		for (int cell = from*height; cell < to*height; cell++) {
+			if (component[cell] != cell)
+				continue;
+			final long key = cheapest.get(cell);
+			if (key == NONE)
+				continue;
+			final int edge = (int)key;
+			final int start = edge >>> 1;
+			if (union(start, (edge & 1) == 1 ? start + 1 : start + height))
+				accepted[acceptedCount.getAndIncrement()] = edge;
+		}
+	}
+	/**
+	 * Task to perform one phase for a range of columns.
+	 */
+	private class Sweep extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int phase;
+		private final int from;
+		private final int to;
+
+		Sweep(int phase, int from, int to) {
+			this.phase = phase;
+			this.from = from;
+			this.to = to;
+		}
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_COLUMNS) {
+				switch (phase) {
+				case JOIN_OPEN:
+					joinOpen(from, to);
+					break;
+				case LABEL:
+					label(from, to);
+					break;
+				case SELECT:
+					select(from, to);
+					break;
+				case MERGE:
+					merge(from, to);
+					break;
+				default:
+					throw new RuntimeException("MazeBuilderBoruvka.Sweep: unknown phase " + phase);
+				}
+				return;
+			}
+			final int middle = (from + to) >>> 1;
+			invokeAll(new Sweep(phase, from, middle), new Sweep(phase, middle, to));
+		}
+	}
+}
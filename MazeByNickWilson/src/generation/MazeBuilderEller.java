@@ -0,0 +1,311 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with Eller's algorithm which proceeds one row at a time.
+ * It only keeps track of the current row: for each cell of the row, a label
+ * identifies the set of cells it is connected to by the rows above.
+ * For each row, the algorithm
+ * 1) randomly removes wallboards between adjacent cells that belong to different sets
+ * and merges their sets,
+ * 2) randomly removes wallboards to the row below such that each set continues
+ * with at least one cell in the next row. Cells of the next row that are not reached
+ * this way start a set of their own.
+ * In the last row, all adjacent cells of different sets get connected.
+ * The result is a perfect maze.
+ *
+ * Labels and wallboards of the current and the next row are kept in primitive arrays
+ * of length width, so memory does not grow with the height of the maze.
+ * Besides the normal mode that fills the floorplan, the streaming mode
+ * {@link #generateRows(int, int, int, RowSink)} hands each finished row to a
+ * {@link RowSink} and never holds more than two rows.
+ *
+ * Algorithm leaves wallboards in tact that carry the border flag.
+ * Rooms are already open inside, their cells are treated as connected.
+ * As borders can cut off a set from the rows below, the normal mode connects
+ * any remaining separate areas at the end if the maze has rooms.
+ */
+public class MazeBuilderEller extends MazeBuilder implements Runnable {
+
+	/**
+	 * Receives finished rows of a maze in the streaming mode.
+	 */
+	public interface RowSink {
+		/**
+		 * Accepts the finished row y of a maze. Rows are delivered in order
+		 * from {@code y = 0} to {@code y = height-1}.
+		 * Cells are encoded as in {@link Floorplan#getValueOfCell(int, int)},
+		 * wallboards with the CW_TOP, CW_BOT, CW_LEFT, CW_RIGHT bits and borders
+		 * of the maze shifted by {@link Floorplan#CW_BOUND_SHIFT}.
+		 * The array is reused for subsequent rows, a sink that keeps rows needs to copy it.
+		 * @param y the row index
+		 * @param row the values for cells (0,y) to (width-1,y)
+		 */
+		void acceptRow(int y, int[] row);
+	}
+
+	// wallboard bits for the current and the next row, encoded as in Floorplan
+	private int[] row;
+	private int[] nextRow;
+	// set labels for cells of the current row, labels are in [0,width)
+	private int[] label;
+	// union-find structure over labels to merge sets within a row
+	private int[] parent;
+	// per set: number of cells that can still connect to the next row and
+	// whether the set already continues in the next row
+	private int[] remaining;
+	private boolean[] continues;
+	// maps a set to its label in the next row, valid if mappedIn equals the row index + 1
+	private int[] mapped;
+	private int[] mappedIn;
+	// receives finished rows in streaming mode, null in normal mode
+	private RowSink sink;
+	// reused to delete wallboards in the floorplan in normal mode
+	private Wallboard wallboard;
+
+	public MazeBuilderEller() {
+		super();
+		System.out.println("MazeBuilderEller uses Eller's algorithm to generate maze.");
+	}
+
+	/**
+	 * Generates pathways into the floorplan with Eller's algorithm, one row at a time.
+	 */
+	@Override
+	protected void generatePathways() {
+		sink = null;
+		wallboard = new Wallboard(0, 0, CardinalDirection.East);
+		generateRows();
+		wallboard = null;
+		if (rooms > 0)
+			connectSeparateAreas();
+	}
+
+	/**
+	 * Generates a perfect maze of the given dimensions in streaming mode.
+	 * Finished rows go to the sink as soon as the row below has been
+	 * decided, no floorplan is built. Memory is proportional to the width only,
+	 * such that the height can go far beyond what fits into a floorplan.
+	 * The maze has no rooms and no exit yet, distances are not computed.
+	 * The same seed delivers the same rows as the normal mode
+	 * for a perfect maze of the same dimensions.
+	 * @param width of the maze, at least 1
+	 * @param height of the maze, at least 1
+	 * @param seed for the random number generator
+	 * @param sink receives the rows of the maze, must not be null
+	 */
+	public void generateRows(int width, int height, int seed, RowSink sink) {
+		random = new MazeRandom(seed);
+		this.width = width;
+		this.height = height;
+		this.sink = sink;
+		floorplan = null;
+		generateRows();
+		this.sink = null;
+	}
+
+	/**
+	 * Runs Eller's algorithm over all rows.
+	 * Works on the floorplan in normal mode, on fresh rows that go
+	 * to the sink in streaming mode.
+	 */
+	private void generateRows() {
+		row = new int[width];
+		nextRow = new int[width];
+		label = new int[width];
+		parent = new int[width];
+		remaining = new int[width];
+		continues = new boolean[width];
+		mapped = new int[width];
+		mappedIn = new int[width];
+		Arrays.fill(mappedIn, -1);
+		// each cell of the first row starts in a set of its own
+		loadRow(0, row);
+		for (int x = 0; x < width; x++) {
+			label[x] = x;
+			parent[x] = x;
+		}
+		for (int y = 0; y < height; y++) {
+			final boolean last = (y == height-1);
+			joinRow(y, last);
+			if (!last) {
+				loadRow(y+1, nextRow);
+				continueToNextRow(y);
+			}
+			if (null != sink)
+				sink.acceptRow(y, row);
+			final int[] tmp = row;
+			row = nextRow;
+			nextRow = tmp;
+		}
+		row = null;
+		nextRow = null;
+		label = null;
+		parent = null;
+		remaining = null;
+		continues = null;
+		mapped = null;
+		mappedIn = null;
+	}
+	/**
+	 * Step 1 for row y: merges sets of adjacent cells that are already connected
+	 * and randomly removes wallboards between cells of different sets.
+	 * In the last row, all wallboards between cells of different sets are removed
+	 * unless they are borders.
+	 * @param y the current row
+	 * @param last true if y is the last row
+	 */
+	private void joinRow(int y, boolean last) {
+		for (int x = 0; x+1 < width; x++) {
+			final int a = find(label[x]);
+			final int b = find(label[x+1]);
+			if ((row[x] & Floorplan.CW_RIGHT) == 0) {
+				// open already, e.g. inside a room
+				union(a, b);
+			}
+			else if (a != b && !isBorder(row[x], Floorplan.CW_RIGHT)
+					&& (last || random.nextIntWithinInterval(0, 1) == 0)) {
+				deleteWallboard(x, y, CardinalDirection.East);
+				union(a, b);
+			}
+		}
+	}
+	/**
+	 * Step 2 for row y: connects each set to the next row with at least one
+	 * cell if its wallboards allow for it and assigns labels for the next row.
+	 * Cells that are already open to the next row always continue their set.
+	 * @param y the current row, not the last one
+	 */
+	private void continueToNextRow(int y) {
+		// count the cells per set that can connect to the next row
+		for (int x = 0; x < width; x++) {
+			final int r = find(label[x]);
+			remaining[r] = 0;
+			continues[r] = false;
+		}
+		for (int x = 0; x < width; x++) {
+			final int r = find(label[x]);
+			if ((row[x] & Floorplan.CW_BOT) == 0)
+				continues[r] = true;
+			else if (!isBorder(row[x], Floorplan.CW_BOT))
+				remaining[r]++;
+		}
+		// connect randomly, the last candidate of a set that does not continue yet must connect
+		int nextLabel = 0;
+		for (int x = 0; x < width; x++) {
+			final int r = find(label[x]);
+			boolean down = (row[x] & Floorplan.CW_BOT) == 0;
+			if (!down && !isBorder(row[x], Floorplan.CW_BOT)) {
+				remaining[r]--;
+				if (random.nextIntWithinInterval(0, 1) == 0 || (remaining[r] == 0 && !continues[r])) {
+					deleteWallboard(x, y, CardinalDirection.South);
+					continues[r] = true;
+					down = true;
+				}
+			}
+			if (down) {
+				if (mappedIn[r] != y+1) {
+					mappedIn[r] = y+1;
+					mapped[r] = nextLabel++;
+				}
+				label[x] = mapped[r];
+			}
+			else {
+				label[x] = -1;
+			}
+		}
+		// cells that are not reached from above start a set of their own
+		for (int x = 0; x < width; x++) {
+			if (label[x] < 0)
+				label[x] = nextLabel++;
+		}
+		for (int i = 0; i < nextLabel; i++) {
+			parent[i] = i;
+		}
+	}
+	/**
+	 * Loads the wallboards of row y into the given array.
+	 * In normal mode values come from the floorplan, in streaming mode
+	 * all wallboards are up and the outside of the maze is a border
+	 * as after {@link Floorplan#initialize()}.
+	 * @param y the row index
+	 * @param values the array to fill
+	 */
+	private void loadRow(int y, int[] values) {
+		if (null != floorplan) {
+			for (int x = 0; x < width; x++) {
+				values[x] = floorplan.getValueOfCell(x, y);
+			}
+			return;
+		}
+		for (int x = 0; x < width; x++) {
+			int value = Floorplan.CW_VISITED | Floorplan.CW_ALL;
+			if (y == 0)
+				value |= Floorplan.CW_TOP << Floorplan.CW_BOUND_SHIFT;
+			if (y == height-1)
+				value |= Floorplan.CW_BOT << Floorplan.CW_BOUND_SHIFT;
+			if (x == 0)
+				value |= Floorplan.CW_LEFT << Floorplan.CW_BOUND_SHIFT;
+			if (x == width-1)
+				value |= Floorplan.CW_RIGHT << Floorplan.CW_BOUND_SHIFT;
+			values[x] = value;
+		}
+	}
+	/**
+	 * Deletes the wallboard at cell (x,y) of the current row in the given direction,
+	 * which is either east or south, in the row arrays and in the floorplan if there is one.
+	 * @param x the x coordinate
+	 * @param y the y coordinate of the current row
+	 * @param cd either East or South
+	 */
+	private void deleteWallboard(int x, int y, CardinalDirection cd) {
+		if (CardinalDirection.East == cd) {
+			row[x] &= ~Floorplan.CW_RIGHT;
+			row[x+1] &= ~Floorplan.CW_LEFT;
+		}
+		else {
+			row[x] &= ~Floorplan.CW_BOT;
+			nextRow[x] &= ~Floorplan.CW_TOP;
+		}
+		if (null != floorplan) {
+			wallboard.setLocationDirection(x, y, cd);
+			floorplan.deleteWallboard(wallboard);
+		}
+	}
+	/**
+	 * Tells if the given cell value has a border for the given wallboard bit.
+	 * @param value the encoded cell value
+	 * @param bit one of CW_TOP, CW_BOT, CW_LEFT, CW_RIGHT
+	 * @return true if the wallboard is part of a border
+	 */
+	private static boolean isBorder(int value, int bit) {
+		return (value & (bit << Floorplan.CW_BOUND_SHIFT)) != 0;
+	}
+	/**
+	 * Finds the representative of the set with the given label.
+	 * @param l the label
+	 * @return the representative label
+	 */
+	private int find(int l) {
+		while (parent[l] != l) {
+			parent[l] = parent[parent[l]]; // path halving
+			l = parent[l];
+		}
+		return l;
+	}
+	/**
+	 * Merges the sets with the given representatives.
+	 * @param a representative of the first set
+	 * @param b representative of the second set
+	 */
+	private void union(int a, int b) {
+		if (a != b)
+			parent[b] = a;
+	}
+}
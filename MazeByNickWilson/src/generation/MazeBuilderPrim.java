@@ -1,6 +1,6 @@
 package generation;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
   * This class has the responsibility to create a maze of given dimensions (width, height) 
@@ -25,6 +25,19 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		System.out.println("MazeBuilderPrim uses Prim's algorithm to generate maze.");
 	}
 
+	/**
+	 * The four directions in the order of their ordinal values,
+	 * a candidate wallboard encodes its direction by the ordinal value.
+	 */
+	private static final CardinalDirection[] DIRECTIONS = CardinalDirection.values();
+	/**
+	 * The pool of candidate wallboards, a wallboard at cell (x,y) in direction cd 
+	 * is encoded as {@code 4*(x*height+y)+cd.ordinal()}.
+	 * Only the first candidateCount entries are valid, their order does not matter.
+	 */
+	private int[] candidates;
+	private int candidateCount;
+
 	/**
 	 * This method generates pathways into the maze by using Prim's algorithm to generate a spanning tree for an undirected graph.
 	 * The cells are the nodes of the graph and the spanning tree. An edge represents that one can move from one cell to an adjacent cell.
@@ -35,61 +48,74 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		// pick initial position (x,y) at some random position on the maze
 		int x = random.nextIntWithinInterval(0, width-1);
 		int y = random.nextIntWithinInterval(0, height-1);
-		// create an initial list of all wallboards that could be removed
+		// the initial position is part of the spanning tree, no other cell may lead back to it
+		floorplan.setCellAsVisited(x, y);
+		// create an initial pool of all wallboards that could be removed
 		// those wallboards lead to adjacent cells that are not part of the spanning tree yet.
-		final ArrayList<Wallboard> candidates = new ArrayList<Wallboard>();
-		updateListOfWallboards(x, y, candidates);
-		
-		Wallboard curWallboard;
+		candidates = new int[4*(width+height)];
+		candidateCount = 0;
+		updateListOfWallboards(x, y);
+		// a single wallboard object is reused to delete wallboards
+		final Wallboard curWallboard = new Wallboard(x, y, CardinalDirection.East);
 		// we need to consider each candidate wallboard and consider it only once
-		while(!candidates.isEmpty()){
+		while(candidateCount > 0){
 			// in order to have a randomized algorithm,
 			// we randomly select and extract a wallboard from our candidate set
 			// this also reduces the set to make sure we terminate the loop
-			curWallboard = extractWallboardFromCandidateSetRandomly(candidates);
+			final int candidate = extractWallboardFromCandidateSetRandomly();
+			final int cell = candidate >>> 2;
+			final CardinalDirection cd = DIRECTIONS[candidate & 3];
+			x = cell / height;
+			y = cell - x*height;
 			// check if wallboard leads to a new cell that is not connected to the spanning tree yet
-			if (floorplan.canTearDown(curWallboard))
+			if (floorplan.canTearDown(x, y, cd))
 			{
 				// delete wallboard from maze, note that this takes place from both directions
+				curWallboard.setLocationDirection(x, y, cd);
 				floorplan.deleteWallboard(curWallboard);
 				// update current position
 				x = curWallboard.getNeighborX();
 				y = curWallboard.getNeighborY();
 				
 				floorplan.setCellAsVisited(x, y); // the flag is never reset, so this ensure we never go to (x,y) again
-				updateListOfWallboards(x, y, candidates); // checks to see if it has wallboards to new cells, if it does it adds them to the list
+				updateListOfWallboards(x, y); // checks to see if it has wallboards to new cells, if it does it adds them to the list
 				// note that each wallboard can get added at most once. This is important for termination and efficiency
 			}
 		}
+		candidates = null;
 	}
 	/**
-	 * Pick a random position in the list of candidates, remove the candidate from the list and return it
-	 * @param candidates is the list of candidates to randomly remove a wall board from
-	 * @return candidate from the list, randomly chosen
+	 * Pick a random position in the pool of candidates, remove the candidate from the pool and return it.
+	 * The last candidate in the pool takes the place of the removed one, 
+	 * so removal takes constant time.
+	 * @return encoded candidate from the pool, randomly chosen
 	 */
-	private Wallboard extractWallboardFromCandidateSetRandomly(final ArrayList<Wallboard> candidates) {
-		return candidates.remove(random.nextIntWithinInterval(0, candidates.size()-1)); 
+	private int extractWallboardFromCandidateSetRandomly() {
+		final int index = random.nextIntWithinInterval(0, candidateCount-1);
+		final int result = candidates[index];
+		candidates[index] = candidates[--candidateCount];
+		return result;
 	}
 	
 
 	/**
-	 * Updates a list of all wallboards that could be removed from the maze based on wallboards towards new cells.
+	 * Updates the pool of all wallboards that could be removed from the maze based on wallboards towards new cells.
 	 * For the given x, y coordinates, one checks all four directions
 	 * and for the ones where one can tear down a wallboard, a 
-	 * corresponding wallboard is added to the list of wallboards.
+	 * corresponding encoded wallboard is added to the pool.
 	 * @param x the x coordinate of interest
 	 * @param y the y coordinate of interest
-	 * @param wallboards the new elements should be added to, must not be null
 	 */
-	private void updateListOfWallboards(int x, int y, ArrayList<Wallboard> wallboards) {
-		Wallboard wallboard = new Wallboard(x, y, CardinalDirection.East) ;
-		for (CardinalDirection cd : CardinalDirection.values()) {
-			wallboard.setLocationDirection(x, y, cd);
-			if (floorplan.canTearDown(wallboard)) // 
+	private void updateListOfWallboards(int x, int y) {
+		if (candidateCount + DIRECTIONS.length > candidates.length)
+			candidates = Arrays.copyOf(candidates, 2*candidates.length);
+		final int cell = x*height + y;
+		for (CardinalDirection cd : DIRECTIONS) {
+			if (floorplan.canTearDown(x, y, cd)) 
 			{
-				wallboards.add(new Wallboard(x, y, cd));
+				candidates[candidateCount++] = 4*cell + cd.ordinal();
 			}
 		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package generation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates pathways by recursive division.
+ * A rectangular region is split into two halves by a line between two columns
+ * or two rows, each half is divided further and a single opening in the line
+ * connects the halves. A region that is a single row or column becomes a corridor.
+ * Since the floorplan starts out with all wallboards up, the division lines are
+ * the wallboards that stay in place, so the maze is a perfect maze.
+ *
+ * The two halves of a split are independent, so regions with more than
+ * {@link #SEQUENTIAL_CELLS} cells divide their halves as two ForkJoin tasks.
+ * Sibling regions never share a cell, so tasks write into the floorplan without
+ * locks. The opening between the halves is made before the halves are forked.
+ *
+ * Random decisions of a region only depend on a seed for that region. The seeds of the
+ * halves are derived from it, see {@link SingleRandom#hash(long, int)}, so the maze
+ * only depends on the seed of the order and not on the number of threads.
+ *
+ * With rooms, wallboards that are borders stay in place and may separate
+ * areas, those are connected afterwards with {@link #connectSeparateAreas()}.
+ */
+public class MazeBuilderRecursiveDivision extends MazeBuilder implements Runnable {
+	/**
+	 * Maximum number of cells of a region that is divided without forking tasks.
+	 */
+	static final int SEQUENTIAL_CELLS = 1 << 12;
+
+	// counters for the random values of a region
+	private static final int LEFT_OR_TOP = 0; // seed of the first half
+	private static final int RIGHT_OR_BOTTOM = 1; // seed of the second half
+	private static final int ORIENTATION = 2; // split between columns or between rows for square regions
+	private static final int LINE = 3; // position of the division line
+	private static final int OPENING = 4; // position of the opening in the line
+
+	private final ForkJoinPool pool; // executes the divisions in parallel
+
+	/**
+	 * Constructor for a builder that works in the common fork join pool.
+	 * Prints the string "MazeBuilderRecursiveDivision uses recursive division to generate maze."
+	 */
+	public MazeBuilderRecursiveDivision() {
+		this(ForkJoinPool.commonPool());
+	}
+	/**
+	 * Constructor
+	 * @param pool executes the divisions in parallel
+	 */
+	public MazeBuilderRecursiveDivision(ForkJoinPool pool) {
+		super();
+		this.pool = pool;
+		System.out.println("MazeBuilderRecursiveDivision uses recursive division to generate maze.");
+	}
+
+	/**
+	 * Divides the whole maze, connects areas that borders of rooms separated.
+	 */
+	@Override
+	protected void generatePathways() {
+		final long seed = random.nextIntWithinInterval(0, Integer.MAX_VALUE-1);
+		if (width*height <= SEQUENTIAL_CELLS)
+			divide(0, 0, width, height, seed);
+		else
+			pool.invoke(new Divide(0, 0, width, height, seed));
+		if (rooms > 0)
+			connectSeparateAreas();
+	}
+	/**
+	 * Divides the region sequentially.
+	 * @param x coordinate of the top left cell of the region
+	 * @param y coordinate of the top left cell of the region
+	 * @param w width of the region
+	 * @param h height of the region
+	 * @param seed for the random decisions in the region
+	 */
+	private void divide(int x, int y, int w, int h, long seed) {
+		while (w > 1 && h > 1) {
+			final boolean columns = isSplitBetweenColumns(w, h, seed);
+			final int line = pick(seed, LINE, (columns ? w : h) - 1) + 1;
+			openLine(x, y, w, h, columns, line, seed);
+			if (columns) {
+				divide(x, y, line, h, SingleRandom.hash(seed, LEFT_OR_TOP));
+				// continue with the right half
+				x += line;
+				w -= line;
+			}
+			else {
+				divide(x, y, w, line, SingleRandom.hash(seed, LEFT_OR_TOP));
+				// continue with the bottom half
+				y += line;
+				h -= line;
+			}
+			seed = SingleRandom.hash(seed, RIGHT_OR_BOTTOM);
+		}
+		openCorridor(x, y, w, h);
+	}
+	/**
+	 * Decides the orientation of the division line for a region that is
+	 * neither a single row nor a single column. The longer side is split such
+	 * that regions stay close to squares.
+	 * @param w width of the region, {@code w > 1}
+	 * @param h height of the region, {@code h > 1}
+	 * @param seed for the random decisions in the region
+	 * @return true if the line is between two columns, false if it is between two rows
+	 */
+	private static boolean isSplitBetweenColumns(int w, int h, long seed) {
+		return (w == h) ? pick(seed, ORIENTATION, 2) == 0 : w > h;
+	}
+	/**
+	 * Makes the opening in the division line at a random position.
+	 * @param x coordinate of the top left cell of the region
+	 * @param y coordinate of the top left cell of the region
+	 * @param w width of the region
+	 * @param h height of the region
+	 * @param columns true if the line is between two columns, false if it is between two rows
+	 * @param line width or height of the first half
+	 * @param seed for the random decisions in the region
+	 */
+	private void openLine(int x, int y, int w, int h, boolean columns, int line, long seed) {
+		if (columns)
+			deleteWallboard(x + line - 1, y + pick(seed, OPENING, h), CardinalDirection.East);
+		else
+			deleteWallboard(x + pick(seed, OPENING, w), y + line - 1, CardinalDirection.South);
+	}
+	/**
+	 * Removes all wallboards inside a region that is a single row or column.
+	 * @param x coordinate of the top left cell of the region
+	 * @param y coordinate of the top left cell of the region
+	 * @param w width of the region
+	 * @param h height of the region, {@code w == 1 || h == 1}
+	 */
+	private void openCorridor(int x, int y, int w, int h) {
+		for (int i = 1; i < w; i++) {
+			deleteWallboard(x + i - 1, y, CardinalDirection.East);
+		}
+		for (int j = 1; j < h; j++) {
+			deleteWallboard(x, y + j - 1, CardinalDirection.South);
+		}
+	}
+	/**
+	 * Deletes the wallboard unless it is a border.
+	 * @param x coordinate of the cell
+	 * @param y coordinate of the cell
+	 * @param cd direction of the wallboard, East or South
+	 */
+	private void deleteWallboard(int x, int y, CardinalDirection cd) {
+		final int bit = (cd == CardinalDirection.East) ? Floorplan.CW_RIGHT : Floorplan.CW_BOT;
+		if ((floorplan.getValueOfCell(x, y) & (bit << Floorplan.CW_BOUND_SHIFT)) == 0)
+			floorplan.deleteWallboard(x, y, cd);
+	}
+	/**
+	 * Gives a random value that only depends on the seed and the counter.
+	 * @param seed of the region
+	 * @param counter identifies the decision
+	 * @param bound upper bound, exclusive, {@code bound > 0}
+	 * @return a value in {@code [0, bound)}
+	 */
+	private static int pick(long seed, int counter, int bound) {
+		return (int)(((SingleRandom.hash(seed, counter) & 0xffffffffL) * bound) >>> 32);
+	}
+	/**
+	 * Task to divide a region, forks both halves if the region is large.
+	 */
+	private class Divide extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int x, y, w, h;
+		private final long seed;
+
+		Divide(int x, int y, int w, int h, long seed) {
+			this.x = x;
+			this.y = y;
+			this.w = w;
+			this.h = h;
+			this.seed = seed;
+		}
+		@Override
+		protected void compute() {
+			if (w*h <= SEQUENTIAL_CELLS || w == 1 || h == 1) {
+				divide(x, y, w, h, seed);
+				return;
+			}
+			final boolean columns = isSplitBetweenColumns(w, h, seed);
+			final int line = pick(seed, LINE, (columns ? w : h) - 1) + 1;
+			openLine(x, y, w, h, columns, line, seed);
+			final long first = SingleRandom.hash(seed, LEFT_OR_TOP);
+			final long second = SingleRandom.hash(seed, RIGHT_OR_BOTTOM);
+			if (columns)
+				invokeAll(new Divide(x, y, line, h, first), new Divide(x + line, y, w - line, h, second));
+			else
+				invokeAll(new Divide(x, y, w, line, first), new Divide(x, y + line, w, h - line, second));
+		}
+	}
+}
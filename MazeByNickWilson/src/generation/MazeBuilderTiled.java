@@ -0,0 +1,206 @@
+package generation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Generates a perfect maze in parallel by splitting the floorplan into rectangular tiles.
+ * Each tile is a perfect maze of its own that is generated with one of the
+ * other algorithms (DFS, Prim, Kruskal, Eller) on a separate floorplan, so
+ * tiles can be generated on different cores without any coordination.
+ * The tiles are then copied into the floorplan of the whole maze and stitched
+ * together along their seams. A random spanning tree over the graph of
+ * adjacent tiles decides which seams get a single opening, so the result
+ * is again a perfect maze with all cells connected.
+ *
+ * Every tile has its own random number generator whose seed is derived from
+ * the seed of the order and the index of the tile, so the maze is the same for
+ * a given seed no matter how many threads are used and in which order tiles finish.
+ *
+ * Tiling only makes sense for large mazes; an order for a maze with rooms or a maze
+ * that fits into a single tile is generated sequentially with the given algorithm.
+ * The maze factory uses this builder for perfect mazes above its tiling threshold,
+ * see {@link MazeFactory#setTilingThreshold(int)}.
+ */
+public class MazeBuilderTiled extends MazeBuilder implements Runnable {
+
+	static final int DEFAULT_TILE_SIZE = 128; // default width and height of a tile
+
+	private final Order.Builder algorithm; // builder for the pathways within a tile
+	private final int tileWidth, tileHeight;
+	private final ForkJoinPool pool; // executes the tiles in parallel
+
+	/**
+	 * Constructor for tiles of the default size that are generated
+	 * in the common fork join pool.
+	 * @param algorithm generates the pathways within a tile
+	 */
+	public MazeBuilderTiled(Order.Builder algorithm) {
+		this(algorithm, DEFAULT_TILE_SIZE, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+	}
+	/**
+	 * Constructor
+	 * @param algorithm generates the pathways within a tile, one of DFS, Prim, Kruskal, Eller
+	 * @param tileWidth width of a tile, {@code 0 < tileWidth}
+	 * @param tileHeight height of a tile, {@code 0 < tileHeight}
+	 * @param pool executes the tiles in parallel
+	 */
+	public MazeBuilderTiled(Order.Builder algorithm, int tileWidth, int tileHeight, ForkJoinPool pool) {
+		super();
+		if (null == MazeFactory.createBuilder(algorithm))
+			throw new IllegalArgumentException("MazeBuilderTiled: no implementation for algorithm: " + algorithm);
+		assert 0 < tileWidth && 0 < tileHeight : "tiles must not be empty";
+		this.algorithm = algorithm;
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		this.pool = pool;
+		System.out.println("MazeBuilderTiled uses " + algorithm + " on tiles of " + tileWidth + "x" + tileHeight + " cells to generate maze.");
+	}
+
+	/**
+	 * Tells if tiles can be generated with the given algorithm.
+	 * Boruvka's algorithm and recursive division are parallel on their own.
+	 * @param algorithm generation algorithm
+	 * @return true for DFS, Prim, Kruskal and Eller, false otherwise
+	 */
+	static boolean isTileAlgorithm(Order.Builder algorithm) {
+		switch (algorithm) {
+		case DFS:
+		case Prim:
+		case Kruskal:
+		case Eller:
+			return true;
+		default:
+			return false;
+		}
+	}
+	/**
+	 * Generates pathways tile by tile in parallel and stitches tiles together.
+	 * 1) Draws a base value from the random number generator of the order
+	 * that the seeds of the tiles are derived from.
+	 * 2) Starts one task per thread of the pool, each task has a builder of its
+	 * own and generates every n-th tile on a separate floorplan which is then copied
+	 * into the floorplan of the maze. Tiles are disjoint areas of the floorplan.
+	 * 3) Opens one wallboard on each seam that belongs to a random spanning tree
+	 * over adjacent tiles, see {@link #stitchTiles(int, int)}.
+	 * If the order asks for rooms or the maze fits into a single tile, the pathways are
+	 * generated sequentially by the given algorithm.
+	 */
+	@Override
+	protected void generatePathways() {
+		final int columns = (width + tileWidth - 1) / tileWidth;
+		final int rows = (height + tileHeight - 1) / tileHeight;
+		final int tiles = columns*rows;
+		if (rooms > 0 || tiles == 1) {
+			MazeBuilder builder = MazeFactory.createBuilder(algorithm);
+			builder.width = width;
+			builder.height = height;
+			builder.rooms = rooms;
+			builder.floorplan = floorplan;
+			builder.random = random;
+			builder.generatePathways();
+			return;
+		}
+		final long base = random.nextIntWithinInterval(0, Integer.MAX_VALUE-1);
+		final int workers = Math.min(tiles, pool.getParallelism());
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers);
+		for (int w = 0; w < workers; w++) {
+			final int first = w;
+			tasks.add(() -> {
+				MazeBuilder builder = MazeFactory.createBuilder(algorithm);
+				for (int tile = first; tile < tiles; tile += workers) {
+					generateTile(builder, tile % columns, tile / columns, SingleRandom.hash(base, tile));
+				}
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> result : pool.invokeAll(tasks)) {
+				result.get();
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException("MazeBuilderTiled.generatePathways: tile failed", e.getCause());
+		} catch (InterruptedException e) {
+			// keep the signal such that the next check in run() stops the generation
+			Thread.currentThread().interrupt();
+			return;
+		}
+		stitchTiles(columns, rows);
+	}
+	/**
+	 * Generates the pathways for a single tile on a floorplan of its own
+	 * and copies the result into the floorplan of the maze.
+	 * @param builder generates the pathways, its fields are overwritten
+	 * @param column of the tile, the tile's top left cell is at x = column*tileWidth
+	 * @param row of the tile, the tile's top left cell is at y = row*tileHeight
+	 * @param seed for the random number generator of the tile
+	 */
+	private void generateTile(MazeBuilder builder, int column, int row, int seed) {
+		final int x = column*tileWidth;
+		final int y = row*tileHeight;
+		builder.width = Math.min(tileWidth, width - x);
+		builder.height = Math.min(tileHeight, height - y);
+		builder.rooms = 0;
+		builder.floorplan = new Floorplan(builder.width, builder.height);
+		builder.floorplan.initialize();
+		builder.random = new MazeRandom(seed);
+		builder.generatePathways();
+		floorplan.copyTile(builder.floorplan, x, y);
+	}
+	/**
+	 * Connects the tiles with Kruskal's algorithm on the graph of tiles.
+	 * An edge between two adjacent tiles is encoded as {@code 2*tile} if the
+	 * other tile is to the east and as {@code 2*tile+1} if it is to the south,
+	 * where tile (column, row) has index {@code row*columns+column}.
+	 * Edges are shuffled, every edge that joins two separate sets of tiles
+	 * gets an opening at a random position along its seam.
+	 * @param columns number of tiles in a row
+	 * @param rows number of tiles in a column
+	 */
+	private void stitchTiles(int columns, int rows) {
+		int[] parent = new int[columns*rows];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		int[] edges = new int[(columns-1)*rows + columns*(rows-1)];
+		int n = 0;
+		for (int tile = 0; tile < parent.length; tile++) {
+			if (tile % columns + 1 < columns)
+				edges[n++] = 2*tile;
+			if (tile / columns + 1 < rows)
+				edges[n++] = 2*tile + 1;
+		}
+		for (int i = edges.length - 1; i > 0; i--) {
+			int j = random.nextIntWithinInterval(0, i);
+			int tmp = edges[i];
+			edges[i] = edges[j];
+			edges[j] = tmp;
+		}
+		for (int edge : edges) {
+			int tile = edge >>> 1;
+			boolean south = (edge & 1) == 1;
+			int root = MazeBuilderKruskal.find(parent, tile);
+			int other = MazeBuilderKruskal.find(parent, south ? tile + columns : tile + 1);
+			if (root == other)
+				continue;
+			parent[other] = root;
+			// the seam is the last column or row of this tile
+			int x = (tile % columns)*tileWidth;
+			int y = (tile / columns)*tileHeight;
+			if (south) {
+				x += random.nextIntWithinInterval(0, Math.min(tileWidth, width - x) - 1);
+				y += tileHeight - 1;
+				floorplan.deleteWallboard(x, y, CardinalDirection.South);
+			}
+			else {
+				x += tileWidth - 1;
+				y += random.nextIntWithinInterval(0, Math.min(tileHeight, height - y) - 1);
+				floorplan.deleteWallboard(x, y, CardinalDirection.East);
+			}
+		}
+	}
+}
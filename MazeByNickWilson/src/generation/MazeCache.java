@@ -0,0 +1,322 @@
+package generation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps mazes that were generated before such that a repeated order
+ * with the same skill level, builder, perfect and seed does not need to run
+ * its builder again. Generation is reproducible from these parameters,
+ * see {@link Order#createRandom()}, so a cached maze is the same as
+ * a newly generated one.
+ *
+ * The cache has two tiers. The first one keeps mazes in memory in their
+ * encoded form, the least recently used ones are evicted once the
+ * encoded sizes exceed a memory cap. The second one is an optional
+ * directory with one file per maze in the same encoding, it is not limited
+ * in size. A maze that is found on disk moves into memory again.
+ *
+ * Each call of {@link #get(Order)} decodes a new maze, so the player
+ * of a cached maze can not change the mazes of other players.
+ * The encoding holds the floorplan, the distances,
+ * the starting position and the BSP tree in flat form, see
+ * {@link FlatBSPTree#write(java.io.DataOutput)}.
+ *
+ * A factory uses a cache after {@link MazeFactory#setCache(MazeCache)}.
+ * All methods are thread safe.
+ */
+public class MazeCache {
+	/**
+	 * System property with the directory of the second tier for {@link #createDefault()}.
+	 */
+	public static final String DIRECTORY_PROPERTY = "maze.cache.dir";
+	/**
+	 * Memory cap of the first tier for {@link #createDefault()}.
+	 */
+	static final long DEFAULT_MEMORY_CAP = 64L << 20;
+	private static final int MAGIC = 0x4d5a4332; // "MZC2", first int of an encoded maze
+	private static final String SUFFIX = ".maze";
+
+	private final long memoryCap; // maximum number of bytes of encoded mazes in memory
+	private final Path directory; // holds the second tier, null if there is none
+	private long bytes; // number of bytes of encoded mazes in memory
+	// encoded mazes by key in order of their last use, see key(Order)
+	private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+	private final AtomicLong memoryHits = new AtomicLong();
+	private final AtomicLong diskHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * @param memoryCap maximum number of bytes of encoded mazes in memory, {@code 0 <= memoryCap}
+	 * @param directory for the second tier, created if it does not exist, null for a cache in memory only
+	 * @throws IOException if the directory can not be created
+	 */
+	public MazeCache(long memoryCap, Path directory) throws IOException {
+		assert 0 <= memoryCap : "MazeCache: memory cap must not be negative";
+		this.memoryCap = memoryCap;
+		this.directory = directory;
+		if (null != directory)
+			Files.createDirectories(directory);
+	}
+	/**
+	 * Creates a cache with a memory cap of {@value #DEFAULT_MEMORY_CAP} bytes
+	 * and a second tier in the directory given by the system property
+	 * {@value #DIRECTORY_PROPERTY}. The cache is in memory only if the property
+	 * is not set or the directory can not be created.
+	 * @return the cache
+	 */
+	public static MazeCache createDefault() {
+		final String name = System.getProperty(DIRECTORY_PROPERTY);
+		if (null != name) {
+			try {
+				return new MazeCache(DEFAULT_MEMORY_CAP, Paths.get(name));
+			} catch (IOException | RuntimeException e) {
+				System.out.println("MazeCache: no disk tier, can not use directory " + name + ": " + e);
+			}
+		}
+		try {
+			return new MazeCache(DEFAULT_MEMORY_CAP, null);
+		} catch (IOException e) {
+			throw new AssertionError(e); // no directory, nothing to create
+		}
+	}
+	/**
+	 * Gives the maze for the order if it is in the cache.
+	 * @param order specifies the maze
+	 * @return a new copy of the maze, null if the maze is not in the cache
+	 */
+	public Maze get(Order order) {
+		final String key = key(order);
+		byte[] data;
+		synchronized (this) {
+			data = memory.get(key);
+		}
+		if (null != data) {
+			memoryHits.incrementAndGet();
+		} else if (null != (data = read(key))) {
+			diskHits.incrementAndGet();
+			putInMemory(key, data);
+		} else {
+			misses.incrementAndGet();
+			return null;
+		}
+		try {
+			return decode(data);
+		} catch (IOException | RuntimeException e) {
+			System.out.println("MazeCache.get: dropping broken entry " + key + ": " + e);
+			remove(key);
+			return null;
+		}
+	}
+	/**
+	 * Puts a maze into the cache.
+	 * @param order specifies the maze
+	 * @param maze the maze that was generated for the order, must not be changed while this runs
+	 */
+	public void put(Order order, Maze maze) {
+		put(order, encode(maze));
+	}
+	/**
+	 * Puts an encoded maze into the cache.
+	 * @param order specifies the maze
+	 * @param data the maze that was generated for the order, see {@link #encode(Maze)}
+	 */
+	void put(Order order, byte[] data) {
+		final String key = key(order);
+		putInMemory(key, data);
+		write(key, data);
+	}
+	/**
+	 * Gives the number of orders that were served from memory.
+	 * @return number of hits in the first tier
+	 */
+	public long getMemoryHits() {
+		return memoryHits.get();
+	}
+	/**
+	 * Gives the number of orders that were served from disk.
+	 * @return number of hits in the second tier
+	 */
+	public long getDiskHits() {
+		return diskHits.get();
+	}
+	/**
+	 * Gives the number of orders that were not in the cache.
+	 * @return number of misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+	/**
+	 * Gives the number of bytes of the encoded mazes in memory.
+	 * @return bytes in the first tier, at most the memory cap
+	 */
+	public synchronized long getMemoryBytes() {
+		return bytes;
+	}
+	/**
+	 * Drops all mazes from memory, the second tier is kept.
+	 */
+	public synchronized void clearMemory() {
+		memory.clear();
+		bytes = 0;
+	}
+	/////////////////////// private methods /////////////////////////////////////
+	/**
+	 * Gives the key for the maze of an order, it also serves as the name of its file.
+	 * @param order specifies the maze
+	 * @return key
+	 */
+	private static String key(Order order) {
+		return order.getSkillLevel() + "-" + order.getBuilder() + "-"
+				+ (order.isPerfect() ? "perfect" : "rooms") + "-" + order.getSeed();
+	}
+	/**
+	 * Puts an encoded maze into memory and evicts the least
+	 * recently used ones that exceed the memory cap.
+	 * A maze that is larger than the cap is not kept in memory.
+	 * @param key of the maze
+	 * @param data encoded maze
+	 */
+	private synchronized void putInMemory(String key, byte[] data) {
+		if (data.length > memoryCap)
+			return;
+		final byte[] old = memory.put(key, data);
+		bytes += data.length - ((null != old) ? old.length : 0);
+		final Iterator<Map.Entry<String, byte[]>> eldest = memory.entrySet().iterator();
+		while (bytes > memoryCap) {
+			bytes -= eldest.next().getValue().length;
+			eldest.remove();
+		}
+	}
+	/**
+	 * Removes a maze from both tiers.
+	 * @param key of the maze
+	 */
+	private void remove(String key) {
+		synchronized (this) {
+			final byte[] old = memory.remove(key);
+			if (null != old)
+				bytes -= old.length;
+		}
+		if (null != directory) {
+			try {
+				Files.deleteIfExists(directory.resolve(key + SUFFIX));
+			} catch (IOException e) {
+				System.out.println("MazeCache.remove: can not delete " + key + ": " + e);
+			}
+		}
+	}
+	/**
+	 * Reads an encoded maze from the second tier.
+	 * @param key of the maze
+	 * @return encoded maze, null if there is no second tier or no file for the maze
+	 */
+	private byte[] read(String key) {
+		if (null == directory)
+			return null;
+		try {
+			return Files.readAllBytes(directory.resolve(key + SUFFIX));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			System.out.println("MazeCache.read: can not read " + key + ": " + e);
+			return null;
+		}
+	}
+	/**
+	 * Writes an encoded maze to the second tier. The file is written under
+	 * a temporary name and then renamed, so readers never see a partial file.
+	 * @param key of the maze
+	 * @param data encoded maze
+	 */
+	private void write(String key, byte[] data) {
+		if (null == directory)
+			return;
+		final Path file = directory.resolve(key + SUFFIX);
+		try {
+			final Path temp = Files.createTempFile(directory, key, ".tmp");
+			Files.write(temp, data);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.out.println("MazeCache.write: can not write " + key + ": " + e);
+		}
+	}
+	/////////////////////// encoding ////////////////////////////////////////////
+	/**
+	 * Encodes a maze as bytes.
+	 * @param maze a fully initialized maze
+	 * @return the encoded maze
+	 */
+	static byte[] encode(Maze maze) {
+		final int width = maze.getWidth();
+		final int height = maze.getHeight();
+		final Floorplan floorplan = maze.getFloorplan();
+		final Distance dists = maze.getMazedists();
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8*width*height);
+		try (DataOutputStream out = new DataOutputStream(buffer)) {
+			out.writeInt(MAGIC);
+			out.writeInt(width);
+			out.writeInt(height);
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					out.writeShort(floorplan.getValueOfCell(x, y));
+					out.writeInt(dists.getDistanceValue(x, y));
+				}
+			}
+			final int[] start = maze.getStartingPosition();
+			out.writeInt(start[0]);
+			out.writeInt(start[1]);
+			maze.getFlatTree().write(out);
+		} catch (IOException e) {
+			throw new AssertionError(e); // a byte array does not fail
+		}
+		return buffer.toByteArray();
+	}
+	/**
+	 * Decodes a maze.
+	 * @param data encoded maze, see {@link #encode(Maze)}
+	 * @return a new maze
+	 * @throws IOException if the data is not an encoded maze
+	 */
+	static Maze decode(byte[] data) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			if (MAGIC != in.readInt())
+				throw new IOException("MazeCache: not an encoded maze");
+			final int width = in.readInt();
+			final int height = in.readInt();
+			final int[][] cells = new int[width][height];
+			final int[][] dists = new int[width][height];
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					cells[x][y] = in.readUnsignedShort();
+					dists[x][y] = in.readInt();
+				}
+			}
+			final int startX = in.readInt();
+			final int startY = in.readInt();
+			final FlatBSPTree tree = FlatBSPTree.read(in);
+			final MazeContainer maze = new MazeContainer();
+			maze.setWidth(width);
+			maze.setHeight(height);
+			maze.setFloorplan(new Floorplan(cells));
+			maze.setMazedists(new Distance(dists));
+			maze.setFlatTree(tree);
+			maze.setStartingPosition(startX, startY);
+			return maze;
+		}
+	}
+}
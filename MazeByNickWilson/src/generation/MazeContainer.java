@@ -26,10 +26,14 @@ import gui.Constants;
  * In particular, the current location and the current direction of the
  * user while playing the game are not stored in this class.
  * 
+ * The floorplan and the distances of a very large maze may be kept in 
+ * memory mapped files outside of the heap, see {@link MazeBuilder#setStorageDirectory(java.nio.file.Path)}.
+ * Such a maze holds on to the files until {@link #close()} is called.
+ * 
  * @author Peter Kemper
  *
  */
-public class MazeContainer implements Maze {
+public class MazeContainer implements Maze, AutoCloseable {
 	// properties of the current maze
 	private int width; // width of maze
 	// range: Constants.SKILL_X[0] <= width && width <= Constants.SKILL_X[last])
@@ -47,6 +51,7 @@ public class MazeContainer implements Maze {
 	// a segment is a continuous sequence of wallboards in vertical or horizontal direction
 	// a subset of segments need to be quickly identified for drawing
 	// the BSP tree partitions the set of all segments and provides a binary search tree for the partitions
+	private FlatBSPTree flatTree ; // same tree in flat form, built from rootnode on first use or vice versa
 	
 	private int[] start ; // the starting position (x,y) for the game
 	// this position should be in in range: 0 <= x < width, 0 <= y < height
@@ -168,6 +173,8 @@ public class MazeContainer implements Maze {
 	public BSPNode getRootnode() {
 		assert(isOperational()) : 
 			"accessing content before object is fully initialized!";
+		if (null == rootnode)
+			rootnode = flatTree.toNode();
 		return rootnode;
 	}
 
@@ -177,6 +184,29 @@ public class MazeContainer implements Maze {
 	 */
 	public void setRootnode(BSPNode rootnode) {
 		this.rootnode = rootnode;
+		flatTree = null;
+	}
+	/**
+	 * Gives the tree of BSPnodes in flat form, it is built
+	 * on the first call and kept for later ones.
+	 * Warning, returns direct access to internal field.
+	 * @return the flat tree
+	 */
+	public FlatBSPTree getFlatTree() {
+		assert(isOperational()) : 
+			"accessing content before object is fully initialized!";
+		if (null == flatTree)
+			flatTree = FlatBSPTree.of(rootnode);
+		return flatTree;
+	}
+	/**
+	 * Sets the tree of BSPnodes in flat form, the rootnode
+	 * is built from it if somebody asks for it.
+	 * @param flatTree the flat tree to set
+	 */
+	void setFlatTree(FlatBSPTree flatTree) {
+		this.flatTree = flatTree;
+		rootnode = null;
 	}
 	/**
 	 * Tells if given (x,y) position is valid, i.e. within legal range of values
@@ -209,6 +239,28 @@ public class MazeContainer implements Maze {
 			"accessing content before object is fully initialized!";
 		return floorplan.hasWall(x, y, dir) ;
 	}
+	/**
+	 * Tells if position (x,y) is the exit position.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return true if (x,y) is the exit position, false otherwise
+	 */
+	public boolean isExitPosition(int x, int y) {
+		assert(isOperational()) : 
+			"accessing content before object is fully initialized!";
+		return floorplan.isExitPosition(x, y) ;
+	}
+	/**
+	 * Tells if position (x,y) is inside a room.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return true if (x,y) is in a room, false otherwise
+	 */
+	public boolean isInRoom(int x, int y) {
+		assert(isOperational()) : 
+			"accessing content before object is fully initialized!";
+		return floorplan.isInRoom(x, y) ;
+	}
 
 	/**
 	 * Gives a (x',y') neighbor for given (x,y) that is closer to exit
@@ -278,6 +330,18 @@ public class MazeContainer implements Maze {
 		start[0] = x ;
 		start[1] = y ;
 	}
+	/**
+	 * Gives an immutable view of this maze, see {@link FrozenMaze}.
+	 * The wallboards and distances are copied into flat arrays,
+	 * the BSP tree is shared.
+	 * @return frozen view of the maze
+	 */
+	@Override
+	public Maze freeze() {
+		assert(isOperational()) : 
+			"accessing content before object is fully initialized!";
+		return new FrozenMaze(this);
+	}
 	/**
 	 * Checks if object is fully initialized and in a valid state.
 	 * The object creation relies on a sequence of set methods being called,
@@ -285,6 +349,18 @@ public class MazeContainer implements Maze {
 	 * @return true if all instance variables initialized with set-methods,
 	 * 			false otherwise
 	 */
+	/**
+	 * Releases the memory mapped files of the floorplan and the distances
+	 * if they are kept outside of the heap. Has no effect for a maze on the heap.
+	 * The maze must not be used afterwards. Calling close again has no effect.
+	 */
+	@Override
+	public void close() {
+		if (null != floorplan)
+			floorplan.close();
+		if (null != mazedists)
+			mazedists.close();
+	}
 	private boolean isOperational() {
 		if (fullyInitialized) {
 			return true; // was checked before
@@ -299,7 +375,7 @@ public class MazeContainer implements Maze {
 			return false;
 		}
 		// check existence of cells, distances, bsp tree and starting position
-		if (null == floorplan || null == mazedists || null == rootnode || null == start)
+		if (null == floorplan || null == mazedists || (null == rootnode && null == flatTree) || null == start)
 			return false;
 		// the starting position must be 
 		fullyInitialized = true;
@@ -1,101 +1,456 @@
 package generation;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gui.Constants;
 
 /**
- * This class encapsulates how a maze is generated. 
- * It takes orders to produce a maze, delegates it to the matching maze builder 
- * that computes and delivers the maze. This class operates the worker thread
+ * This class encapsulates how a maze is generated.
+ * It takes orders to produce a maze, delegates it to the matching maze builder
+ * that computes and delivers the maze. This class operates the worker threads
  * to do the computation in the background. The maze builder classes contribute
- * a run method to execute on the worker thread.
+ * a run method to execute on a worker thread.
+ *
+ * Builds run on a pool of worker threads that are reused between orders.
+ * The default factory has a single worker and takes one order at a time,
+ * it refuses orders while it is busy. A pooled factory, see {@link #MazeFactory(int, int)},
+ * builds several orders in parallel and queues a bounded number of further orders,
+ * which suits tools that generate many mazes. A factory that runs each order
+ * on a thread of its own, see {@link #withVirtualThreads(int)}, can have a very large
+ * number of orders in progress if the runtime has virtual threads.
+ *
+ * Besides the deliver and updateProgress callbacks of the order,
+ * {@link #submit(Order)} and {@link #orderAll(List)} give a CompletableFuture
+ * for each order that completes with the delivered maze.
+ * Cancelling such a future stops the build of its order, {@link #cancel()}
+ * stops all orders of the factory.
+ *
+ * With a {@link MazeCache}, see {@link #setCache(MazeCache)}, an order for a maze
+ * that was generated before is served from the cache without running its builder.
+ *
+ * With a storage directory, see {@link #setStorageDirectory(Path)}, the floorplan and
+ * the distances of mazes are kept in memory mapped files outside of the heap.
+ *
+ * Large perfect mazes can be generated tile by tile with {@link MazeBuilderTiled},
+ * see {@link #setTilingThreshold(int)}. This is off unless the system property
+ * {@value #TILING_PROPERTY} gives a threshold.
  */
 public class MazeFactory implements Factory {
-	// factory keeps track of the current order, takes at most one order at a time
-	private Order currentOrder;
-	// factory has a MazeBuilder to do the work
-	// note that subclasses are instantiated for specific algorithms such as Prim's
-	// according to the given order
-	private MazeBuilder builder;
-	// 
-	private Thread buildThread; // computations are performed in own separated thread with this.run()
-	
+	/**
+	 * System property with the default for {@link #setTilingThreshold(int)},
+	 * the number of cells from which on a perfect maze is generated tile by tile.
+	 */
+	public static final String TILING_PROPERTY = "maze.tiling.threshold";
+	// numbers the worker threads of all factories for their names
+	private static final AtomicInteger WORKERS = new AtomicInteger();
+	// idle workers terminate after this time, so an unused factory does not hold on to threads
+	private static final long KEEP_ALIVE_SECONDS = 5;
+
+	private final ExecutorService pool; // worker threads that run the builders
+	private final Semaphore capacity; // one permit per order that may be running or waiting
+	// futures of orders that are not completed yet
+	private final Set<CompletableFuture<Maze>> pending = ConcurrentHashMap.newKeySet();
+	private volatile MazeCache cache; // serves repeated orders, null if there is none
+	private volatile Path storageDirectory; // holds memory mapped files of the mazes, null for the heap
+	// perfect mazes with at least this many cells are generated tile by tile
+	private volatile int tilingThreshold = Integer.getInteger(TILING_PROPERTY, Integer.MAX_VALUE);
+
 	//////////////////////// Constructor ////////////////////////////////////////
 	/**
-	 * Constructor for a randomized maze generation
+	 * Constructor for a randomized maze generation that takes
+	 * one order at a time.
 	 */
 	public MazeFactory(){
-		// nothing to do
+		this(1, 0);
+	}
+	/**
+	 * Constructor for a factory that builds several orders in parallel.
+	 * Orders beyond the given parallelism wait in a queue,
+	 * orders beyond the capacity of the queue are refused by {@link #order(Order)}
+	 * and {@link #submit(Order)} and make {@link #orderAll(List)} wait.
+	 * @param parallelism maximum number of orders that are built at the same time, {@code 0 < parallelism}
+	 * @param queueCapacity maximum number of orders that wait for a worker, {@code 0 <= queueCapacity}
+	 */
+	public MazeFactory(int parallelism, int queueCapacity) {
+		this(createPool(parallelism), parallelism + queueCapacity);
+		assert 0 < parallelism && 0 <= queueCapacity : "MazeFactory: illegal parallelism or queue capacity";
+	}
+	/**
+	 * Constructor
+	 * @param pool runs the builders
+	 * @param capacity maximum number of orders that are running or waiting
+	 */
+	private MazeFactory(ExecutorService pool, int capacity) {
+		this.pool = pool;
+		this.capacity = new Semaphore(capacity);
+	}
+	/**
+	 * Creates a factory that runs each order on a thread of its own,
+	 * a virtual thread if the Java runtime supports them, see {@link VirtualThreads}.
+	 * Orders beyond the given number are refused by {@link #order(Order)}
+	 * and {@link #submit(Order)} and make {@link #orderAll(List)} wait.
+	 * The number of carrier threads is set with {@link VirtualThreads#setSchedulerParallelism(int)}.
+	 * @param maxOrders maximum number of orders in progress, {@code 0 < maxOrders}
+	 * @return the factory
+	 */
+	public static MazeFactory withVirtualThreads(int maxOrders) {
+		assert 0 < maxOrders : "MazeFactory: illegal number of orders";
+		return new MazeFactory(VirtualThreads.newThreadPerTaskExecutor("MazeFactory-virtual-"), maxOrders);
+	}
+	/**
+	 * Creates the pool of platform threads.
+	 * @param parallelism number of worker threads
+	 * @return the pool
+	 */
+	private static ExecutorService createPool(int parallelism) {
+		// the queue itself is unbounded, the backlog is limited by the capacity semaphore:
+		// an order takes a permit before it is queued and returns it when its future completes,
+		// so at most parallelism plus queue capacity orders are running or waiting
+		final ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new WorkerFactory());
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
 	}
-	
+
 	//////////////////////// Factory interface //////////////////////////////////
 	@Override
 	public boolean order(Order order) {
-		// check if factory is busy
-		if (null != buildThread && buildThread.isAlive()) {
-			// order is currently processed, don't queue, just refuse
-			System.out.println("MazeFactory.order: refusing to take order, too busy with current order");
-			return false;
-		}
-		// idle, so accept order
-		currentOrder = order;
-		// set builder according to order
-		switch (order.getBuilder()) {
-		case DFS :
-			builder = new MazeBuilder();
-			buildOrder();
-			break;
-		case Prim:
-			builder = new MazeBuilderPrim();
-			buildOrder();
-			break;
-		case Kruskal:
-			builder = new MazeBuilderKruskal();
-			buildOrder();
-			break;
-		default:
-			System.out.println("MazeFactory.order: missing implementation for requested algorithm: " + order.getBuilder());
-			return false;
-		}
-		return true ;
+		return null != tryEnqueue(order);
 	}
+	/**
+	 * Cancels all orders that are not completed yet, running ones as well
+	 * as the ones that wait in the queue. Their mazes are not delivered.
+	 */
 	@Override
 	public void cancel() {
 		System.out.println("MazeFactory.cancel: called");
-		if (null != buildThread) {
-			buildThread.interrupt() ;
-			buildThread = null; // allow for next order to get through
+		if (pending.isEmpty()) {
+			System.out.println("MazeFactory.cancel: no order to cancel");
 		}
-		else {
-			System.out.println("MazeFactory.cancel: no thread to cancel");
+		// clean up happens in interrupt handling in run method of the builder
+		for (CompletableFuture<Maze> result : new ArrayList<CompletableFuture<Maze>>(pending)) {
+			result.cancel(true);
 		}
-		// clean up happens in interrupt handling in run method
-		builder = null;
-		currentOrder = null;
 	}
+	/**
+	 * Waits till all orders that were taken so far are delivered, cancelled or failed.
+	 */
 	@Override
 	public void waitTillDelivered() {
-		if (null != buildThread) {
+		if (pending.isEmpty()) {
+			System.out.println("MazeBuilder.waitTillDelivered: no order to wait for");
+			return;
+		}
+		for (CompletableFuture<Maze> result : new ArrayList<CompletableFuture<Maze>>(pending)) {
 			try {
-				buildThread.join();
-			} catch (Exception e) { 
-				System.out.println("MazeBuilder.wailTillDelivered: join synchronization with builder thread lead to an exception") ;
+				result.join();
+			} catch (CancellationException | CompletionException e) {
+				System.out.println("MazeBuilder.waitTillDelivered: order was not delivered: " + e) ;
 			}
 		}
-		else {
-			System.out.println("MazeBuilder.waitTillDelivered: no thread to wait for");
+	}
+
+	//////////////////////// future based interface /////////////////////////////
+	/**
+	 * Takes an order like {@link #order(Order)} and gives a future for its maze.
+	 * The order's deliver method is called before the future completes.
+	 * Cancelling the future cancels the order.
+	 * @param order specifies what kind of maze is wanted
+	 * @return future that completes with the maze, it is completed exceptionally
+	 * with a RejectedExecutionException right away if the order is refused
+	 */
+	public CompletableFuture<Maze> submit(Order order) {
+		final CompletableFuture<Maze> result = tryEnqueue(order);
+		return (null != result) ? result :
+			CompletableFuture.failedFuture(new RejectedExecutionException("MazeFactory: order refused"));
+	}
+	/**
+	 * Takes all given orders, waits for room in the queue if necessary.
+	 * Each order's deliver method is called before its future completes.
+	 * @param orders specify the mazes that are wanted
+	 * @return futures for the mazes in the order of the given list, a future
+	 * is completed exceptionally with a RejectedExecutionException if there
+	 * is no builder for its order
+	 * @throws InterruptedException if the calling thread is interrupted while it
+	 * waits for room in the queue, orders that were taken until then are still built
+	 */
+	public List<CompletableFuture<Maze>> orderAll(List<? extends Order> orders) throws InterruptedException {
+		final List<CompletableFuture<Maze>> results = new ArrayList<CompletableFuture<Maze>>(orders.size());
+		for (Order order : orders) {
+			final MazeBuilder builder = getBuilderFor(order);
+			if (null == builder) {
+				results.add(CompletableFuture.failedFuture(new RejectedExecutionException("MazeFactory: no builder for " + order.getBuilder())));
+				continue;
+			}
+			capacity.acquire();
+			results.add(enqueue(order, builder));
+		}
+		return results;
+	}
+	/**
+	 * Sets the cache that serves orders for mazes that were generated before.
+	 * Generated mazes are put into the cache after they are delivered.
+	 * @param cache holds generated mazes, null to always run the builder
+	 */
+	public void setCache(MazeCache cache) {
+		this.cache = cache;
+	}
+	/**
+	 * Gives the cache of the factory.
+	 * @return the cache, null if there is none
+	 */
+	public MazeCache getCache() {
+		return cache;
+	}
+	/**
+	 * Makes the builders of subsequent orders keep the floorplan and the distances
+	 * of their mazes in memory mapped files in the given directory, see
+	 * {@link MazeBuilder#setStorageDirectory(Path)}. This is meant for mazes that are
+	 * too large for the heap. Whoever receives such a maze must call
+	 * {@link MazeContainer#close()} on it to remove its files.
+	 * Mazes in mapped files are not cached, the cache keeps mazes on the heap.
+	 * @param directory for the files, must exist, null to keep mazes on the heap
+	 */
+	public void setStorageDirectory(Path directory) {
+		this.storageDirectory = directory;
+	}
+	/**
+	 * Gives the directory for the memory mapped files of mazes.
+	 * @return the directory, null if mazes are kept on the heap
+	 */
+	public Path getStorageDirectory() {
+		return storageDirectory;
+	}
+	/**
+	 * Sets the size from which on perfect mazes are generated tile by tile
+	 * in the common fork join pool, see {@link MazeBuilderTiled}.
+	 * This applies to the DFS, Prim, Kruskal and Eller algorithms, the other
+	 * ones are parallel already. A tiled maze is not the same as the untiled maze
+	 * for the same seed, its tiles meet at straight seams with a single opening each.
+	 * Tiling only pays off with several cores, the speedup on machines with many
+	 * cores has not been measured yet, see TiledBuilderBenchmark in the tests.
+	 * Tiled mazes are not cached as the cache does not tell them apart from untiled ones.
+	 * @param minCells number of cells, width times height, from which on mazes are tiled,
+	 * {@code Integer.MAX_VALUE} to never tile
+	 */
+	public void setTilingThreshold(int minCells) {
+		assert 0 < minCells : "MazeFactory: illegal tiling threshold";
+		this.tilingThreshold = minCells;
+	}
+	/**
+	 * Gives the size from which on perfect mazes are generated tile by tile.
+	 * @return number of cells, {@code Integer.MAX_VALUE} if mazes are never tiled
+	 */
+	public int getTilingThreshold() {
+		return tilingThreshold;
+	}
+	/**
+	 * Stops the worker threads once all orders are completed.
+	 * The factory does not take orders afterwards.
+	 * Idle workers also stop on their own after a few seconds,
+	 * so calling this is optional.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Creates a new maze builder for the given algorithm.
+	 * @param algorithm the generation algorithm
+	 * @return a new builder or null if there is no implementation for the algorithm
+	 */
+	static MazeBuilder createBuilder(Order.Builder algorithm) {
+		switch (algorithm) {
+		case DFS :
+			return new MazeBuilder();
+		case Prim:
+			return new MazeBuilderPrim();
+		case Kruskal:
+			return new MazeBuilderKruskal();
+		case Eller:
+			return new MazeBuilderEller();
+		case Boruvka:
+			return new MazeBuilderBoruvka();
+		case RecursiveDivision:
+			return new MazeBuilderRecursiveDivision();
+		default:
+			return null;
 		}
-		builder = null;
-		currentOrder = null;
 	}
 	///////////////////////// private methods ///////////////////////////////////
 	/**
-	 * Provide the builder with necessary input and start its execution
+	 * Puts the order into the queue of the pool if there is room.
+	 * @param order specifies what kind of maze is wanted
+	 * @return future for the maze, null if the order is refused
 	 */
-	private void buildOrder() { 
+	private CompletableFuture<Maze> tryEnqueue(Order order) {
+		final MazeBuilder builder = getBuilderFor(order);
 		if (null == builder)
+			return null;
+		if (!capacity.tryAcquire()) {
+			// don't queue beyond capacity, just refuse
+			System.out.println("MazeFactory.order: refusing to take order, too busy with current order");
+			return null;
+		}
+		return enqueue(order, builder);
+	}
+	/**
+	 * Creates the builder for the order, a tiled one if the order
+	 * is for a perfect maze that is at least as large as the tiling threshold.
+	 * The builder uses the storage directory of the factory.
+	 * @param order specifies what kind of maze is wanted
+	 * @return a new builder or null if there is no implementation for the algorithm of the order
+	 */
+	private MazeBuilder getBuilderFor(Order order) {
+		final int skill = order.getSkillLevel();
+		final MazeBuilder builder;
+		if (order.isPerfect() && MazeBuilderTiled.isTileAlgorithm(order.getBuilder())
+				&& Constants.SKILL_X[skill]*Constants.SKILL_Y[skill] >= tilingThreshold)
+			builder = new MazeBuilderTiled(order.getBuilder());
+		else
+			builder = createBuilder(order.getBuilder());
+		if (null == builder) {
+			System.out.println("MazeFactory.order: missing implementation for requested algorithm: " + order.getBuilder());
+			return null;
+		}
+		builder.setStorageDirectory(storageDirectory);
+		return builder;
+	}
+	/**
+	 * Puts the order into the queue of the pool, the caller
+	 * must have acquired a permit of the capacity for it.
+	 * @param order specifies what kind of maze is wanted
+	 * @param builder builds the maze
+	 * @return future for the maze
+	 */
+	private CompletableFuture<Maze> enqueue(Order order, MazeBuilder builder) {
+		final CompletableFuture<Maze> result = new CompletableFuture<Maze>();
+		// the key of a cached maze does not say if it is tiled, a maze from the cache is on the heap
+		// and a mapped maze would be encoded into a byte array on the heap for the cache
+		final MazeCache cache = (builder instanceof MazeBuilderTiled || null != builder.getStorageDirectory())
+				? null : this.cache;
+		final FutureTask<Void> task = new FutureTask<Void>(() -> build(builder, order, result, cache), null);
+		pending.add(result);
+		result.whenComplete((maze, e) -> {
+			// a cancelled order is removed from the queue or its worker is interrupted
+			if (result.isCancelled())
+				task.cancel(true);
+			pending.remove(result);
+			capacity.release();
+		});
+		try {
+			pool.execute(task);
+		} catch (RejectedExecutionException e) {
+			// factory was shut down
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+	/**
+	 * Builds the maze on a worker thread and completes the future.
+	 * A maze from the cache is delivered without running the builder.
+	 * @param builder the builder for the order
+	 * @param order specifies what kind of maze is wanted
+	 * @param result completes with the maze
+	 * @param cache serves and takes the maze, can be null
+	 */
+	private static void build(MazeBuilder builder, Order order, CompletableFuture<Maze> result, MazeCache cache) {
+		if (result.isDone())
+			return; // cancelled while it waited
+		final Maze cached = (null != cache) ? cache.get(order) : null;
+		if (null != cached) {
+			System.out.println("MazeFactory.buildOrder: delivered from cache") ;
+			order.updateProgress(100); // same as a builder upon delivery
+			new DeliveringOrder(order, result, null).deliver(cached);
 			return;
+		}
 		System.out.println("MazeFactory.buildOrder: started") ;
-		builder.buildOrder(currentOrder);
-		buildThread = new Thread(builder);
-		buildThread.start();
+		try {
+			builder.buildOrder(new DeliveringOrder(order, result, cache));
+			builder.run();
+		} catch (RuntimeException | Error e) {
+			System.out.println("MazeFactory.buildOrder: failed with " + e);
+			result.completeExceptionally(e);
+		}
+		// the builder returns without delivery if it is interrupted
+		if (!result.isDone())
+			result.completeExceptionally(new CancellationException("MazeFactory: build was interrupted"));
+	}
+	/**
+	 * Passes everything on to the order and completes the future
+	 * after the order received the maze. The maze is encoded for the cache
+	 * before the order can change it and stored after the delivery,
+	 * the future completes once it is stored.
+	 */
+	private static final class DeliveringOrder implements Order {
+		private final Order order;
+		private final CompletableFuture<Maze> result;
+		private final MazeCache cache; // takes the maze, can be null
+
+		DeliveringOrder(Order order, CompletableFuture<Maze> result, MazeCache cache) {
+			this.order = order;
+			this.result = result;
+			this.cache = cache;
+		}
+		@Override
+		public int getSkillLevel() {
+			return order.getSkillLevel();
+		}
+		@Override
+		public Builder getBuilder() {
+			return order.getBuilder();
+		}
+		@Override
+		public boolean isPerfect() {
+			return order.isPerfect();
+		}
+		@Override
+		public int getSeed() {
+			return order.getSeed();
+		}
+		@Override
+		public MazeRandom createRandom() {
+			return order.createRandom();
+		}
+		@Override
+		public void deliver(Maze mazeConfig) {
+			final byte[] data = (null != cache) ? MazeCache.encode(mazeConfig) : null;
+			order.deliver(mazeConfig);
+			if (null != data)
+				cache.put(order, data);
+			result.complete(mazeConfig);
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			order.updateProgress(percentage);
+		}
+	}
+	/**
+	 * Creates daemon threads for the workers such that
+	 * they never keep the program from exiting.
+	 */
+	private static final class WorkerFactory implements ThreadFactory {
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "MazeFactory-worker-" + WORKERS.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
 	}
 }
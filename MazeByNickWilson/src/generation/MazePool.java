@@ -0,0 +1,177 @@
+package generation;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a few mazes ready to play for each combination of skill level,
+ * builder and perfect, such that a game can start without waiting for
+ * the generation of its maze. This is meant for orders without an explicit
+ * seed, the mazes of the pool have random seeds.
+ *
+ * A kind of maze is added to the pool with {@link #warmUp(int, Order.Builder, boolean)}
+ * or with the first {@link #take(int, Order.Builder, boolean)}, the pool then generates
+ * mazes in the background until it has {@code mazesPerKind} of them. Each take starts
+ * the generation of a replacement. Background generation uses all but one of
+ * the processors such that the game stays responsive.
+ *
+ * The mazes that are ready or in progress must fit into a memory cap,
+ * the size of a maze is estimated from its number of cells, see {@link #estimateBytes(int)}.
+ * If the cap is reached, kinds are not refilled until mazes are taken.
+ *
+ * All methods are thread safe.
+ */
+public class MazePool {
+	/**
+	 * Rough estimate of the heap that a maze takes per cell, including
+	 * the floorplan, the distances, the walls and the BSP tree.
+	 */
+	static final long ESTIMATED_BYTES_PER_CELL = 48;
+
+	private final MazeFactory factory; // generates the mazes in the background
+	private final int mazesPerKind; // number of mazes to keep ready for each kind
+	private final long memoryCap; // maximum estimated bytes of mazes that are ready or in progress
+	private long bytes; // estimated bytes of mazes that are ready or in progress
+	// ready mazes and number of mazes in progress for each kind, see key(int, Order.Builder, boolean)
+	private final HashMap<Integer, ArrayDeque<Maze>> ready = new HashMap<Integer, ArrayDeque<Maze>>();
+	private final HashMap<Integer, Integer> inProgress = new HashMap<Integer, Integer>();
+	private boolean shutdown;
+
+	/**
+	 * Constructor for a pool that generates mazes on all but one of the processors
+	 * and may use a quarter of the maximum heap.
+	 * @param mazesPerKind number of mazes to keep ready for each kind, {@code 0 < mazesPerKind}
+	 */
+	public MazePool(int mazesPerKind) {
+		this(mazesPerKind, Runtime.getRuntime().maxMemory()/4);
+	}
+	/**
+	 * Constructor for a pool that generates mazes on all but one of the processors.
+	 * @param mazesPerKind number of mazes to keep ready for each kind, {@code 0 < mazesPerKind}
+	 * @param memoryCap maximum estimated bytes of mazes that are ready or in progress
+	 */
+	public MazePool(int mazesPerKind, long memoryCap) {
+		this(new MazeFactory(Math.max(1, Runtime.getRuntime().availableProcessors()-1), Integer.MAX_VALUE/2),
+				mazesPerKind, memoryCap);
+	}
+	/**
+	 * Constructor
+	 * @param factory generates the mazes, should have a queue that is large enough
+	 * for the mazes of all kinds
+	 * @param mazesPerKind number of mazes to keep ready for each kind, {@code 0 < mazesPerKind}
+	 * @param memoryCap maximum estimated bytes of mazes that are ready or in progress
+	 */
+	public MazePool(MazeFactory factory, int mazesPerKind, long memoryCap) {
+		assert 0 < mazesPerKind : "MazePool: mazesPerKind must be positive";
+		this.factory = factory;
+		this.mazesPerKind = mazesPerKind;
+		this.memoryCap = memoryCap;
+	}
+	/**
+	 * Gives a ready maze of the given kind if there is one and starts the generation
+	 * of a replacement. If there is none, the kind is added to the pool such that
+	 * later calls can be served.
+	 * @param skillLevel size of the maze, {@code 0 <= skillLevel}
+	 * @param builder algorithm that generates the maze
+	 * @param perfect true for a maze without rooms
+	 * @return the maze, null if no maze of this kind is ready
+	 */
+	public synchronized Maze take(int skillLevel, Order.Builder builder, boolean perfect) {
+		final int key = key(skillLevel, builder, perfect);
+		final ArrayDeque<Maze> mazes = ready.get(key);
+		final Maze maze = (null != mazes) ? mazes.poll() : null;
+		if (null != maze)
+			bytes -= estimateBytes(skillLevel);
+		refill(skillLevel, builder, perfect);
+		return maze;
+	}
+	/**
+	 * Adds the kind to the pool and starts generating mazes of this kind.
+	 * @param skillLevel size of the maze, {@code 0 <= skillLevel}
+	 * @param builder algorithm that generates the maze
+	 * @param perfect true for a maze without rooms
+	 */
+	public synchronized void warmUp(int skillLevel, Order.Builder builder, boolean perfect) {
+		refill(skillLevel, builder, perfect);
+	}
+	/**
+	 * Gives the number of mazes of the given kind that are ready.
+	 * @param skillLevel size of the maze, {@code 0 <= skillLevel}
+	 * @param builder algorithm that generates the maze
+	 * @param perfect true for a maze without rooms
+	 * @return number of ready mazes
+	 */
+	public synchronized int getReadyCount(int skillLevel, Order.Builder builder, boolean perfect) {
+		final ArrayDeque<Maze> mazes = ready.get(key(skillLevel, builder, perfect));
+		return (null != mazes) ? mazes.size() : 0;
+	}
+	/**
+	 * Stops the generation of mazes and drops all ready mazes.
+	 * The pool does not generate mazes afterwards.
+	 */
+	public synchronized void shutdown() {
+		shutdown = true;
+		factory.cancel();
+		factory.shutdown();
+		ready.clear();
+		bytes = 0;
+	}
+	/**
+	 * Estimates the heap that a maze of the given skill level takes.
+	 * @param skillLevel size of the maze, {@code 0 <= skillLevel}
+	 * @return estimated bytes
+	 */
+	static long estimateBytes(int skillLevel) {
+		return ESTIMATED_BYTES_PER_CELL*gui.Constants.SKILL_X[skillLevel]*gui.Constants.SKILL_Y[skillLevel];
+	}
+	/**
+	 * Starts the generation of mazes until the kind has enough mazes
+	 * that are ready or in progress or the memory cap is reached.
+	 * Caller must hold the lock.
+	 * @param skillLevel size of the maze, {@code 0 <= skillLevel}
+	 * @param builder algorithm that generates the maze
+	 * @param perfect true for a maze without rooms
+	 */
+	private void refill(int skillLevel, Order.Builder builder, boolean perfect) {
+		final int key = key(skillLevel, builder, perfect);
+		ready.computeIfAbsent(key, k -> new ArrayDeque<Maze>());
+		final long size = estimateBytes(skillLevel);
+		while (!shutdown && ready.get(key).size() + inProgress.getOrDefault(key, 0) < mazesPerKind
+				&& bytes + size <= memoryCap) {
+			final StubOrder order = new StubOrder(skillLevel, builder, perfect, ThreadLocalRandom.current().nextInt());
+			final CompletableFuture<Maze> result = factory.submit(order);
+			if (result.isCompletedExceptionally())
+				return; // factory refused, try again with the next take
+			bytes += size;
+			inProgress.merge(key, 1, Integer::sum);
+			result.whenComplete((maze, e) -> delivered(key, size, maze));
+		}
+	}
+	/**
+	 * Puts a generated maze into the pool.
+	 * @param key of the kind
+	 * @param size estimated bytes of the maze
+	 * @param maze the maze, null if generation failed or was cancelled
+	 */
+	private synchronized void delivered(int key, long size, Maze maze) {
+		inProgress.merge(key, -1, Integer::sum);
+		if (null == maze || shutdown) {
+			if (!shutdown)
+				bytes -= size;
+			return;
+		}
+		ready.get(key).add(maze);
+	}
+	/**
+	 * Gives a key for a kind of maze.
+	 * @param skillLevel size of the maze, {@code 0 <= skillLevel}
+	 * @param builder algorithm that generates the maze
+	 * @param perfect true for a maze without rooms
+	 * @return key
+	 */
+	private static int key(int skillLevel, Order.Builder builder, boolean perfect) {
+		return (skillLevel << 8) | (builder.ordinal() << 1) | (perfect ? 1 : 0);
+	}
+}
@@ -0,0 +1,75 @@
+package generation;
+
+import java.util.SplittableRandom;
+
+/**
+ * A random number generator for the generation of a single maze.
+ * Each order gets a generator of its own, see {@link Order#createRandom()},
+ * so several mazes can be built at the same time and each one is still
+ * reproducible from the seed of its order. In contrast to {@link SingleRandom}
+ * there is no shared instance, no lock and no compare-and-set on each call,
+ * an instance must not be used by more than one thread at a time.
+ *
+ * The generator is a {@link SplittableRandom}, bounded values are
+ * unbiased. A parallel phase of a builder obtains independent,
+ * reproducible generators for its tasks with {@link #split()}
+ * or from a seed with {@link #MazeRandom(long)}.
+ */
+public final class MazeRandom {
+	// directions in the order of their ordinals, see nextDirection()
+	private static final CardinalDirection[] DIRECTIONS = CardinalDirection.values();
+
+	private final SplittableRandom generator;
+
+	/**
+	 * Constructor
+	 * @param seed is the seed value for the random number generator
+	 */
+	public MazeRandom(long seed) {
+		this(new SplittableRandom(seed));
+	}
+	/**
+	 * Constructor for a generator that is split off another one.
+	 * @param generator delivers the random numbers
+	 */
+	private MazeRandom(SplittableRandom generator) {
+		this.generator = generator;
+	}
+	/**
+	 * Delivers a random number.
+	 * @return random integer value
+	 */
+	public int nextInt() {
+		return generator.nextInt();
+	}
+	/**
+	 * Generate an integer random number in interval [lowerBound,upperBound]
+	 * @param lowerBound for the interval of values (inclusive)
+	 * @param upperBound for the interval of values (inclusive, WARNING: unusual)
+	 * @return random number within given range
+	 */
+	public int nextIntWithinInterval(final int lowerBound, final int upperBound) {
+		assert(lowerBound <= upperBound) : "parameter error, lowerbound " + lowerBound + "> upper bound" + upperBound ;
+		// nextInt(origin, bound) excludes the bound, which overflows for upperBound == Integer.MAX_VALUE
+		if (upperBound < Integer.MAX_VALUE)
+			return generator.nextInt(lowerBound, upperBound + 1);
+		return (int)(lowerBound + generator.nextLong((long)upperBound - lowerBound + 1));
+	}
+	/**
+	 * Gives a random direction. Values are picked with equal probabilities,
+	 * uses the same random number as {@code nextIntWithinInterval(0, 3)}.
+	 * @return a random direction, distribution is uniform
+	 */
+	public CardinalDirection nextDirection() {
+		return DIRECTIONS[nextIntWithinInterval(0, 3)];
+	}
+	/**
+	 * Gives a new generator whose numbers are independent of the numbers
+	 * of this one, for a task that runs in parallel. Splitting the same
+	 * generator in the same order gives the same generators.
+	 * @return new generator
+	 */
+	public MazeRandom split() {
+		return new MazeRandom(generator.split());
+	}
+}
@@ -23,10 +23,10 @@ public interface Order {
 	Builder getBuilder() ;
 	/**
 	 * Lists all maze generation algorithms that are supported
-	 * by the maze factory (Eller needs to be implemented for P2)
+	 * by the maze factory
 	 *
 	 */
-	enum Builder { DFS, Prim, Kruskal, Eller } ;
+	enum Builder { DFS, Prim, Kruskal, Eller, Boruvka, RecursiveDivision } ;
 	/**
 	 * Describes if the ordered maze should be perfect, i.e. there are 
 	 * no loops and no isolated areas, which also implies that 
@@ -58,4 +58,13 @@ public interface Order {
 	 * @param percentage of job completion
 	 */
 	void updateProgress(int percentage) ;
+	/**
+	 * Gives a new random number generator for the generation of the ordered maze,
+	 * seeded with {@link #getSeed()}. Each call gives a generator of its own, so
+	 * orders can be built in parallel and each maze only depends on its seed.
+	 * @return new random number generator
+	 */
+	default MazeRandom createRandom() {
+		return new MazeRandom(getSeed());
+	}
 }
@@ -0,0 +1,100 @@
+package generation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Passes the progress of a build on to its order without holding up the build.
+ * A builder reports progress as often as it likes with {@link #report(int)},
+ * the channel forwards at most one update per interval and calls
+ * {@link Order#updateProgress(int)} on a publisher thread of its own, so a slow
+ * redraw of the progress bar does not slow down the build. If the publisher
+ * is behind, only the most recent percentage is forwarded.
+ *
+ * Builds do not sleep to give other threads a chance or to notice a cancellation.
+ * A cancellation interrupts the thread of the build, see {@link MazeFactory#cancel()},
+ * and the builder polls for it with {@link #checkCancelled()}.
+ *
+ * Several threads of a build may report to the same channel, {@link #close()} stops it
+ * such that the order gets no further updates, e.g. after it got its maze.
+ */
+final class ProgressChannel {
+	/**
+	 * Minimum time between two updates of the order in milliseconds.
+	 */
+	static final long DEFAULT_INTERVAL = 50;
+	// calls updateProgress for all channels, a daemon thread such that it never keeps the program from exiting
+	private static final ExecutorService PUBLISHER = Executors.newSingleThreadExecutor(r -> {
+		final Thread thread = new Thread(r, "MazeFactory-progress");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Order order; // receives the updates, null if nobody listens
+	private final long interval; // minimum time between two updates in nanoseconds
+	private final AtomicLong nextUpdate; // earliest System.nanoTime() for the next update
+	private final AtomicInteger pending = new AtomicInteger(-1); // percentage to publish, -1 if there is none
+	private boolean closed; // guarded by this, true once the order must not get further updates
+
+	/**
+	 * Constructor for a channel that updates the order at most every {@value #DEFAULT_INTERVAL} milliseconds.
+	 * @param order receives the updates, null for a build without a listener
+	 */
+	ProgressChannel(Order order) {
+		this(order, DEFAULT_INTERVAL);
+	}
+	/**
+	 * Constructor
+	 * @param order receives the updates, null for a build without a listener
+	 * @param interval minimum time between two updates in milliseconds, {@code 0 <= interval}
+	 */
+	ProgressChannel(Order order, long interval) {
+		this.order = order;
+		this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+		this.nextUpdate = new AtomicLong(System.nanoTime());
+	}
+	/**
+	 * Reports the progress of the build. The order gets the percentage
+	 * later on another thread, or not at all if the previous update
+	 * was less than an interval ago. Returns right away.
+	 * @param percentage progress of the build, {@code 0 <= percentage <= 100}
+	 */
+	void report(int percentage) {
+		if (null == order)
+			return;
+		final long now = System.nanoTime();
+		final long next = nextUpdate.get();
+		if (now - next < 0 || !nextUpdate.compareAndSet(next, now + interval))
+			return; // too early or another thread reports at the same time, drop it
+		if (pending.getAndSet(percentage) < 0)
+			PUBLISHER.execute(this::publish); // otherwise the scheduled publish takes the new value
+	}
+	/**
+	 * Stops all updates. An update that is in progress completes
+	 * before this method returns, updates that are still pending are dropped.
+	 */
+	synchronized void close() {
+		closed = true;
+	}
+	/**
+	 * Throws if the build is cancelled, i.e. if the current thread is interrupted.
+	 * This is cheap enough to be called in the inner loops of a builder.
+	 * The interrupted status of the thread is kept.
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	static void checkCancelled() throws InterruptedException {
+		if (Thread.currentThread().isInterrupted())
+			throw new InterruptedException("ProgressChannel: build is cancelled");
+	}
+	/**
+	 * Forwards the pending percentage to the order, runs on the publisher thread.
+	 */
+	private synchronized void publish() {
+		final int percentage = pending.getAndSet(-1);
+		if (!closed && 0 <= percentage)
+			order.updateProgress(percentage);
+	}
+}
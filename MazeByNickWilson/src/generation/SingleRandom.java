@@ -78,4 +78,20 @@ public final class SingleRandom {
 		theSeed = seed;
 		validSeed = true;
 	}
+	/**
+	 * Delivers a random value that only depends on a seed and a counter,
+	 * such that tasks can obtain random values for their part of the work
+	 * in any order without sharing a generator.
+	 * Mixes the bits of seed and counter with the finalizer of SplitMix64,
+	 * so consecutive counters give unrelated values.
+	 * @param seed is a value drawn from a generator
+	 * @param counter identifies the value, e.g. the index of a tile or an edge
+	 * @return random integer value
+	 */
+	static int hash(long seed, int counter) {
+		long z = seed + (counter + 1L) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return (int)(z ^ (z >>> 31));
+	}
 }
@@ -0,0 +1,135 @@
+package generation;
+
+import java.util.List;
+
+import gui.Constants;
+
+/**
+ * Calculates the exact grade of every candidate splitter for a list of walls,
+ * see {@link Wall#calculateGrade(List)} for the grade. The grade counts
+ * the walls on either side of the line through the splitter and the walls
+ * that the line cuts, it is {@code |left - right| + 3 * splits}.
+ *
+ * All walls are either horizontal or vertical. For a vertical line at x,
+ * a wall is on the lower side if its x interval ends at or before x, on the
+ * upper side if it starts at or after x, cut if it contains x in its inside
+ * and on the line if it is a vertical wall at x. So the counts for all
+ * candidates follow from prefix sums over the number of intervals that start
+ * and end at each coordinate, same for horizontal lines and y intervals.
+ * Wall coordinates are on the grid of cell borders, multiples of
+ * {@link Constants#MAP_UNIT}, so the prefix sums have an entry per grid line
+ * that the walls cover. Setting up takes O(n + k) for n walls on k grid lines
+ * and each grade takes O(1), while {@link Wall#calculateGrade(List)} takes
+ * O(n) per candidate and only looks at a sample of the walls for long lists.
+ */
+final class SplitterSelector {
+	private final int size; // number of walls
+	private final Axis xAxis; // intervals of all walls in x, vertical walls are on its lines
+	private final Axis yAxis; // intervals of all walls in y, horizontal walls are on its lines
+
+	/**
+	 * Constructor
+	 * @param walls all walls of a node, remains unchanged
+	 */
+	SplitterSelector(List<Wall> walls) {
+		size = walls.size();
+		int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+		int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+		boolean onGrid = true;
+		for (Wall wall : walls) {
+			minX = Math.min(minX, Math.min(wall.getStartPositionX(), wall.getEndPositionX()));
+			maxX = Math.max(maxX, Math.max(wall.getStartPositionX(), wall.getEndPositionX()));
+			minY = Math.min(minY, Math.min(wall.getStartPositionY(), wall.getEndPositionY()));
+			maxY = Math.max(maxY, Math.max(wall.getStartPositionY(), wall.getEndPositionY()));
+			onGrid &= 0 == (wall.getStartPositionX() | wall.getStartPositionY()
+					| wall.getExtensionX() | wall.getExtensionY()) % Constants.MAP_UNIT;
+		}
+		final int unit = onGrid ? Constants.MAP_UNIT : 1;
+		xAxis = new Axis(minX, maxX, unit);
+		yAxis = new Axis(minY, maxY, unit);
+		for (Wall wall : walls) {
+			final int dx = wall.getExtensionX();
+			final int dy = wall.getExtensionY();
+			xAxis.addInterval(wall.getStartPositionX(), wall.getStartPositionX() + dx);
+			yAxis.addInterval(wall.getStartPositionY(), wall.getStartPositionY() + dy);
+			if (0 == dx)
+				xAxis.addOnLine(wall.getStartPositionX(), 0 < dy);
+			else
+				yAxis.addOnLine(wall.getStartPositionY(), 0 < dx);
+		}
+		xAxis.sum();
+		yAxis.sum();
+	}
+	/**
+	 * Gives the grade of the given splitter for all walls of the node.
+	 * This is the value of {@link Wall#calculateGrade(List)} if it looks at all walls.
+	 * @param splitter a wall of the node
+	 * @return grade, the smaller the better
+	 */
+	int grade(Wall splitter) {
+		final boolean vertical = 0 == splitter.getExtensionX();
+		final Axis axis = vertical ? xAxis : yAxis;
+		final int line = axis.index(vertical ? splitter.getStartPositionX() : splitter.getStartPositionY());
+		// walls on the line with the same direction go to the right, the others to the left
+		final boolean positive = vertical ? (0 < splitter.getExtensionY()) : (0 < splitter.getExtensionX());
+		final int sameOnLine = positive ? axis.positive[line] : axis.negative[line];
+		final int oppositeOnLine = positive ? axis.negative[line] : axis.positive[line];
+		final int onLine = sameOnLine + oppositeOnLine;
+		final int lower = axis.upperAtMost[line] - onLine;
+		final int upper = size - axis.lowerBelow[line] - onLine;
+		final int splits = size - lower - upper - onLine;
+		// Wall.calculateDot is positive on the upper side for walls that point south
+		// and for walls that point west, positive goes to the right
+		final boolean upperIsRight = vertical ? (0 < splitter.getExtensionY()) : (0 > splitter.getExtensionX());
+		final int right = sameOnLine + (upperIsRight ? upper : lower);
+		final int left = oppositeOnLine + (upperIsRight ? lower : upper);
+		return Math.abs(left - right) + splits * 3;
+	}
+	/**
+	 * Counts per grid line of one axis, the grid lines are
+	 * {@code origin + i * unit} for {@code 0 <= i < length}.
+	 */
+	private static final class Axis {
+		private final int origin;
+		private final int unit;
+		// number of intervals whose lower end is below the line, a count per line until sum() is called
+		final int[] lowerBelow;
+		// number of intervals whose upper end is at or below the line, a count per line until sum() is called
+		final int[] upperAtMost;
+		// number of walls on the line that point in the positive and in the negative direction
+		final int[] positive;
+		final int[] negative;
+
+		Axis(int min, int max, int unit) {
+			this.origin = min;
+			this.unit = unit;
+			final int length = (max - min) / unit + 1;
+			lowerBelow = new int[length + 1];
+			upperAtMost = new int[length];
+			positive = new int[length];
+			negative = new int[length];
+		}
+		int index(int coordinate) {
+			return (coordinate - origin) / unit;
+		}
+		void addInterval(int start, int end) {
+			lowerBelow[index(Math.min(start, end)) + 1]++;
+			upperAtMost[index(Math.max(start, end))]++;
+		}
+		void addOnLine(int coordinate, boolean isPositive) {
+			if (isPositive)
+				positive[index(coordinate)]++;
+			else
+				negative[index(coordinate)]++;
+		}
+		/**
+		 * Turns the counts per line into prefix sums.
+		 */
+		void sum() {
+			for (int i = 1; i < upperAtMost.length; i++) {
+				lowerBelow[i] += lowerBelow[i - 1];
+				upperAtMost[i] += upperAtMost[i - 1];
+			}
+		}
+	}
+}
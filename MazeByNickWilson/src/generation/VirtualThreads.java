@@ -0,0 +1,106 @@
+package generation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gives executors that run each task on a thread of its own, a virtual thread
+ * if the Java runtime supports them (Java 21 or later) and a platform thread otherwise.
+ *
+ * The project is set up for a JavaSE-15 runtime, which has no virtual threads,
+ * so there the lookup below always fails and every executor uses daemon platform
+ * threads, see {@link #isSupported()}. Virtual threads are only used if the code
+ * runs on a Java 21 or later runtime. With platform threads, a job that waits
+ * or sleeps keeps its thread, so the number of jobs in progress at the same
+ * time is limited by the number of platform threads the system can afford.
+ * A virtual thread only takes a little heap while it waits, so on Java 21
+ * tens of thousands of such jobs can be in progress on a few carrier threads.
+ *
+ * See {@link MazeFactory#withVirtualThreads(int)} for generation and
+ * {@code gui.RobotSessions} for headless robot sessions, which run without
+ * the waits of the slowed down redraw of a playing robot.
+ *
+ * The code compiles for older Java versions, the virtual thread API is looked up
+ * by reflection.
+ */
+public final class VirtualThreads {
+	/**
+	 * System property that gives the number of carrier threads of
+	 * the scheduler for virtual threads.
+	 */
+	static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+	// creates a factory for virtual threads with a name prefix, null if virtual threads are not supported
+	private static final Method OF_VIRTUAL;
+	private static final Method NAME;
+	private static final Method FACTORY;
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		Method newThreadPerTaskExecutor = null;
+		try {
+			final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class, long.class);
+			factory = builder.getMethod("factory");
+			newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// no virtual threads, executors use platform threads
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	private VirtualThreads() {
+		// only static methods
+	}
+	/**
+	 * Tells if the Java runtime supports virtual threads.
+	 * This is always false on a JavaSE-15 runtime.
+	 * @return true if executors run tasks on virtual threads, false if on platform threads
+	 */
+	public static boolean isSupported() {
+		return null != OF_VIRTUAL;
+	}
+	/**
+	 * Sets the number of carrier threads that run virtual threads.
+	 * This only has an effect before the first virtual thread starts,
+	 * the default is the number of processors.
+	 * @param parallelism number of carrier threads, {@code 0 < parallelism}
+	 */
+	public static void setSchedulerParallelism(int parallelism) {
+		assert 0 < parallelism : "VirtualThreads: parallelism must be positive";
+		System.setProperty(PARALLELISM_PROPERTY, Integer.toString(parallelism));
+	}
+	/**
+	 * Gives an executor that starts a new thread for each task, a virtual thread if supported,
+	 * a daemon platform thread otherwise. The executor does not limit
+	 * the number of tasks that run at the same time.
+	 * @param name prefix for the names of the threads
+	 * @return the executor
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(String name) {
+		if (isSupported()) {
+			try {
+				final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name, 0L);
+				return (ExecutorService)NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, FACTORY.invoke(builder));
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				System.out.println("VirtualThreads: using platform threads, virtual threads are not accessible: " + e);
+			}
+		}
+		final AtomicInteger count = new AtomicInteger();
+		return Executors.newCachedThreadPool(r -> {
+			final Thread thread = new Thread(r, name + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
@@ -0,0 +1,132 @@
+package generation;
+
+/**
+ * A cursor over continuous sequences of wallboards, called runs, along a row
+ * or a column of a floorplan. It delivers the same [start,end] pairs as
+ * {@link Floorplan#iterator(int, int, CardinalDirection)} but through fields
+ * that are reused, so iterating does not allocate anything.
+ * A cursor can be reset to another row or column and direction any number of times.
+ *
+ * Typical use:
+ * <pre>
+ * WallRunCursor runs = new WallRunCursor(floorplan);
+ * for (int y = 0; y &lt; height; y++) {
+ *     runs.reset(0, y, CardinalDirection.North);
+ *     while (runs.next()) {
+ *         // wallboards on the north side of cells runs.getStart() to runs.getEnd()-1
+ *     }
+ * }
+ * </pre>
+ *
+ * For North and South, runs go along row y with increasing x, for East and West
+ * they go along column x with increasing y. A run starts at a cell that has a
+ * wallboard on the given side and ends before the first cell that has none.
+ * A run also ends at a crossing wallboard, i.e. before a cell with a wallboard
+ * on its west side for a row and on its north side for a column.
+ *
+ * On reset, the cursor reads each cell of the line once and packs two bit masks,
+ * one with the cells that have a wallboard on the given side and one with the
+ * cells where a run ends. Runs are then found 64 cells at a time with
+ * {@link Long#numberOfTrailingZeros(long)}.
+ */
+public class WallRunCursor {
+	private final Floorplan floorplan;
+	private long[] walls = new long[0]; // bit i is set if cell i of the line has a wallboard on the side
+	private long[] stops = new long[0]; // bit i is set if a run that reaches cell i ends before it
+	private int length; // number of cells in the line
+	private int position; // cell to continue the search for the next run from
+	private int start; // first cell of the current run
+	private int end; // first cell after the current run
+
+	/**
+	 * Constructor
+	 * @param floorplan provides the wallboards, must not change while a line is processed
+	 */
+	public WallRunCursor(Floorplan floorplan) {
+		this.floorplan = floorplan;
+	}
+	/**
+	 * Positions the cursor before the first run of a row or column.
+	 * @param x coordinate of the first cell to consider
+	 * @param y coordinate of the first cell to consider
+	 * @param cd side of the wallboards, North or South for the row y starting at x,
+	 * East or West for the column x starting at y
+	 */
+	public void reset(int x, int y, CardinalDirection cd) {
+		final boolean horizontal = (CardinalDirection.North == cd || CardinalDirection.South == cd);
+		length = horizontal ? floorplan.getWidth() : floorplan.getHeight();
+		final int words = (length + 63) >>> 6;
+		if (walls.length < words) {
+			walls = new long[words];
+			stops = new long[words];
+		}
+		final int side = Floorplan.getWallBit(cd);
+		// a wallboard that crosses the line at the start of cell i ends a run
+		final int crossing = horizontal ? Floorplan.CW_LEFT : Floorplan.CW_TOP;
+		for (int w = 0; w < words; w++) {
+			long wall = 0;
+			long stop = 0;
+			final int limit = Math.min(64, length - (w << 6));
+			for (int i = 0; i < limit; i++) {
+				final int c = (w << 6) + i;
+				final int value = horizontal ? floorplan.getValueOfCell(c, y) : floorplan.getValueOfCell(x, c);
+				if ((value & side) != 0)
+					wall |= 1L << i;
+				if ((value & side) == 0 || (value & crossing) != 0)
+					stop |= 1L << i;
+			}
+			walls[w] = wall;
+			stops[w] = stop;
+		}
+		position = horizontal ? x : y;
+		start = -1;
+		end = -1;
+	}
+	/**
+	 * Advances to the next run.
+	 * @return true if there is a next run, false if the line has no more runs
+	 */
+	public boolean next() {
+		final int s = nextSetBit(walls, position);
+		if (s == length)
+			return false;
+		start = s;
+		end = nextSetBit(stops, s + 1);
+		position = end;
+		return true;
+	}
+	/**
+	 * Gives the first cell of the current run, a cell with a wallboard on the side.
+	 * @return x coordinate for a row, y coordinate for a column
+	 */
+	public int getStart() {
+		return start;
+	}
+	/**
+	 * Gives the first cell after the current run, may be the width
+	 * or height of the floorplan if the run goes to the end of the line.
+	 * @return x coordinate for a row, y coordinate for a column
+	 */
+	public int getEnd() {
+		return end;
+	}
+	/**
+	 * Finds the first set bit at or after the given position.
+	 * @param bits packed bits of the line
+	 * @param from position to start the search at, {@code 0 <= from}
+	 * @return position of the bit, length of the line if there is none
+	 */
+	private int nextSetBit(long[] bits, int from) {
+		if (from >= length)
+			return length;
+		int w = from >>> 6;
+		long word = bits[w] & (-1L << from);
+		final int words = (length + 63) >>> 6;
+		while (word == 0) {
+			if (++w == words)
+				return length;
+			word = bits[w];
+		}
+		return Math.min(length, (w << 6) + Long.numberOfTrailingZeros(word));
+	}
+}
@@ -291,7 +291,7 @@ public class BasicRobot implements Robot {
 		//Return true if I'm at the exit as determined by the underlying Maze
 		int x = myController.getCurrentPosition()[0];
 		int y = myController.getCurrentPosition()[1];
-		return myController.getMazeConfiguration().getFloorplan().isExitPosition(x, y);
+		return myController.getMazeConfiguration().isExitPosition(x, y);
 	}
 
 	@Override
@@ -299,7 +299,7 @@ public class BasicRobot implements Robot {
 		//Return true if I'm in a room as determined by the underlying Maze
 		int x = myController.getCurrentPosition()[0];
 		int y = myController.getCurrentPosition()[1];
-		return myController.getMazeConfiguration().getFloorplan().isInRoom(x, y);
+		return myController.getMazeConfiguration().isInRoom(x, y);
 	}
 
 	@Override
@@ -95,10 +95,10 @@ public class BasicSensor implements DistanceSensor {
 				||currentDirection.equals(CardinalDirection.West) && myDirection.equals(Direction.LEFT)) {
 			//When the Sensor is pointed North, the distance is my Y coord - the nearest wall's Y coord
 			int wallY = y;
-			while(myMaze.getFloorplan().hasNoWall(x, wallY, CardinalDirection.North)) { //Walk North to find the nearest
+			while(!myMaze.hasWall(x, wallY, CardinalDirection.North)) { //Walk North to find the nearest
 				//wall to the North
 				wallY--;
-				if(myMaze.getFloorplan().isExitPosition(x, wallY)) { //If at the exit, return Integer.MAX
+				if(myMaze.isExitPosition(x, wallY)) { //If at the exit, return Integer.MAX
 					return Integer.MAX_VALUE;
 				}
 			}
@@ -116,10 +116,10 @@ public class BasicSensor implements DistanceSensor {
 				||currentDirection.equals(CardinalDirection.East) && myDirection.equals(Direction.LEFT)) {
 			//When the Sensor is pointed South, the distance is the nearest wall's Y coord - my y coord
 			int wallY = y;
-			while(myMaze.getFloorplan().hasNoWall(x, wallY, CardinalDirection.South)) { //Walk South to find the nearest
+			while(!myMaze.hasWall(x, wallY, CardinalDirection.South)) { //Walk South to find the nearest
 				//wall to the South
 				wallY++;
-				if(myMaze.getFloorplan().isExitPosition(x, wallY)) { //If at the exit, return Integer.MAX
+				if(myMaze.isExitPosition(x, wallY)) { //If at the exit, return Integer.MAX
 					return Integer.MAX_VALUE;
 				}
 			}
@@ -137,10 +137,10 @@ public class BasicSensor implements DistanceSensor {
 				||currentDirection.equals(CardinalDirection.South) && myDirection.equals(Direction.RIGHT)) {
 			//When the Sensor is pointed East, the distance is the nearest wall's X coord - my X corrd
 			int wallX = x;
-			while(myMaze.getFloorplan().hasNoWall(wallX, y, CardinalDirection.East)) { //Walk East to find the nearest
+			while(!myMaze.hasWall(wallX, y, CardinalDirection.East)) { //Walk East to find the nearest
 				//wall to the East
 				wallX++;
-				if(myMaze.getFloorplan().isExitPosition(wallX, y)) { //If at the exit, return Integer.MAX
+				if(myMaze.isExitPosition(wallX, y)) { //If at the exit, return Integer.MAX
 					return Integer.MAX_VALUE;
 				}
 			}
@@ -158,10 +158,10 @@ public class BasicSensor implements DistanceSensor {
 				||currentDirection.equals(CardinalDirection.North) && myDirection.equals(Direction.RIGHT)) {
 			//When the Sensor is pointed West, the distance is my X coord - nearest wall's x coord
 			int wallX = x;
-			while(myMaze.getFloorplan().hasNoWall(wallX, y, CardinalDirection.West)) { //Walk West to find the nearest
+			while(!myMaze.hasWall(wallX, y, CardinalDirection.West)) { //Walk West to find the nearest
 				//wall to the West
 				wallX--;
-				if(myMaze.getFloorplan().isExitPosition(wallX, y)) { //If at the exit, return Integer.MAX
+				if(myMaze.isExitPosition(wallX, y)) { //If at the exit, return Integer.MAX
 					return Integer.MAX_VALUE;
 				}
 			}
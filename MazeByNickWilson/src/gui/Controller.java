@@ -7,6 +7,7 @@ import java.util.Random;
 
 import generation.CardinalDirection;
 import generation.Maze;
+import generation.MazePool;
 import generation.Order;
 import generation.Order.Builder;
 
@@ -39,6 +40,11 @@ import generation.Order.Builder;
  * @author Peter Kemper
  */
 public class Controller {
+	/**
+	 * Number of mazes that the pool keeps ready for each combination
+	 * of skill level, builder and perfect in the non-deterministic setting.
+	 */
+	static final int MAZES_PER_KIND = 2;
 	/**
 	 * The game has a reservoir of 4 states: 
 	 * 1: show the title screen, wait for user input for skill level
@@ -96,6 +102,12 @@ public class Controller {
      * builder, and perfect remain the same.
      */
     boolean deterministic;
+    /**
+     * Ready mazes for the non-deterministic setting,
+     * created with the first maze that is generated without
+     * an explicit seed, null before.
+     */
+    MazePool mazePool;
     
     public Controller() {
     	states = new State[4];
@@ -178,7 +190,10 @@ public class Controller {
         	// TODO: implement code that makes sure we generate different random mazes
         	// HINT: check http://download.oracle.com/javase/6/docs/api/java/util/Random.html
         	this.setSeed((int)(Math.random() * 500));
+        	if (null == mazePool)
+        		mazePool = new MazePool(MAZES_PER_KIND);
         }
+        ((StateGenerating)states[1]).setMazePool(deterministic ? null : mazePool);
         currentState.setSeed(seed);
         currentState.start(this, panel);
     }
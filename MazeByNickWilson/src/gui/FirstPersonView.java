@@ -6,13 +6,10 @@ package gui;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.util.List;
+import java.util.BitSet;
 
-import generation.BSPBranch;
-import generation.BSPLeaf;
-import generation.BSPNode;
+import generation.FlatBSPTree;
 import generation.Floorplan;
-import generation.Wall;
 
 /**
  * This class encapsulates all functionality for drawing the current view 
@@ -52,14 +49,21 @@ public class FirstPersonView {
 	private final Floorplan seenWalls;
 	
 	/** 
-	 * The root node to a tree with walls (Wall objects) in its leaves.
+	 * A tree with walls in its leaves, in flat form such that
+	 * nodes and walls are addressed by their numbers.
 	 * This data structure carries the information about walls
 	 * to draw. Walls are drawn as filled polygons. 
 	 * The content for this tree is determined in MazeBuilder
 	 * when the maze is created. 
 	 * It also used to decide visibility of walls.
 	 */
-	private final BSPNode bspRoot;
+	private final FlatBSPTree bspTree;
+	
+	/**
+	 * Numbers of the walls in bspTree that have been on display.
+	 * The tree may be shared with other games, so this is kept per view.
+	 */
+	private final BitSet seenWallNumbers;
 	
 	/** 
 	 * The current viewing angle. This information is used in rotations
@@ -129,16 +133,17 @@ public class FirstPersonView {
 	 * @param mapUnit current scaling factor
 	 * @param stepSize size of steps
 	 * @param seenWalls to store which walls were put on display
-	 * @param bspRoot the root node of the bsp tree
+	 * @param bspTree the bsp tree in flat form
 	 */
-	public FirstPersonView(int width, int height, int mapUnit, int stepSize, Floorplan seenWalls, BSPNode bspRoot) {
+	public FirstPersonView(int width, int height, int mapUnit, int stepSize, Floorplan seenWalls, FlatBSPTree bspTree) {
 		// store given parameter values
 		viewWidth = width;
 		viewHeight = height;
 		this.mapUnit = mapUnit;
 		this.stepSize = stepSize;
 		this.seenWalls = seenWalls;
-		this.bspRoot = bspRoot; 
+		this.bspTree = bspTree; 
+		seenWallNumbers = new BitSet(bspTree.getWallCount());
 		// constants and derived values
 		angle = 0; // angle for initial setting of direction is 0 == East, hidden constraint across classes
 		scaleZ = viewHeight/2;
@@ -183,7 +188,7 @@ public class FirstPersonView {
         traverseNodeCounter = traverseWallSectorCounter =
         		drawRectCounter = drawRectLateCounter = drawRectWallCounter = 0;
         //
-        drawAllVisibleSectors(bspRoot);
+        drawAllVisibleSectors(0); // root is node 0
 	}
 
 
@@ -271,40 +276,40 @@ public class FirstPersonView {
 	/**
 	 * Recursive method to explore tree of BSP nodes and draw all walls in leaf nodes 
 	 * where the bounding box is visible
-	 * @param node is the current node of interest
+	 * @param node is the number of the current node of interest
 	 */
-	private void drawAllVisibleSectors(BSPNode node) {
+	private void drawAllVisibleSectors(int node) {
 		traverseNodeCounter++; // debug
 		
 		// Anchor, stop recursion at leaf nodes
-		if (node.isIsleaf()) {
-			drawAllWallsOfASector((BSPLeaf) node);
+		if (bspTree.isLeaf(node)) {
+			drawAllWallsOfASector(node);
 			return;
 		}
 		
 		// for intermediate nodes proceed recursively through all visible branches
-		BSPBranch n = (BSPBranch) node;
+		final FlatBSPTree n = bspTree;
 		
 		// debug code
 		if (deepDebug) {
 			dbg("                               ".substring(0, nesting) +
-					"traverse_node "+n.getX()+" "+n.getY()+" "+n.getDx()+" "+n.getDy()+" "+
-					n.getLowerBoundX()+" "+n.getLowerBoundY()+" "+n.getUpperBoundX()+" "+n.getUpperBoundY());
+					"traverse_node "+n.getX(node)+" "+n.getY(node)+" "+n.getDx(node)+" "+n.getDy(node)+" "+
+					n.getLowerBoundX(node)+" "+n.getLowerBoundY(node)+" "+n.getUpperBoundX(node)+" "+n.getUpperBoundY(node));
 		}
 		nesting++; // debug
 		
-		final int dot = (viewX-n.getX())*n.getDy() - (viewY-n.getY())*n.getDx();
+		final int dot = (viewX-n.getX(node))*n.getDy(node) - (viewY-n.getY(node))*n.getDx(node);
 		// The type of tree traversal depends on the value of dot
 		// either do right before left or vice versa
 		// but only if node is visible at all
 		
 		// if dot >= 0 consider right node before left node
-		BSPNode right = n.getRightBranch();
+		final int right = n.getRight(node);
 		if ((dot >= 0) && (boundingBoxIsVisible(right))) {
 			drawAllVisibleSectors(right);
 		}
 		// consider left node
-		BSPNode left = n.getLeftBranch();
+		final int left = n.getLeft(node);
 		if (boundingBoxIsVisible(left))
 			drawAllVisibleSectors(left);
 		// if dot < 0 consider right node now (after left node)
@@ -315,10 +320,10 @@ public class FirstPersonView {
 	}
 	/**
 	 * Decide if the bounding box is visible
-	 * @param node the current node
+	 * @param node the number of the current node
 	 * @return true if node should be drawn, false otherwise
 	 */
-	private boolean boundingBoxIsVisible(BSPNode node) {
+	private boolean boundingBoxIsVisible(int node) {
 		
 		if (allVisible) // unused feature, presumably for debugging
 			return true;
@@ -333,10 +338,10 @@ public class FirstPersonView {
 		// to check for an intersection with the range set
 		// calculate 2 intermediate points (p1x,p1y) and (p2x,p2y) first
 		// then derive x1 and x2
-		final int xmin = node.getLowerBoundX() - viewX;
-		final int ymin = node.getLowerBoundY() - viewY;
-		final int xmax = node.getUpperBoundX() - viewX;
-		final int ymax = node.getUpperBoundY() - viewY;
+		final int xmin = bspTree.getLowerBoundX(node) - viewX;
+		final int ymin = bspTree.getLowerBoundY(node) - viewY;
+		final int xmax = bspTree.getUpperBoundX(node) - viewX;
+		final int ymax = bspTree.getUpperBoundY(node) - viewY;
 		// initialize (p1x,p1y) and (p2x,p2y) with bounds
 		int p1x = xmin; 
 		int p2x = xmax;
@@ -400,48 +405,45 @@ public class FirstPersonView {
 	}
 	/**
 	 * Checks if bounding box for current node is out of view.
-	 * @param node the current node
+	 * @param node the number of the current node
 	 * @return true if any of the special cases match, false otherwise
 	 */
-	private boolean isOutOfView(BSPNode node) {
-		if (angle >= 45 && angle <= 135 && viewY > node.getUpperBoundY())
+	private boolean isOutOfView(int node) {
+		if (angle >= 45 && angle <= 135 && viewY > bspTree.getUpperBoundY(node))
 			return true;
-		if (angle >= 225 && angle <= 315 && viewY < node.getLowerBoundY())
+		if (angle >= 225 && angle <= 315 && viewY < bspTree.getLowerBoundY(node))
 			return true;
-		if (angle >= 135 && angle <= 225 && viewX < node.getLowerBoundX())
+		if (angle >= 135 && angle <= 225 && viewX < bspTree.getLowerBoundX(node))
 			return true;
-		if ((angle >= 315 || angle <= 45) && viewX > node.getUpperBoundX())
+		if ((angle >= 315 || angle <= 45) && viewX > bspTree.getUpperBoundX(node))
 			return true;
 		return false;
 	}
 
 	/**
 	 * Traverses all walls of this leaf and draws corresponding rectangles on screen
-	 * @param node is the leaf node
+	 * @param node is the number of the leaf node
 	 */
-	private void drawAllWallsOfASector(BSPLeaf node) {
-		List<Wall> allWalls = node.getAllWalls();
+	private void drawAllWallsOfASector(int node) {
 		// debug
 		traverseWallSectorCounter++;
 		if (deepDebug) {
 			dbg("                               ".substring(0, nesting) +
-					"traverseWallSector "+node.getLowerBoundX()+" "+node.getLowerBoundY()+
-					" "+node.getUpperBoundX()+" "+node.getUpperBoundY());
+					"traverseWallSector "+bspTree.getLowerBoundX(node)+" "+bspTree.getLowerBoundY(node)+
+					" "+bspTree.getUpperBoundX(node)+" "+bspTree.getUpperBoundY(node));
 		}
-		// for all walls of this node
-		//for (int i = 0; i != walls.size(); i++) {
-		//	Wall w = walls.get(i);
-		int i = 0;
-		for (Wall wall: allWalls) {
+		// for all walls of this node, they are numbered consecutively
+		final int first = bspTree.getFirstWall(node);
+		final int end = bspTree.getEndWall(node);
+		for (int wall = first; wall < end; wall++) {
 			// draw rectangle
 			drawWall(wall);
 			// debug
 			if (deepDebug) {
 				dbg("                               ".substring(0, nesting) +
-						" traverseWallSector(" + i +") "+
-						wall.getStartPositionX()+" "+wall.getStartPositionY()+" "+
-						wall.getExtensionX()+" "+wall.getExtensionY());
-				i++;
+						" traverseWallSector(" + (wall - first) +") "+
+						bspTree.getWallStartX(wall)+" "+bspTree.getWallStartY(wall)+" "+
+						bspTree.getWallExtensionX(wall)+" "+bspTree.getWallExtensionY(wall));
 			}
 
 		}
@@ -450,18 +452,18 @@ public class FirstPersonView {
 	/**
 	 * Draws wall on screen via graphics attribute gc.
 	 * Helper method for drawAllWallsOfASector.
-	 * @param wall whose seen attribute may be set to true
+	 * @param wall number of the wall whose seen attribute may be set to true
 	 */
-	private void drawWall(Wall wall) {
+	private void drawWall(int wall) {
 		drawRectCounter++; // debug, counter
 		
 		// some notes: 
 		// perspective centers on (centerX,centerY) = (view_width/2,view_height/2)
 		// initialization part for x1, x2, y11, y12, y21, y22
-		final int ox1 = wall.getStartPositionX() - viewX;
-		final int ox2 = wall.getEndPositionX()   - viewX;
-		final int y1  = wall.getStartPositionY() - viewY;
-		final int y2  = wall.getEndPositionY()   - viewY;
+		final int ox1 = bspTree.getWallStartX(wall) - viewX;
+		final int ox2 = bspTree.getWallEndX(wall)   - viewX;
+		final int y1  = bspTree.getWallStartY(wall) - viewY;
+		final int y2  = bspTree.getWallEndY(wall)   - viewY;
 		
 		RangePair rp = getNewRangePair(ox1, ox2, y1, y2);
 		if (!rp.clip3d())
@@ -482,14 +484,14 @@ public class FirstPersonView {
 		
 		// moved code for drawing bits and pieces into yet another method to 
 		// gain more clarity on what information is actually needed
-		gc.setColor(wall.getColor());
+		gc.setColor(bspTree.getWallColor(wall));
 		boolean drawn = drawPolygons(x1, x2, y11, y12, y21, y22);
 		
-		if (drawn && !wall.isSeen()) {
-			wall.setSeen(true); // updates the wall
+		if (drawn && !seenWallNumbers.get(wall)) {
+			seenWallNumbers.set(wall);
 			// set the seenWalls bit for all wallboards of a wall
-			// the wall parameter given is not modified
-			seenWalls.addWall(wall, mapUnit); // updates seenWalls
+			seenWalls.addWall(bspTree.getWallStartX(wall), bspTree.getWallStartY(wall),
+					bspTree.getWallExtensionX(wall), bspTree.getWallExtensionY(wall), mapUnit); // updates seenWalls
 		}
 	}
 	
@@ -207,10 +207,12 @@ public class Map {
 				// starting point of line
 				int startX = mapToCoordinateX(x, offsetX);
 				int startY = mapToCoordinateY(y, offsetY);
+				// sides of the cell without a wall on display so far, read once for both lines
+				final int unseen = seenWalls.getOpenMask(x, y);
 				if (x < mazeWidth)
-					drawHorizontalLine(g, showMaze, x, y, startX, startY);
+					drawHorizontalLine(g, showMaze, x, y, startX, startY, unseen);
 				if (y < mazeHeight)
-					drawVerticalLine(g, showMaze, x, y, startX, startY);
+					drawVerticalLine(g, showMaze, x, y, startX, startY, unseen);
 			}
 		
 		if (showSolution) {
@@ -226,11 +228,12 @@ public class Map {
 	 * @param y current y index
 	 * @param startX the x coordinate for drawing
 	 * @param startY the y coordinate for drawing
+	 * @param unseen open mask of seenWalls for (x,y), see {@link Floorplan#getOpenMask(int, int)}
 	 */
-	private void drawVerticalLine(Graphics g, boolean showMaze, int x, int y, int startX, int startY) {
-		if (hasAVerticalWall(x, y) && 
-				(seenWalls.hasWall(x, y, CardinalDirection.West) || showMaze)) {
-			g.setColor(seenWalls.hasWall(x, y, CardinalDirection.West) ? Color.white : Color.gray);
+	private void drawVerticalLine(Graphics g, boolean showMaze, int x, int y, int startX, int startY, int unseen) {
+		final boolean seen = (unseen & Floorplan.CW_LEFT) == 0;
+		if (hasAVerticalWall(x, y) && (seen || showMaze)) {
+			g.setColor(seen ? Color.white : Color.gray);
 			g.drawLine(startX, startY, startX, startY - mapScale); 
 		}
 	}
@@ -255,11 +258,13 @@ public class Map {
 	 * @param y current y index
 	 * @param startX the x coordinate for drawing
 	 * @param startY the y coordinate for drawing
+	 * @param unseen open mask of seenWalls for (x,y), see {@link Floorplan#getOpenMask(int, int)}
 	 */
 	private void drawHorizontalLine(Graphics g, boolean showMaze, int x, int y, int startX,
-			int startY) {
-		if (hasAHorizontalWall(x, y) && (seenWalls.hasWall(x,y, CardinalDirection.North) || showMaze) ) {
-			g.setColor(seenWalls.hasWall(x,y, CardinalDirection.North) ? Color.white : Color.gray);
+			int startY, int unseen) {
+		final boolean seen = (unseen & Floorplan.CW_TOP) == 0;
+		if (hasAHorizontalWall(x, y) && (seen || showMaze) ) {
+			g.setColor(seen ? Color.white : Color.gray);
 			g.drawLine(startX, startY, startX + mapScale, startY); 
 		}
 	}
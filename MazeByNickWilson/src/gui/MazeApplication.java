@@ -47,7 +47,7 @@ public class MazeApplication extends JFrame {
 
 	/**
 	 * Constructor that loads a maze from a given file or uses a particular method to generate a maze
-	 * @param parameter can identify a generation method (Prim, Kruskal, Eller)
+	 * @param parameter can identify a generation method (Prim, Kruskal, Eller, Boruvka, RecursiveDivision)
      * or a filename that stores an already generated maze that is then loaded, or can be null
 	 */
 	public MazeApplication(String parameter) {
@@ -55,7 +55,7 @@ public class MazeApplication extends JFrame {
 	}
 	/**
 	 * Constructor that loads a maze from a given file or uses a particular method to generate a maze
-	 * @param parameter can identify a generation method (Prim, Kruskal, Eller)
+	 * @param parameter can identify a generation method (Prim, Kruskal, Eller, Boruvka, RecursiveDivision)
      * or a filename that stores an already generated maze that is then loaded, or can be null
      * @param robot a string that identifies a type of RobotDriver to be used
 	 */
@@ -64,7 +64,7 @@ public class MazeApplication extends JFrame {
 	}
 	/**
 	 * Instantiates a controller with settings according to the given parameter.
-	 * @param parameter can identify a generation method (Prim, Kruskal, Eller)
+	 * @param parameter can identify a generation method (Prim, Kruskal, Eller, Boruvka, RecursiveDivision)
 	 * or a filename that contains a generated maze that is then loaded,
 	 * or can be null
 	 * @return the newly instantiated and configured controller
@@ -101,8 +101,18 @@ public class MazeApplication extends JFrame {
 	    }
 	    else if ("Eller".equalsIgnoreCase(parameter))
 	    {
-	    	// TODO: for P2 assignment, please add code to set the builder accordingly
-	        throw new RuntimeException("Don't know anybody named Eller ...");
+	    	msg = "MazeApplication: generating random maze with Eller's algorithm.";
+	    	result.setBuilder(Order.Builder.Eller);
+	    }
+	    else if ("Boruvka".equalsIgnoreCase(parameter))
+	    {
+	    	msg = "MazeApplication: generating random maze with Boruvka's algorithm.";
+	    	result.setBuilder(Order.Builder.Boruvka);
+	    }
+	    else if ("RecursiveDivision".equalsIgnoreCase(parameter))
+	    {
+	    	msg = "MazeApplication: generating random maze with recursive division.";
+	    	result.setBuilder(Order.Builder.RecursiveDivision);
 	    }
 	    // Case 4: a file
 	    else {
@@ -126,7 +136,7 @@ public class MazeApplication extends JFrame {
 
 		/**
 		 * Instantiates a controller with settings according to the given parameter.
-		 * @param parameter can identify a generation method (Prim, Kruskal, Eller)
+		 * @param parameter can identify a generation method (Prim, Kruskal, Eller, Boruvka, RecursiveDivision)
 		 * or a filename that contains a generated maze that is then loaded,
 		 * or can be null
 		 * @param robot a string that tells which type of RobotDriver we should be using.
@@ -171,8 +181,18 @@ public class MazeApplication extends JFrame {
 		    }
 		    else if ("Eller".equalsIgnoreCase(parameter))
 		    {
-		    	// TODO: for P2 assignment, please add code to set the builder accordingly
-		        throw new RuntimeException("Don't know anybody named Eller ...");
+		    	msg = "MazeApplication: generating random maze with Eller's algorithm.";
+		    	result.setBuilder(Order.Builder.Eller);
+		    }
+		    else if ("Boruvka".equalsIgnoreCase(parameter))
+		    {
+		    	msg = "MazeApplication: generating random maze with Boruvka's algorithm.";
+		    	result.setBuilder(Order.Builder.Boruvka);
+		    }
+		    else if ("RecursiveDivision".equalsIgnoreCase(parameter))
+		    {
+		    	msg = "MazeApplication: generating random maze with recursive division.";
+		    	result.setBuilder(Order.Builder.RecursiveDivision);
 		    }
 		    // Case 4: a file
 		    else {
@@ -196,7 +216,7 @@ public class MazeApplication extends JFrame {
 	 
 	/**
 	 * Initializes some internals and puts the game on display.
-	 * @param parameter can identify a generation method (Prim, Kruskal, Eller)
+	 * @param parameter can identify a generation method (Prim, Kruskal, Eller, Boruvka, RecursiveDivision)
      * or a filename that contains a generated maze that is then loaded, or can be null
 	 */
 	private void init(String parameter) {
@@ -218,7 +238,7 @@ public class MazeApplication extends JFrame {
 	}
 	/**
 	 * Initializes some internals and puts the game on display.
-	 * @param parameter can identify a generation method (Prim, Kruskal, Eller)
+	 * @param parameter can identify a generation method (Prim, Kruskal, Eller, Boruvka, RecursiveDivision)
      * or a filename that contains a generated maze that is then loaded, or can be null
      * @param robot a string that tells which type of RobotDriver we should be using.
 	 */
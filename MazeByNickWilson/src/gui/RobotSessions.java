@@ -0,0 +1,56 @@
+package gui;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import generation.Maze;
+import generation.VirtualThreads;
+
+/**
+ * Plays robot sessions without graphics. A session is a controller with its
+ * graphics turned off, a basic robot and a robot driver that plays a maze in
+ * the automated playing mode, the same as in {@link StatePlaying} but without a panel,
+ * so the rotate and move operations do not wait for a redraw.
+ *
+ * Many sessions can run at the same time, one per thread of an executor
+ * of {@link #newExecutor()}. Sessions can share a maze as they only read it.
+ */
+public final class RobotSessions {
+
+    private RobotSessions() {
+        // only static methods
+    }
+    /**
+     * Gives an executor that runs each session on a thread of its own,
+     * see {@link VirtualThreads#newThreadPerTaskExecutor(String)}.
+     * @return the executor
+     */
+    public static ExecutorService newExecutor() {
+        return VirtualThreads.newThreadPerTaskExecutor("robot-session-");
+    }
+    /**
+     * Plays a session in the current thread till the driver reaches the exit
+     * or the robot stops.
+     * @param maze to play, not modified
+     * @param driver that operates the robot, not shared with other sessions
+     * @return the length of the path to the exit, -1 if the robot did not make it
+     */
+    public static int play(Maze maze, RobotDriver driver) {
+        Controller controller = new Controller();
+        controller.turnOffGraphics();
+        controller.setRobotAndDriver(new BasicRobot(controller), driver);
+        // the playing state runs the driver and switches to the winning state
+        controller.switchFromGeneratingToPlaying(maze);
+        return ((StateWinning)controller.states[3]).pathLength;
+    }
+    /**
+     * Submits a session to the executor.
+     * @param executor that runs the session, e.g. of {@link #newExecutor()}
+     * @param maze to play, not modified
+     * @param driver that operates the robot, not shared with other sessions
+     * @return the length of the path to the exit once the session is over, -1 if the robot did not make it
+     */
+    public static Future<Integer> submit(ExecutorService executor, Maze maze, RobotDriver driver) {
+        return executor.submit(() -> play(maze, driver));
+    }
+}
@@ -3,7 +3,9 @@ package gui;
 import generation.Factory;
 import generation.Floorplan;
 import generation.Maze;
+import generation.MazeCache;
 import generation.MazeFactory;
+import generation.MazePool;
 import generation.Order;
 import gui.Constants.UserInput;
 
@@ -50,6 +52,11 @@ public class StateGenerating extends DefaultState implements Order {
     // communication with the factory slightly more complicated.
     // Check the factory interface for details.
     protected Factory factory;
+    // Mazes generated so far, shared by all games such that a repeated
+    // order for the same skill level, builder, perfect and seed starts right away
+    private static final MazeCache CACHE = MazeCache.createDefault();
+    // Ready mazes for orders without an explicit seed, can be null
+    private MazePool pool;
     // The maze configuration produced by the factory
     //private MazeConfiguration mazeConfig; 
 
@@ -63,7 +70,9 @@ public class StateGenerating extends DefaultState implements Order {
      */
     public StateGenerating() {
         filename = null;
-        factory = new MazeFactory() ;
+        MazeFactory mazeFactory = new MazeFactory() ;
+        mazeFactory.setCache(CACHE);
+        factory = mazeFactory;
         skillLevel = 0; // default size for maze
         builder = Order.Builder.DFS; // default algorithm
         perfect = false; // default: maze can have rooms
@@ -94,6 +103,15 @@ public class StateGenerating extends DefaultState implements Order {
 	public void setSeed(int seed) {
         this.seed = seed;  
     }
+    /**
+     * Sets the pool that serves orders without an explicit seed.
+     * If the pool has a maze of the selected kind ready, generation
+     * is skipped and the game starts right away.
+     * @param pool gives ready mazes, null if the maze must be generated with the seed
+     */
+    public void setMazePool(MazePool pool) {
+        this.pool = pool;
+    }
     /**
      * Loads maze from file and returns a corresponding maze configuration.
      * @param filename, not null
@@ -120,6 +138,7 @@ public class StateGenerating extends DefaultState implements Order {
         view = new SimpleScreens();
         // reset percentage for progress
         percentdone = 0;
+        Maze maze;
         // if given a filename, load maze from file
         // otherwise, show view and order maze from factory
         if (filename != null) {
@@ -128,6 +147,9 @@ public class StateGenerating extends DefaultState implements Order {
             deliver(loadMazeConfigurationFromFile(filename));
             // reset filename, next round will be generated again
             filename = null;  
+        } else if (null != pool && null != (maze = pool.take(skillLevel, builder, perfect))) {
+            // no explicit seed and the pool has a maze ready: skip generation
+            deliver(maze);
         } else {
             // common case: generate maze with some algorithm
             assert null != factory : "Controller.init: factory must be present";
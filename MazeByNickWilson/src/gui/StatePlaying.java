@@ -89,7 +89,7 @@ public class StatePlaying extends DefaultState {
         showSolution = false ;
         mapMode = false;
         // init data structure for visible walls
-        seenCells = new Floorplan(mazeConfig.getWidth()+1,mazeConfig.getHeight()+1) ;
+        seenCells = Floorplan.createCopyOnWrite(mazeConfig.getWidth()+1,mazeConfig.getHeight()+1) ;
         // set the current position and direction consistently with the viewing direction
         setPositionDirectionViewingDirection();
         walkStep = 0; // counts incremental steps during move/rotate operation
@@ -120,7 +120,7 @@ public class StatePlaying extends DefaultState {
 	protected void startDrawer() {
 		firstPersonView = new FirstPersonView(Constants.VIEW_WIDTH,
 				Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
-				Constants.STEP_SIZE, seenCells, mazeConfig.getRootnode()) ;
+				Constants.STEP_SIZE, seenCells, mazeConfig.getFlatTree()) ;
 		mapView = new Map(seenCells, 15, mazeConfig) ;
 		// draw the initial screen for this state
 		draw();
@@ -363,10 +363,15 @@ public class StatePlaying extends DefaultState {
         return !mazeConfig.hasWall(px, py, cd);
     }
     /**
-     * Draws and waits. Used to obtain a smooth appearance for rotate and move operations
+     * Draws and waits. Used to obtain a smooth appearance for rotate and move operations.
+     * Does not wait in a dry-run without graphics, see {@link RobotSessions}.
      */
     private void slowedDownRedraw() {
         draw() ;
+        if (panel == null) {
+        	// dry-run without graphics, nothing to animate, no reason to wait
+        	return;
+        }
         try {
             Thread.sleep(25);
         } catch (Exception e) { 
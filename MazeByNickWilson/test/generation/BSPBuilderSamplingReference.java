@@ -0,0 +1,56 @@
+package generation;
+
+import java.util.List;
+
+/**
+ * The previous splitter selection of BSPBuilder that looks at a sample
+ * of about 50 walls and calculates each grade with {@link Wall#calculateGrade(List)},
+ * which also samples for long lists. Partition iterations are not counted,
+ * so there is no progress and no check for cancellation.
+ * It is kept as a reference for SplitterBenchmark and SplitterSelectorTest
+ * and not used otherwise.
+ */
+class BSPBuilderSamplingReference extends BSPBuilder {
+	/**
+	 * Constructor, same parameters as for BSPBuilder
+	 * @param order provides the spec for the maze to be generated, will receive the result
+	 * @param dists the distances to the exit
+	 * @param floorplan the floorplan
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @param colchange
+	 * @param expectedPartiters the expected number of partition iterations
+	 */
+	BSPBuilderSamplingReference(Order order, Distance dists, Floorplan floorplan, int width, int height, int colchange, int expectedPartiters) {
+		super(order, dists, floorplan, width, height, colchange, expectedPartiters);
+	}
+	/**
+	 * It finds a wall with a low grade value by looking at a sample of about 50 walls.
+	 * @param walls list of walls, remains unchanged
+	 * @return wall that is best candidate according to grade partition (smallest grade)
+	 */
+	@Override
+	protected Wall findSplitter(List<Wall> walls) {
+		Wall result = null ;
+		int bestgrade = 5000; // used to compute the minimum of all observed grade values, set to some high initial value
+		final int maxtries = 50; // constant, only used to determine skip
+		// consider a subset of walls proportional to the number of tries, here 50, seems to randomize the access a bit
+		int skip = (walls.size() / maxtries);
+		if (skip == 0)
+			skip = 1;
+		assert 0 < skip : "Increment for loop must be positive";
+		for (int i = 0; i < walls.size(); i += skip) {
+			Wall wall = walls.get(i);
+			// skip walls where the partition flag was set
+			if (wall.isPartition())
+				continue;
+			// check grade and keep track of minimum
+			int grade = wall.calculateGrade(walls);
+			if (grade < bestgrade) {
+				bestgrade = grade;
+				result = wall; // determine wall with smallest grade
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,72 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the parallel construction of BSP trees, {@link BSPBuilder}.
+ */
+public class BSPBuilderTest {
+
+	private static BSPNode build(Maze maze, int threshold) throws InterruptedException {
+		BSPBuilder builder = new BSPBuilder(null, maze.getMazedists(), maze.getFloorplan(),
+				maze.getWidth(), maze.getHeight(), 17, 1000);
+		builder.setForkThreshold(threshold);
+		return builder.generateBSPNodes();
+	}
+	static void assertSameNode(BSPNode expected, BSPNode actual) {
+		assertEquals(expected.isIsleaf(), actual.isIsleaf());
+		assertEquals(expected.getLowerBoundX(), actual.getLowerBoundX());
+		assertEquals(expected.getLowerBoundY(), actual.getLowerBoundY());
+		assertEquals(expected.getUpperBoundX(), actual.getUpperBoundX());
+		assertEquals(expected.getUpperBoundY(), actual.getUpperBoundY());
+		if (expected.isIsleaf()) {
+			List<Wall> walls = ((BSPLeaf)expected).getAllWalls();
+			List<Wall> others = ((BSPLeaf)actual).getAllWalls();
+			assertEquals(walls, others);
+			for (int i = 0; i < walls.size(); i++) {
+				assertEquals(walls.get(i).getColor(), others.get(i).getColor());
+				assertEquals(walls.get(i).isPartition(), others.get(i).isPartition());
+			}
+		} else {
+			BSPBranch branch = (BSPBranch)expected;
+			BSPBranch other = (BSPBranch)actual;
+			assertEquals(branch.getX(), other.getX());
+			assertEquals(branch.getY(), other.getY());
+			assertEquals(branch.getDx(), other.getDx());
+			assertEquals(branch.getDy(), other.getDy());
+			assertSameNode(branch.getLeftBranch(), other.getLeftBranch());
+			assertSameNode(branch.getRightBranch(), other.getRightBranch());
+		}
+	}
+	/**
+	 * Test case: the same maze with subtrees built on one thread and in parallel.
+	 * Correct behavior: the trees are the same, node by node and wall by wall.
+	 */
+	@Test
+	public void testParallelSameAsSequential() throws InterruptedException {
+		Maze maze = MazeFactoryTest.makeMaze(8, Order.Builder.Prim, false, 21);
+		BSPNode sequential = build(maze, Integer.MAX_VALUE);
+		assertSameNode(sequential, build(maze, 1));
+		assertSameNode(sequential, build(maze, 64));
+		assertSameNode(sequential, build(maze, BSPBuilder.DEFAULT_FORK_THRESHOLD));
+	}
+	/**
+	 * Test case: the thread that builds the tree is interrupted.
+	 * Correct behavior: the build stops with an InterruptedException,
+	 * also if the subtrees are built by workers of the pool.
+	 */
+	@Test
+	public void testCancelled() {
+		Maze maze = MazeFactoryTest.makeMaze(6, Order.Builder.DFS, false, 3);
+		Thread.currentThread().interrupt();
+		assertThrows(InterruptedException.class, () -> build(maze, 1));
+		assertTrue(Thread.interrupted());
+		Thread.currentThread().interrupt();
+		assertThrows(InterruptedException.class, () -> build(maze, Integer.MAX_VALUE));
+		assertTrue(Thread.interrupted());
+	}
+}
@@ -0,0 +1,58 @@
+package generation;
+
+import gui.Constants;
+
+/**
+ * Compares the running time of pathway generation for the
+ * different maze builders at all skill levels.
+ * This is not a junit test, run its main method to obtain numbers.
+ * DFS and Prim are also measured with their previous implementations,
+ * MazeBuilderDFSReference and MazeBuilderPrimReference, for comparison.
+ * Only generatePathways is measured, rooms, distances and
+ * BSP computations are skipped.
+ */
+public class BuilderBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		System.out.println("size          dfs[ms] dfs-ref[ms]   prim[ms] prim-ref[ms] kruskal[ms]  eller[ms] boruvka[ms] division[ms]");
+		for (int skill = 0; skill < Constants.SKILL_X.length; skill++) {
+			int width = Constants.SKILL_X[skill];
+			int height = Constants.SKILL_Y[skill];
+			System.out.printf("%4dx%-4d %10.2f %11.2f %10.2f %12.2f %11.2f %10.2f %11.2f %12.2f%n", width, height,
+					run(new MazeBuilder(), width, height),
+					run(new MazeBuilderDFSReference(), width, height),
+					run(new MazeBuilderPrim(), width, height),
+					run(new MazeBuilderPrimReference(), width, height),
+					run(new MazeBuilderKruskal(), width, height),
+					run(new MazeBuilderEller(), width, height),
+					run(new MazeBuilderBoruvka(), width, height),
+					run(new MazeBuilderRecursiveDivision(), width, height));
+		}
+	}
+	/**
+	 * Generates pathways for a perfect maze of the given size with
+	 * the given builder and measures the average time.
+	 * @param builder the maze builder
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @return average time in milliseconds
+	 */
+	static double run(MazeBuilder builder, int width, int height) {
+		long total = 0;
+		// first round warms up and is not counted
+		for (int i = 0; i <= ROUNDS; i++) {
+			builder.buildOrder(new StubOrder(0, Order.Builder.DFS, true, 13 + i));
+			builder.width = width;
+			builder.height = height;
+			builder.floorplan = new Floorplan(width, height);
+			builder.floorplan.initialize();
+			long start = System.nanoTime();
+			builder.generatePathways();
+			if (i > 0)
+				total += System.nanoTime() - start;
+		}
+		return total/1e6/ROUNDS;
+	}
+}
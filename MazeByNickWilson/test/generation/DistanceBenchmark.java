@@ -0,0 +1,82 @@
+package generation;
+
+import gui.Constants;
+
+/**
+ * Compares the running time of the breadth first search in 
+ * Distance.computeDistances with the bit parallel engine 
+ * and the original fixpoint iteration in DistanceFixpointReference.
+ * This is not a junit test, run its main method to obtain numbers.
+ * Floorplans are generated with the default DFS builder for all
+ * skill levels plus a few larger custom sizes. The fixpoint iteration
+ * is impractical on the larger sizes and skipped there.
+ */
+public class DistanceBenchmark {
+	
+	private static final int ROUNDS = 5;
+	// largest number of cells to run the fixpoint iteration on
+	private static final int FIXPOINT_MAX_CELLS = 300*240;
+	
+	public static void main(String[] args) {
+		System.out.println("size        bfs[ms]  bitpar[ms]  fixpoint[ms]");
+		for (int skill = 0; skill < Constants.SKILL_X.length; skill++) {
+			run(Constants.SKILL_X[skill], Constants.SKILL_Y[skill]);
+		}
+		run(500, 500);
+		run(1000, 1000);
+		run(2000, 2000);
+	}
+	/**
+	 * Generates a perfect maze of the given size and measures
+	 * the distance computations on it.
+	 * @param width of the maze
+	 * @param height of the maze
+	 */
+	private static void run(int width, int height) {
+		Floorplan floorplan = makeFloorplan(width, height, 13);
+		Distance distance = new Distance(width, height);
+		boolean fixpoint = width*height <= FIXPOINT_MAX_CELLS;
+		// warm up all variants
+		distance.computeDistances(floorplan, false);
+		distance.computeDistances(floorplan, true);
+		if (fixpoint)
+			DistanceFixpointReference.computeDistances(distance, floorplan);
+		long bfsTime = 0;
+		long bitParallelTime = 0;
+		long fixpointTime = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			distance.computeDistances(floorplan, false);
+			bfsTime += System.nanoTime() - start;
+			start = System.nanoTime();
+			distance.computeDistances(floorplan, true);
+			bitParallelTime += System.nanoTime() - start;
+			if (fixpoint) {
+				start = System.nanoTime();
+				DistanceFixpointReference.computeDistances(distance, floorplan);
+				fixpointTime += System.nanoTime() - start;
+			}
+		}
+		System.out.printf("%4dx%-4d %10.2f %11.2f %13s%n", width, height, 
+				bfsTime/1e6/ROUNDS, bitParallelTime/1e6/ROUNDS, 
+				fixpoint ? String.format("%.2f", fixpointTime/1e6/ROUNDS) : "-");
+	}
+	/**
+	 * Generates pathways for a maze of arbitrary size with the DFS builder.
+	 * Skips distance and BSP computations.
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @param seed for the random number generator
+	 * @return floorplan of a perfect maze
+	 */
+	static Floorplan makeFloorplan(int width, int height, int seed) {
+		MazeBuilder builder = new MazeBuilder();
+		builder.buildOrder(new StubOrder(0, Order.Builder.DFS, true, seed));
+		builder.width = width;
+		builder.height = height;
+		builder.floorplan = new Floorplan(width, height);
+		builder.floorplan.initialize();
+		builder.generatePathways();
+		return builder.floorplan;
+	}
+}
@@ -0,0 +1,202 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * The original fixpoint iteration that Distance used to compute distance
+ * values before it was replaced by a breadth first search.
+ * It is kept as a reference for DistanceTest and DistanceBenchmark
+ * and not used otherwise.
+ */
+final class DistanceFixpointReference {
+
+	private final int width;
+	private final int height;
+	private final int[][] dists; // distance values, [x][y]
+
+	private DistanceFixpointReference(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.dists = new int[width][height];
+	}
+	/**
+	 * Same as {@link Distance#computeDistances(Floorplan)} but performs the
+	 * original fixpoint iteration to compute distance values.
+	 * The values are handed to the distance object with
+	 * {@link Distance#setAllDistanceValues(int[][])}.
+	 * @param distance receives the distance values
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @return exit position somewhere on the border
+	 */
+	static int[] computeDistances(Distance distance, Floorplan cells) {
+		final DistanceFixpointReference reference = new DistanceFixpointReference(cells.getWidth(), cells.getHeight());
+		reference.computeDists(cells, reference.width/2, reference.height/2);
+		final int[] exitPosition = reference.getPositionWithMaxDistanceOnBorder();
+		reference.computeDists(cells, exitPosition[0], exitPosition[1]);
+		distance.setAllDistanceValues(reference.dists);
+		return exitPosition;
+	}
+	/**
+	 * Computes distances to the given position (ax,ay) for all cells in array dists
+	 * with a fixpoint iteration.
+	 * @param cells with information on wallboards for a maze, can not be null
+	 * @param ax, position, x coordinate
+	 * @param ay, position, y coordinate
+	 */
+	private void computeDists(Floorplan cells, int ax, int ay) {
+		// initialize the distance array with a value for infinity
+		for (int[] column : dists) {
+			Arrays.fill(column, Distance.INFINITY);
+		}
+		// set the final distance at the exit position
+		dists[ax][ay] = 1;
+		// distribute values from this position to get started
+		pushDistanceValuesDFS2(cells, ax, ay);
+		int toDoCounter = countInfinity();
+		int progress; // used to recognize fixpoint, no progress, then stop
+		// go over this array as long as we can find something to do
+		do {
+			// check all entries in the distance array
+			for (int x = 0; x != width; x++) {
+				for (int y = 0; y != height; y++)
+				{
+					if (dists[x][y] == Distance.INFINITY) {
+						continue;
+					}
+					// if the distance is not infinite,
+					// let's see if the cell has a neighbor that we can update and
+					// perform a depth first search on.
+					pushDistanceValuesDFS2(cells, x, y);
+				}
+			}
+			progress = toDoCounter - countInfinity();
+			toDoCounter -= progress; // update to current value
+		} while (0 < progress);
+		assert (0 == countInfinity()) :
+			"All positions should have a finite distance to the exit";
+		// the computation is not good enough to have truly minimum values
+		saturateDistances(cells);
+	}
+	/**
+	 * Follows a path as far as possible to push small distance values
+	 * into the maze
+	 * @param cells needed for checking wallboards, read only
+	 * @param sx starting position
+	 * @param sy starting position
+	 */
+	private void pushDistanceValuesDFS2(Floorplan cells, int sx, int sy) {
+		while (true) {
+			CardinalDirection nextn = updateNeighborDistancesAndDirection(cells, sx, sy);
+			if (nextn == null)
+				break; // exit the loop if we cannot find another cell to proceed with
+			// update coordinates for next cell
+			int[] dir = nextn.getDirection();
+			sx += dir[0];
+			sy += dir[1];
+			// follow the nextn node on a depth-first-search path
+		}
+	}
+	/**
+	 * Counts how often infinity values is present in matrix
+	 * @return the number of cells with an infinite distance to the exit
+	 */
+	private int countInfinity() {
+		int result = 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (dists[x][y] == Distance.INFINITY)
+					result++;
+			}
+		}
+		return result;
+	}
+	/**
+	 * Updates distance values for adjacent cells that are reachable
+	 * if value can be reduced to current distance plus 1.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param currentX x coordinate of current position
+	 * @param currentY y coordinate of current position
+	 * @return direction for a neighbor that has been updated or null if there is none
+	 */
+	private CardinalDirection updateNeighborDistancesAndDirection(Floorplan cells, int currentX, int currentY) {
+		CardinalDirection result = null; // returns null by default
+		int nextDistance = dists[currentX][currentY] + 1; // distance of a neighbor
+		int[] dir;
+		int nextX;
+		int nextY;
+		// check all four directions, update distance as needed
+		for (CardinalDirection cd: CardinalDirection.values()) {
+			// check for reachable neighbors
+			if (cells.hasNoWall(currentX, currentY, cd)) {
+				// check if neighbor is on board
+				dir = cd.getDirection();
+				nextX = currentX+dir[0];
+				nextY = currentY+dir[1];
+				// check if cell at (nextX,nextY) is within bounds
+				if ((0 <= nextX && nextX < width) && (0 <= nextY && nextY < height)) {
+					// check if neigbor's distance needs update
+					if (dists[nextX][nextY] > nextDistance) {
+						// update the neighbor's distance value
+						// mark that cell as the next one
+						dists[nextX][nextY] = nextDistance;
+						result = cd;
+					}
+				}
+			}
+		}
+		return result;
+	}
+	/**
+	 * Fix-point iteration on distance matrix.
+	 * @param  cells with information on wallboards for a maze, can not be null, read only
+	 */
+	private void saturateDistances(Floorplan cells) {
+		boolean progress = false;
+		int[] dir = null;
+		CardinalDirection nextn;
+		do {
+			progress = false; // reset termination criterion
+			// go through all positions
+			// check if we can update a neighbor to
+			// a shorter distance, if so we made progress
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					nextn = updateNeighborDistancesAndDirection(cells, x, y);
+					if (null != nextn) {
+						progress = true; // something changed
+						// follow neighbor on a depth-first-search path
+						dir = nextn.getDirection();
+						pushDistanceValuesDFS2(cells, x+dir[0], y+dir[1]);
+					}
+				}
+			}
+		} while (progress);
+	}
+	/**
+	 * Finds the most remote point in the maze somewhere on the border,
+	 * the first one in the same order as Distance does.
+	 * @return array of length 2 encodes position
+	 * {@code (x,y)=(array[0],array[1])}
+	 */
+	private int[] getPositionWithMaxDistanceOnBorder() {
+		int[] result = new int[2] ;
+		int remoteDist = 0;
+		for (int x = 0; x < width; x++) {
+			remoteDist = keepMaxDistance(x, 0, remoteDist, result);
+			remoteDist = keepMaxDistance(x, height-1, remoteDist, result);
+		}
+		for (int y = 0; y < height; y++) {
+			remoteDist = keepMaxDistance(0, y, remoteDist, result);
+			remoteDist = keepMaxDistance(width-1, y, remoteDist, result);
+		}
+		return result;
+	}
+	private int keepMaxDistance(int x, int y, int d, int[] result) {
+		if (dists[x][y] > d) {
+			result[0] = x;
+			result[1] = y;
+			d = dists[x][y];
+		}
+		return d;
+	}
+}
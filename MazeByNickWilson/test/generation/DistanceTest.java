@@ -0,0 +1,414 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import generation.Order.Builder;
+
+/**
+ * Tests the Distance class.
+ * The breadth first search in computeDistances must deliver the
+ * same distance values, exit and starting position as the
+ * original fixpoint iteration in DistanceFixpointReference,
+ * and so must the bit parallel engine for large floorplans.
+ * Incremental updates after wallboard changes must match a
+ * recomputation from the same exit position.
+ * Floorplan and distances in memory mapped files must deliver
+ * the same maze as on the heap.
+ */
+class DistanceTest {
+
+	/**
+	 * Test case: compare breadth first search with fixpoint iteration
+	 * <p>
+	 * Method under test: computeDistances
+	 * <p>
+	 * For mazes of all builders, with and without rooms, both
+	 * computations must agree on every distance value and on the
+	 * exit and starting position.
+	 */
+	@Test
+	final void testSameResultAsFixpoint() {
+		for (Builder builder : new Builder[] {Builder.DFS, Builder.Prim, Builder.Kruskal}) {
+			for (int skill = 0; skill <= 4; skill++) {
+				checkSameResult(makeFloorplan(skill, builder, false, 13));
+				checkSameResult(makeFloorplan(skill, builder, true, 13));
+			}
+		}
+	}
+
+	/**
+	 * Test case: distance values on a floorplan without any inner wallboards
+	 * <p>
+	 * Method under test: computeDistances
+	 * <p>
+	 * Without walls the distance is the Manhattan distance to the exit plus one.
+	 */
+	@Test
+	final void testOpenFloorplan() {
+		Floorplan floorplan = new Floorplan(6, 4);
+		Distance distance = new Distance(6, 4);
+		int[] exit = distance.computeDistances(floorplan);
+		for (int x = 0; x < 6; x++) {
+			for (int y = 0; y < 4; y++) {
+				assertEquals(1 + Math.abs(x-exit[0]) + Math.abs(y-exit[1]), distance.getDistanceValue(x, y));
+			}
+		}
+		assertEquals(1, distance.getMinDistance());
+	}
+
+	/**
+	 * Test case: compare bit parallel engine with breadth first search
+	 * <p>
+	 * Method under test: computeDistances(Floorplan, boolean)
+	 * <p>
+	 * For mazes of all builders, with and without rooms, and for 
+	 * sizes that do not fill 64 bit words or span several of them,
+	 * both engines must agree on every distance value and on the
+	 * exit and starting position.
+	 */
+	@Test
+	final void testBitParallelSameResultAsBFS() {
+		for (Builder builder : new Builder[] {Builder.DFS, Builder.Prim, Builder.Kruskal}) {
+			for (int skill = 0; skill <= 4; skill++) {
+				checkBitParallel(makeFloorplan(skill, builder, false, 13));
+				checkBitParallel(makeFloorplan(skill, builder, true, 13));
+			}
+		}
+		int[][] sizes = {{1, 1}, {1, 7}, {7, 1}, {63, 5}, {64, 64}, {65, 3}, {130, 70}, {200, 300}};
+		for (int[] size : sizes) {
+			checkBitParallel(DistanceBenchmark.makeFloorplan(size[0], size[1], 13));
+			checkBitParallel(new Floorplan(size[0], size[1]));
+		}
+	}
+
+	/**
+	 * Test case: bit parallel engine with tasks on several threads
+	 * <p>
+	 * Method under test: BitParallelDistance.computeDists
+	 * <p>
+	 * Floorplans are large enough to fork tasks for rows,
+	 * distance values must match those of the breadth first search.
+	 */
+	@Test
+	final void testBitParallelWithForkJoinPool() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (Floorplan floorplan : new Floorplan[] {DistanceBenchmark.makeFloorplan(150, 300, 7), new Floorplan(200, 300)}) {
+				int width = floorplan.getWidth();
+				int height = floorplan.getHeight();
+				Distance bfs = new Distance(width, height);
+				int[] exit = bfs.computeDistances(floorplan, false);
+				int[][] dists = new int[width][height];
+				new BitParallelDistance(floorplan, pool).computeDists(dists, exit[0], exit[1]);
+				for (int x = 0; x < width; x++) {
+					assertArrayEquals(bfs.getAllDistanceValues()[x], dists[x]);
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test case: repair distances after adding and deleting wallboards
+	 * <p>
+	 * Method under test: updateDistances
+	 * <p>
+	 * Applies batches of random wallboard changes, including changes that
+	 * disconnect parts of the maze. After each batch distance values must match
+	 * a breadth first search from the exit and the returned positions must be 
+	 * exactly those with a changed value.
+	 */
+	@Test
+	final void testUpdateDistances() {
+		Floorplan[] floorplans = {DistanceBenchmark.makeFloorplan(40, 30, 5), 
+				makeFloorplan(3, Builder.Prim, false, 5), new Floorplan(12, 9)};
+		Random random = new Random(5);
+		for (Floorplan floorplan : floorplans) {
+			int width = floorplan.getWidth();
+			int height = floorplan.getHeight();
+			Distance distance = new Distance(width, height);
+			int[] exit = distance.computeDistances(floorplan);
+			for (int round = 0; round < 60; round++) {
+				int[][] before = new int[width][];
+				for (int x = 0; x < width; x++) {
+					before[x] = distance.getAllDistanceValues()[x].clone();
+				}
+				// a batch with a few changes, deletions are more likely
+				Wallboard[] batch = new Wallboard[1 + random.nextInt(3)];
+				for (int i = 0; i < batch.length; i++) {
+					batch[i] = randomInnerWallboard(random, width, height);
+					if (random.nextInt(3) == 0)
+						floorplan.addWallboard(batch[i], true);
+					else
+						floorplan.deleteWallboard(batch[i]);
+				}
+				List<int[]> changed = distance.updateDistances(floorplan, batch);
+				int[][] expected = referenceDistances(floorplan, exit);
+				int differences = 0;
+				for (int x = 0; x < width; x++) {
+					assertArrayEquals(expected[x], distance.getAllDistanceValues()[x]);
+					for (int y = 0; y < height; y++) {
+						if (before[x][y] != expected[x][y])
+							differences++;
+					}
+				}
+				assertEquals(differences, changed.size());
+				for (int[] position : changed) {
+					assertNotEquals(before[position[0]][position[1]], expected[position[0]][position[1]]);
+				}
+			}
+			assertArrayEquals(exit, distance.getExitPosition());
+		}
+	}
+	/**
+	 * Test case: repair distances after the matrix was replaced by a larger one
+	 * <p>
+	 * Method under test: updateDistances, setAllDistanceValues
+	 * <p>
+	 * An update on a small maze sets up scratch space for its size.
+	 * After setAllDistanceValues with a larger matrix, updates must work
+	 * on the larger maze and match a breadth first search from the exit.
+	 */
+	@Test
+	final void testUpdateDistancesAfterResize() {
+		Random random = new Random(7);
+		Floorplan small = DistanceBenchmark.makeFloorplan(4, 4, 7);
+		Distance distance = new Distance(4, 4);
+		distance.computeDistances(small);
+		Wallboard wallboard = randomInnerWallboard(random, 4, 4);
+		small.deleteWallboard(wallboard);
+		distance.updateDistances(small, wallboard);
+		Floorplan large = DistanceBenchmark.makeFloorplan(40, 30, 7);
+		distance.setAllDistanceValues(new int[40][30]);
+		int[] exit = distance.computeDistances(large);
+		for (int round = 0; round < 10; round++) {
+			wallboard = randomInnerWallboard(random, 40, 30);
+			large.deleteWallboard(wallboard);
+			distance.updateDistances(large, wallboard);
+		}
+		int[][] expected = referenceDistances(large, exit);
+		for (int x = 0; x < 40; x++) {
+			assertArrayEquals(expected[x], distance.getAllDistanceValues()[x]);
+		}
+	}
+	/**
+	 * Picks a random wallboard between two cells of a maze.
+	 * @param random the random number generator
+	 * @param width of the maze, at least 2
+	 * @param height of the maze, at least 2
+	 * @return a wallboard whose neighbor is inside the maze
+	 */
+	private Wallboard randomInnerWallboard(Random random, int width, int height) {
+		if (random.nextBoolean())
+			return new Wallboard(random.nextInt(width-1), random.nextInt(height), CardinalDirection.East);
+		return new Wallboard(random.nextInt(width), random.nextInt(height-1), CardinalDirection.South);
+	}
+	/**
+	 * Computes distances to the given exit position with a breadth first
+	 * search that tolerates unreachable cells.
+	 * @param floorplan the floorplan of a maze
+	 * @param exit the exit position
+	 * @return distance values, {@link Distance#INFINITY} for unreachable cells
+	 */
+	private int[][] referenceDistances(Floorplan floorplan, int[] exit) {
+		int width = floorplan.getWidth();
+		int height = floorplan.getHeight();
+		int[][] dists = new int[width][height];
+		for (int[] column : dists) {
+			Arrays.fill(column, Distance.INFINITY);
+		}
+		ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+		dists[exit[0]][exit[1]] = 1;
+		queue.add(exit);
+		while (!queue.isEmpty()) {
+			int[] cell = queue.poll();
+			for (CardinalDirection cd : CardinalDirection.values()) {
+				int[] d = cd.getDirection();
+				int nx = cell[0] + d[0];
+				int ny = cell[1] + d[1];
+				if (floorplan.hasNoWall(cell[0], cell[1], cd) && 0 <= nx && nx < width && 0 <= ny && ny < height
+						&& dists[nx][ny] == Distance.INFINITY) {
+					dists[nx][ny] = dists[cell[0]][cell[1]] + 1;
+					queue.add(new int[] {nx, ny});
+				}
+			}
+		}
+		return dists;
+	}
+
+	/**
+	 * Computes distances with both engines on the given floorplan
+	 * and compares the results.
+	 * @param floorplan the floorplan of a maze
+	 */
+	private void checkBitParallel(Floorplan floorplan) {
+		int width = floorplan.getWidth();
+		int height = floorplan.getHeight();
+		Distance bfs = new Distance(width, height);
+		Distance bitParallel = new Distance(width, height);
+		assertArrayEquals(bfs.computeDistances(floorplan, false), bitParallel.computeDistances(floorplan, true));
+		for (int x = 0; x < width; x++) {
+			assertArrayEquals(bfs.getAllDistanceValues()[x], bitParallel.getAllDistanceValues()[x]);
+		}
+		assertArrayEquals(bfs.getStartPosition(), bitParallel.getStartPosition());
+	}
+
+	/**
+	 * Computes distances with both methods on the given floorplan
+	 * and compares the results.
+	 * @param floorplan the floorplan of a generated maze
+	 */
+	private void checkSameResult(Floorplan floorplan) {
+		int width = floorplan.getWidth();
+		int height = floorplan.getHeight();
+		Distance bfs = new Distance(width, height);
+		Distance fixpoint = new Distance(width, height);
+		assertArrayEquals(DistanceFixpointReference.computeDistances(fixpoint, floorplan), bfs.computeDistances(floorplan));
+		for (int x = 0; x < width; x++) {
+			assertArrayEquals(fixpoint.getAllDistanceValues()[x], bfs.getAllDistanceValues()[x]);
+		}
+		assertArrayEquals(fixpoint.getStartPosition(), bfs.getStartPosition());
+	}
+
+	/**
+	 * Test case: distances in the tiled layout
+	 * <p>
+	 * Method under test: Distance(int, int, CellLayout), computeDistances
+	 * <p>
+	 * For a floorplan and distances in the tiled layout, the breadth first
+	 * search must deliver the same values, exit and starting position as
+	 * for the row-major layout.
+	 */
+	@Test
+	final void testTiledLayout() {
+		for (int seed = 0; seed < 4; seed++) {
+			Floorplan floorplan = makePathways(new MazeBuilderKruskal(), CellLayout.ROW_MAJOR, seed);
+			Floorplan tiled = makePathways(new MazeBuilderKruskal(), CellLayout.TILED, seed);
+			assertEquals(floorplan, tiled);
+			int width = floorplan.getWidth();
+			int height = floorplan.getHeight();
+			Distance expected = new Distance(width, height);
+			Distance distance = new Distance(width, height, CellLayout.TILED);
+			assertArrayEquals(expected.computeDistances(floorplan), distance.computeDistances(tiled));
+			assertArrayEquals(expected.getStartPosition(), distance.getStartPosition());
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					assertEquals(expected.getDistanceValue(x, y), distance.getDistanceValue(x, y));
+				}
+			}
+		}
+	}
+	/**
+	 * Test case: maze with floorplan and distances in memory mapped files
+	 * <p>
+	 * Method under test: MazeBuilder.setStorageDirectory, MazeContainer.close
+	 * <p>
+	 * The builder must deliver the same walls, distances and starting position
+	 * as for a maze on the heap and close must remove the files.
+	 */
+	@Test
+	final void testMappedStorage(@TempDir Path directory) throws IOException {
+		Maze expected = MazeFactoryTest.makeMaze(2, Builder.Kruskal, false, 13);
+		
+		StubOrder order = new StubOrder(2, Builder.Kruskal, false, 13);
+		MazeBuilder builder = new MazeBuilderKruskal();
+		builder.setStorageDirectory(directory);
+		builder.buildOrder(order);
+		builder.run();
+		MazeContainer maze = (MazeContainer)order.getMaze();
+		assertEquals(true, maze.getFloorplan().isMapped());
+		assertEquals(true, maze.getMazedists().isMapped());
+		assertEquals(2, countFiles(directory));
+		assertEquals(expected.getFloorplan(), maze.getFloorplan());
+		assertArrayEquals(expected.getStartingPosition(), maze.getStartingPosition());
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertEquals(expected.getDistanceToExit(x, y), maze.getDistanceToExit(x, y));
+			}
+		}
+		maze.close();
+		maze.close();
+		assertEquals(0, countFiles(directory));
+	}
+	/**
+	 * Test case: order a maze from a factory with a storage directory
+	 * <p>
+	 * Method under test: MazeFactory.setStorageDirectory, MazeFactory.order
+	 * <p>
+	 * The delivered maze must be in memory mapped files and be the same
+	 * as the maze on the heap, close must remove the files.
+	 */
+	@Test
+	final void testMappedStorageThroughFactory(@TempDir Path directory) throws IOException {
+		MazeFactory factory = new MazeFactory();
+		assertEquals(null, factory.getStorageDirectory());
+		Maze expected = MazeFactoryTest.makeMaze(factory, 3, Builder.Prim, false, 21);
+
+		factory.setStorageDirectory(directory);
+		StubOrder order = new StubOrder(3, Builder.Prim, false, 21);
+		assertEquals(true, factory.order(order));
+		factory.waitTillDelivered();
+		MazeContainer maze = (MazeContainer)order.getMaze();
+		assertEquals(true, maze.getFloorplan().isMapped());
+		assertEquals(true, maze.getMazedists().isMapped());
+		assertEquals(2, countFiles(directory));
+		assertEquals(expected.getFloorplan(), maze.getFloorplan());
+		assertEquals(expected.getDistanceToExit(0, 0), maze.getDistanceToExit(0, 0));
+		maze.close();
+		assertEquals(0, countFiles(directory));
+	}
+	/**
+	 * Counts the files in a directory.
+	 * @param directory to look into
+	 * @return number of files
+	 * @throws IOException if the directory can not be read
+	 */
+	private static long countFiles(Path directory) throws IOException {
+		try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+	/**
+	 * Generates rooms and pathways for a skill level 3 maze on a floorplan
+	 * with the given layout, skips distance and BSP computations.
+	 * @param builder generates the pathways
+	 * @param layout of the floorplan
+	 * @param seed for the random number generator
+	 * @return floorplan with rooms and pathways
+	 */
+	private static Floorplan makePathways(MazeBuilder builder, CellLayout layout, int seed) {
+		builder.buildOrder(new StubOrder(3, Builder.Kruskal, false, seed));
+		builder.floorplan = new Floorplan(builder.width, builder.height, layout);
+		builder.floorplan.initialize();
+		builder.generateRooms();
+		builder.generatePathways();
+		return builder.floorplan;
+	}
+	/**
+	 * Makes a maze with the maze factory and returns its floorplan.
+	 * @param skill the skill level
+	 * @param builder the generation algorithm
+	 * @param perfect true for a maze without rooms
+	 * @param seed the seed for the random number generator
+	 * @return the floorplan of the generated maze
+	 */
+	static Floorplan makeFloorplan(int skill, Builder builder, boolean perfect, int seed) {
+		return MazeFactoryTest.makeMaze(skill, builder, perfect, seed).getFloorplan();
+	}
+}
@@ -0,0 +1,108 @@
+package generation;
+
+import gui.Constants;
+
+/**
+ * Compares the flat form of BSP trees, {@link FlatBSPTree}, with the tree of
+ * {@link BSPNode} and {@link Wall} objects.
+ * This is not a junit test, run its main method to obtain numbers.
+ * For the maze at each skill level, the table gives the heap size of both forms
+ * and the time of a full traversal like the one of the first person view,
+ * front to back from the starting position with all walls of all leaves.
+ * Optional argument: builder, e.g. Prim, default is DFS.
+ */
+public class FlatBSPTreeBenchmark {
+
+	private static final int COPIES = 20; // trees on the heap for the size
+	private static final int ROUNDS = 200; // traversals for the time
+
+	private static int sink; // keeps the traversals from being optimized away
+
+	public static void main(String[] args) {
+		final Order.Builder builder = (args.length > 0) ? Order.Builder.valueOf(args[0]) : Order.Builder.DFS;
+		System.out.println("size       nodes   walls  objects[KB]  flat[KB]  objects[us]  flat[us]");
+		for (int skill = 0; skill < Constants.SKILL_X.length; skill++) {
+			final Maze maze = MazeFactoryTest.makeMaze(skill, builder, false, 13);
+			final FlatBSPTree tree = FlatBSPTree.of(maze.getRootnode());
+			final int[] start = maze.getStartingPosition();
+			final int x = start[0]*Constants.MAP_UNIT + Constants.MAP_UNIT/2;
+			final int y = start[1]*Constants.MAP_UNIT + Constants.MAP_UNIT/2;
+			System.out.printf("%4dx%-4d %7d %7d", maze.getWidth(), maze.getHeight(), tree.getNodeCount(), tree.getWallCount());
+			System.out.printf(" %12d %9d", heapSize(tree, false)/1024, heapSize(tree, true)/1024);
+			final BSPNode root = tree.toNode();
+			long objects = Long.MAX_VALUE, flat = Long.MAX_VALUE;
+			for (int i = 0; i < ROUNDS; i++) {
+				long begin = System.nanoTime();
+				sink += traverse(root, x, y);
+				objects = Math.min(objects, System.nanoTime() - begin);
+				begin = System.nanoTime();
+				sink += traverse(tree, 0, x, y);
+				flat = Math.min(flat, System.nanoTime() - begin);
+			}
+			System.out.printf(" %12.1f %9.1f%n", objects/1e3, flat/1e3);
+		}
+		if (0 == sink)
+			System.out.println();
+	}
+	/**
+	 * Measures the heap that a tree takes by creating copies of it.
+	 * @param tree the tree to copy
+	 * @param flat true for copies in flat form, false for trees of objects
+	 * @return bytes per tree
+	 */
+	static long heapSize(FlatBSPTree tree, boolean flat) {
+		final Object[] copies = new Object[COPIES];
+		final long before = usedHeap();
+		for (int i = 0; i < COPIES; i++) {
+			copies[i] = flat ? FlatBSPTree.of(tree.toNode()) : tree.toNode();
+		}
+		final long after = usedHeap();
+		sink += copies.length;
+		return (after - before) / COPIES;
+	}
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	/**
+	 * Visits the tree of objects front to back as seen from (x,y).
+	 * @return a sum over the coordinates of all walls
+	 */
+	static int traverse(BSPNode node, int x, int y) {
+		if (node.isIsleaf()) {
+			int sum = 0;
+			for (Wall wall : ((BSPLeaf)node).getAllWalls()) {
+				sum += wall.getStartPositionX() + wall.getEndPositionY() + wall.getColor().getRGB();
+			}
+			return sum;
+		}
+		final BSPBranch branch = (BSPBranch)node;
+		final int dot = (x-branch.getX())*branch.getDy() - (y-branch.getY())*branch.getDx();
+		final BSPNode first = (dot >= 0) ? branch.getRightBranch() : branch.getLeftBranch();
+		final BSPNode second = (dot >= 0) ? branch.getLeftBranch() : branch.getRightBranch();
+		return traverse(first, x, y) + traverse(second, x, y)
+				+ first.getLowerBoundX() + second.getUpperBoundY();
+	}
+	/**
+	 * Visits the flat tree front to back as seen from (x,y).
+	 * @return a sum over the coordinates of all walls
+	 */
+	static int traverse(FlatBSPTree tree, int node, int x, int y) {
+		if (tree.isLeaf(node)) {
+			int sum = 0;
+			final int end = tree.getEndWall(node);
+			for (int wall = tree.getFirstWall(node); wall < end; wall++) {
+				sum += tree.getWallStartX(wall) + tree.getWallEndY(wall) + tree.getWallColor(wall).getRGB();
+			}
+			return sum;
+		}
+		final int dot = (x-tree.getX(node))*tree.getDy(node) - (y-tree.getY(node))*tree.getDx(node);
+		final int first = (dot >= 0) ? tree.getRight(node) : tree.getLeft(node);
+		final int second = (dot >= 0) ? tree.getLeft(node) : tree.getRight(node);
+		return traverse(tree, first, x, y) + traverse(tree, second, x, y)
+				+ tree.getLowerBoundX(first) + tree.getUpperBoundY(second);
+	}
+}
@@ -0,0 +1,176 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import gui.Constants;
+
+/**
+ * Tests for the flat form of BSP trees, {@link FlatBSPTree}.
+ */
+public class FlatBSPTreeTest {
+
+	/**
+	 * Compares a subtree of the flat tree with a subtree of BSP nodes,
+	 * walls are compared by their numbers in the flat tree.
+	 * @return number of the next node after the subtree
+	 */
+	private static int assertSameLayout(BSPNode expected, FlatBSPTree tree, int node, int wall) {
+		assertEquals(expected.isIsleaf(), tree.isLeaf(node));
+		assertEquals(expected.getLowerBoundX(), tree.getLowerBoundX(node));
+		assertEquals(expected.getUpperBoundY(), tree.getUpperBoundY(node));
+		if (expected.isIsleaf()) {
+			List<Wall> walls = ((BSPLeaf)expected).getAllWalls();
+			assertEquals(wall, tree.getFirstWall(node));
+			assertEquals(wall + walls.size(), tree.getEndWall(node));
+			for (Wall w : walls) {
+				assertEquals(w.getStartPositionX(), tree.getWallStartX(wall));
+				assertEquals(w.getEndPositionY(), tree.getWallEndY(wall));
+				assertEquals(w.getDistance(), tree.getWallDistance(wall));
+				assertEquals(w.getColor(), tree.getWallColor(wall));
+				wall++;
+			}
+			return node + 1;
+		}
+		BSPBranch branch = (BSPBranch)expected;
+		assertEquals(branch.getX(), tree.getX(node));
+		assertEquals(branch.getDy(), tree.getDy(node));
+		assertEquals(node + 1, tree.getLeft(node));
+		int right = assertSameLayout(branch.getLeftBranch(), tree, node + 1, wall);
+		assertEquals(right, tree.getRight(node));
+		return assertSameLayout(branch.getRightBranch(), tree, right, endWall(tree, node + 1));
+	}
+	private static int endWall(FlatBSPTree tree, int node) {
+		while (!tree.isLeaf(node))
+			node = tree.getRight(node);
+		return tree.getEndWall(node);
+	}
+	private static int countWalls(BSPNode node) {
+		if (node.isIsleaf())
+			return ((BSPLeaf)node).getAllWalls().size();
+		return countWalls(((BSPBranch)node).getLeftBranch()) + countWalls(((BSPBranch)node).getRightBranch());
+	}
+	private static FlatBSPTree writeAndRead(FlatBSPTree tree) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(buffer)) {
+			tree.write(out);
+		}
+		return FlatBSPTree.read(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+	}
+	/**
+	 * Test case: flatten the tree of a maze and inflate it again.
+	 * Correct behavior: nodes are in preorder with the walls of each leaf
+	 * in a consecutive range, the inflated tree is the same as the original one.
+	 */
+	@Test
+	public void testFlattenAndInflate() {
+		BSPNode root = MazeFactoryTest.makeMaze(5, Order.Builder.DFS, false, 13).getRootnode();
+		FlatBSPTree tree = FlatBSPTree.of(root);
+		assertEquals(tree.getNodeCount(), assertSameLayout(root, tree, 0, 0));
+		assertEquals(countWalls(root), tree.getWallCount());
+		BSPBuilderTest.assertSameNode(root, tree.toNode());
+	}
+	/**
+	 * Test case: flatten a tree with a wall that has been seen, write the flat tree
+	 * and read it again.
+	 * Correct behavior: the tree is the same, seen flags are not part of the
+	 * flat tree, so the walls of inflated trees are not seen.
+	 */
+	@Test
+	public void testWriteAndRead() throws IOException {
+		BSPNode root = MazeFactoryTest.makeMaze(4, Order.Builder.Prim, true, 5).getRootnode();
+		List<Wall> walls = new ArrayList<Wall>();
+		collectWalls(root, walls);
+		walls.get(0).setSeen(true);
+		FlatBSPTree tree = FlatBSPTree.of(root);
+		List<Wall> inflated = new ArrayList<Wall>();
+		collectWalls(tree.toNode(), inflated);
+		assertFalse(inflated.get(0).isSeen());
+		walls.get(0).setSeen(false);
+		FlatBSPTree copy = writeAndRead(tree);
+		assertEquals(tree.getNodeCount(), copy.getNodeCount());
+		BSPBuilderTest.assertSameNode(root, copy.toNode());
+	}
+	/**
+	 * Test case: read bytes that are not a stored tree.
+	 * Correct behavior: an IOException, not an exception on a later access.
+	 */
+	@Test
+	public void testReadGarbage() throws IOException {
+		byte[] data = new byte[64];
+		assertThrows(IOException.class, () -> FlatBSPTree.read(new DataInputStream(new ByteArrayInputStream(data))));
+		FlatBSPTree tree = FlatBSPTree.of(MazeFactoryTest.makeMaze(0, Order.Builder.DFS, false, 1).getRootnode());
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(buffer)) {
+			tree.write(out);
+		}
+		byte[] cut = Arrays.copyOf(buffer.toByteArray(), buffer.size() / 2);
+		assertThrows(IOException.class, () -> FlatBSPTree.read(new DataInputStream(new ByteArrayInputStream(cut))));
+	}
+	/**
+	 * Test case: a maze container with a tree of BSP nodes or with a flat tree.
+	 * Correct behavior: the flat tree is built once and kept, the tree of
+	 * BSP nodes is built from a flat tree if there is no other one.
+	 */
+	@Test
+	public void testMazeContainer() {
+		MazeContainer maze = (MazeContainer)MazeFactoryTest.makeMaze(2, Order.Builder.DFS, false, 7);
+		FlatBSPTree tree = maze.getFlatTree();
+		assertSame(tree, maze.getFlatTree());
+		BSPNode root = maze.getRootnode();
+		maze.setFlatTree(tree);
+		BSPNode inflated = maze.getRootnode();
+		assertNotSame(root, inflated);
+		BSPBuilderTest.assertSameNode(root, inflated);
+		assertSame(tree, maze.getFlatTree());
+		maze.setRootnode(root);
+		assertNotSame(tree, maze.getFlatTree());
+	}
+	/**
+	 * Test case: mark the wallboards of each inner wall as seen, once by wall
+	 * and once by the coordinates of the wall in the flat tree.
+	 * Correct behavior: the floorplans are the same.
+	 */
+	@Test
+	public void testAddWallByCoordinates() {
+		Maze maze = MazeFactoryTest.makeMaze(3, Order.Builder.DFS, false, 11);
+		FlatBSPTree tree = maze.getFlatTree();
+		List<Wall> walls = new ArrayList<Wall>();
+		collectWalls(maze.getRootnode(), walls);
+		Floorplan byWall = new Floorplan(maze.getWidth(), maze.getHeight());
+		Floorplan byCoordinates = new Floorplan(maze.getWidth(), maze.getHeight());
+		assertEquals(walls.size(), tree.getWallCount());
+		int added = 0;
+		for (int i = 0; i < walls.size(); i++) {
+			Wall wall = walls.get(i);
+			// walls on the border at the bottom or on the right start outside of the cells
+			if (wall.getStartPositionX() / Constants.MAP_UNIT >= maze.getWidth()
+					|| wall.getStartPositionY() / Constants.MAP_UNIT >= maze.getHeight())
+				continue;
+			byWall.addWall(wall, Constants.MAP_UNIT);
+			byCoordinates.addWall(tree.getWallStartX(i), tree.getWallStartY(i),
+					tree.getWallExtensionX(i), tree.getWallExtensionY(i), Constants.MAP_UNIT);
+			added++;
+		}
+		assertTrue(0 < added);
+		assertEquals(byWall, byCoordinates);
+	}
+	private static void collectWalls(BSPNode node, List<Wall> walls) {
+		if (node.isIsleaf()) {
+			walls.addAll(((BSPLeaf)node).getAllWalls());
+		} else {
+			collectWalls(((BSPBranch)node).getLeftBranch(), walls);
+			collectWalls(((BSPBranch)node).getRightBranch(), walls);
+		}
+	}
+}
@@ -544,4 +544,133 @@ public class FloorplanTest{
 		assertEquals(cell1.getCWConstantForDirection(CardinalDirection.North),Floorplan.CW_TOP);
 	}
 
+	/**
+	 * Test case: Correctness of the open mask of a cell
+	 * <p>
+	 * Method under test: getOpenMask(int, int), getWallBit(CardinalDirection)
+	 * <p>
+	 * Correct behavior:
+	 * the bit for a direction is set in the mask if and only if there is no wallboard
+	 * in that direction, this holds after initialization and after wallboards are deleted.
+	 */
+	@Test
+	public void testGetOpenMask() {
+		floorplan.initialize();
+		floorplan.deleteWallboard(new Wallboard(1, 1, CardinalDirection.East));
+		floorplan.deleteWallboard(new Wallboard(1, 1, CardinalDirection.South));
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int open = floorplan.getOpenMask(x, y);
+				assertEquals(0, open & ~Floorplan.CW_ALL);
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					assertEquals(floorplan.hasNoWall(x, y, cd), (open & Floorplan.getWallBit(cd)) != 0);
+				}
+			}
+		}
+		assertEquals(Floorplan.CW_RIGHT | Floorplan.CW_BOT, floorplan.getOpenMask(1, 1));
+		assertEquals(Floorplan.CW_LEFT, floorplan.getOpenMask(2, 1));
+		assertEquals(Floorplan.CW_TOP, floorplan.getOpenMask(1, 2));
+	}
+
+	/**
+	 * Test case: Correctness of the tiled layout
+	 * <p>
+	 * Method under test: Floorplan(int, int, CellLayout), equals
+	 * <p>
+	 * Correct behavior:
+	 * each cell has a position of its own within the capacity of the layout,
+	 * a floorplan with a tiled layout has the same content as one with
+	 * a row-major layout after the same operations and they are equal.
+	 */
+	@Test
+	public void testTiledLayout() {
+		final int w = 13;
+		final int h = 21;
+		boolean[] used = new boolean[(int)CellLayout.TILED.capacity(w, h)];
+		for (int x = 0; x < w; x++) {
+			for (int y = 0; y < h; y++) {
+				int index = CellLayout.tiledIndex(x, y, CellLayout.tileColumns(w));
+				assertFalse(used[index]);
+				used[index] = true;
+			}
+		}
+		Floorplan rowMajor = new Floorplan(w, h);
+		Floorplan tiled = new Floorplan(w, h, CellLayout.TILED);
+		assertEquals(CellLayout.TILED, tiled.getLayout());
+		for (Floorplan f : new Floorplan[] {rowMajor, tiled}) {
+			f.initialize();
+			f.setInRoomToOne(5, 10);
+			f.addWallboard(new Wallboard(3, 9, CardinalDirection.North), true);
+			f.deleteWallboard(new Wallboard(8, 8, CardinalDirection.East));
+			f.deleteWallboard(new Wallboard(7, 15, CardinalDirection.South));
+			f.setCellAsVisited(11, 2);
+		}
+		assertTrue(rowMajor.equals(tiled));
+		assertTrue(tiled.equals(rowMajor));
+		for (int x = 0; x < w; x++) {
+			for (int y = 0; y < h; y++) {
+				assertEquals(rowMajor.getValueOfCell(x, y), tiled.getValueOfCell(x, y));
+			}
+		}
+	}
+
+	/**
+	 * Test case: Correctness of copy-on-write snapshots
+	 * <p>
+	 * Method under test: createCopyOnWrite, snapshot, equals, hashCode
+	 * <p>
+	 * Correct behavior:
+	 * a copy-on-write floorplan behaves like one with a row-major layout,
+	 * a snapshot equals the original and has the same hash code,
+	 * changes to the original or the snapshot do not show in the other one,
+	 * equal floorplans have equal hash codes for all kinds of storage.
+	 */
+	@Test
+	public void testCopyOnWriteSnapshot() {
+		final int w = 150; // 3x2 chunks, partly filled at the right and bottom
+		final int h = 70;
+		Floorplan rowMajor = new Floorplan(w, h);
+		Floorplan tiled = new Floorplan(w, h, CellLayout.TILED);
+		Floorplan chunked = Floorplan.createCopyOnWrite(w, h);
+		assertTrue(chunked.isCopyOnWrite());
+		assertFalse(rowMajor.isCopyOnWrite());
+		assertEquals(CellLayout.ROW_MAJOR, chunked.getLayout());
+		for (Floorplan f : new Floorplan[] {rowMajor, tiled, chunked}) {
+			f.initialize();
+			f.setInRoomToOne(100, 65);
+			f.deleteWallboard(new Wallboard(63, 10, CardinalDirection.East));
+			f.deleteWallboard(new Wallboard(20, 63, CardinalDirection.South));
+		}
+		assertTrue(chunked.equals(rowMajor));
+		assertTrue(rowMajor.equals(chunked));
+		assertTrue(chunked.equals(tiled));
+		assertEquals(rowMajor.hashCode(), chunked.hashCode());
+		assertEquals(rowMajor.hashCode(), tiled.hashCode());
+		// a snapshot is equal and independent
+		Floorplan snapshot = chunked.snapshot();
+		assertTrue(snapshot.isCopyOnWrite());
+		assertTrue(snapshot.equals(chunked));
+		assertEquals(chunked.hashCode(), snapshot.hashCode());
+		chunked.deleteWallboard(new Wallboard(130, 5, CardinalDirection.East));
+		assertTrue(chunked.hasNoWall(130, 5, CardinalDirection.East));
+		assertTrue(snapshot.hasWall(130, 5, CardinalDirection.East));
+		assertTrue(snapshot.hasWall(131, 5, CardinalDirection.West));
+		assertFalse(snapshot.equals(chunked));
+		assertTrue(snapshot.equals(rowMajor));
+		assertFalse(chunked.hashCode() == snapshot.hashCode());
+		snapshot.setCellAsVisited(0, 0);
+		assertFalse(snapshot.equals(rowMajor));
+		assertFalse(rowMajor.equals(chunked.snapshot().snapshot()));
+		// same change again makes them equal
+		rowMajor.deleteWallboard(new Wallboard(130, 5, CardinalDirection.East));
+		assertTrue(chunked.equals(rowMajor));
+		assertEquals(rowMajor.hashCode(), chunked.hashCode());
+		// a snapshot of a floorplan with other storage is a copy
+		Floorplan copy = tiled.snapshot();
+		assertTrue(copy.isCopyOnWrite());
+		assertTrue(copy.equals(tiled));
+		copy.setCellAsVisited(1, 1);
+		assertFalse(copy.equals(tiled));
+	}
+
 }
@@ -263,4 +263,55 @@ public class FloorplanTestIterator {
         }   
     }
 
+    /**
+     * Test case: See if the wall run cursor delivers the same sequences as the iterator
+     * <p>
+     * Method under test: WallRunCursor.reset, next, getStart, getEnd
+     * <p>
+     * For mazes with rooms that are wider than 64 cells, the cursor must
+     * deliver the same [start,end] pairs as the iterator for all positions
+     * and all directions, also if it is reused.
+     */
+    @Test
+    public final void testWallRunCursorSameAsIterator() {
+        for (int seed = 0; seed < 3; seed++) {
+            Floorplan floorplan = DistanceTest.makeFloorplan(10, Order.Builder.Kruskal, false, seed);
+            WallRunCursor runs = new WallRunCursor(floorplan);
+            for (int x = 0; x < floorplan.getWidth(); x++) {
+                for (int y = 0; y < floorplan.getHeight(); y++) {
+                    for (CardinalDirection cd: CardinalDirection.values()) {
+                        Iterator<int[]> it = floorplan.iterator(x, y, cd);
+                        runs.reset(x, y, cd);
+                        while (it.hasNext()) {
+                            int[] seq = it.next();
+                            assertTrue(runs.next());
+                            assertEquals(seq[0], runs.getStart());
+                            assertEquals(seq[1], runs.getEnd());
+                        }
+                        assertFalse(runs.next());
+                    }
+                }
+            }
+        }
+    }
+    /**
+     * Test case: See if walls from the cursor match walls from the iterator
+     * <p>
+     * Method under test: ListOfWallsBuilder.generateWalls
+     * <p>
+     * The list of walls must be the same as with the iterator based
+     * reference implementation in ListOfWallsBuilderReference, in the same order.
+     */
+    @Test
+    public final void testGenerateWallsSameAsIterator() {
+        for (int skill = 0; skill < 12; skill += 3) {
+            Maze maze = MazeFactoryTest.makeMaze(skill, Order.Builder.DFS, false, 13);
+            ListOfWallsBuilder builder = new ListOfWallsBuilder(maze.getWidth(), maze.getHeight(), 
+                    maze.getFloorplan(), maze.getMazedists(), 17);
+            ListOfWallsBuilderReference reference = new ListOfWallsBuilderReference(maze.getWidth(), maze.getHeight(), 
+                    maze.getFloorplan(), maze.getMazedists(), 17);
+            assertEquals(reference.generateWalls(), builder.generateWalls());
+        }
+    }
+
 }
@@ -0,0 +1,63 @@
+package generation;
+
+/**
+ * Compares the row-major and the tiled layout of cells for the generation
+ * of pathways and the computation of distances on large mazes.
+ * This is not a junit test, run its main method to obtain numbers.
+ * Pathways come from the DFS builder which follows paths through the maze,
+ * distances from the breadth first search. For the row-major layout, distances
+ * are in the usual matrix, for the tiled layout they are tiled as well.
+ * Arguments are the sizes to measure, the default is 1000 4000 10000,
+ * mazes are square. The largest size needs a heap of about 3 GB, e.g. -Xmx3g.
+ */
+public class LayoutBenchmark {
+
+	// number of measured rounds, mazes with more cells are measured once
+	private static final int ROUNDS = 3;
+	private static final long ROUNDS_MAX_CELLS = 4000L*4000;
+
+	public static void main(String[] args) {
+		if (args.length == 0)
+			args = new String[] {"1000", "4000", "10000"};
+		System.out.println("size         layout     pathways[ms]  distances[ms]  cells/s pathways  cells/s distances");
+		for (String arg : args) {
+			final int size = Integer.parseInt(arg);
+			run(size, CellLayout.ROW_MAJOR);
+			run(size, CellLayout.TILED);
+		}
+	}
+	/**
+	 * Generates perfect mazes of the given size and layout and prints 
+	 * average times and throughput.
+	 * @param size width and height of the maze
+	 * @param layout of floorplan and distances
+	 */
+	private static void run(int size, CellLayout layout) {
+		final int rounds = ((long)size*size <= ROUNDS_MAX_CELLS) ? ROUNDS : 1;
+		long pathways = 0;
+		long distances = 0;
+		// first round warms up and is not counted
+		for (int i = 0; i <= rounds; i++) {
+			MazeBuilder builder = new MazeBuilder();
+			builder.buildOrder(new StubOrder(0, Order.Builder.DFS, true, 13 + i));
+			builder.width = size;
+			builder.height = size;
+			builder.floorplan = new Floorplan(size, size, layout);
+			builder.floorplan.initialize();
+			long start = System.nanoTime();
+			builder.generatePathways();
+			final long pathwaysTime = System.nanoTime() - start;
+			Distance distance = new Distance(size, size, layout);
+			start = System.nanoTime();
+			distance.computeDistances(builder.floorplan, false);
+			final long distancesTime = System.nanoTime() - start;
+			if (i > 0) {
+				pathways += pathwaysTime;
+				distances += distancesTime;
+			}
+		}
+		final double cells = (double)size*size*rounds;
+		System.out.printf("%5dx%-5d %-9s %13.0f %14.0f %16.2e %18.2e%n", size, size, layout,
+				pathways/1e6/rounds, distances/1e6/rounds, cells/(pathways/1e9), cells/(distances/1e9));
+	}
+}
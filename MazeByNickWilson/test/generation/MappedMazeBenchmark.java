@@ -0,0 +1,71 @@
+package generation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares generation and distance computation for large mazes with
+ * floorplan and distances on the heap and in memory mapped files.
+ * This is not a junit test, run its main method to obtain numbers.
+ * Pathways come from Eller's algorithm which only keeps two rows
+ * on the heap, distances from the breadth first search.
+ * Arguments are the sizes to measure, e.g. {@code 2000 8000},
+ * mazes are square. Heap sizes are skipped with {@code -mapped}.
+ * Files go to the directory in the system property java.io.tmpdir.
+ */
+public class MappedMazeBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		boolean heap = true;
+		int sizes = 0;
+		for (String arg : args) {
+			if ("-mapped".equals(arg))
+				heap = false;
+			else
+				sizes++;
+		}
+		if (sizes == 0)
+			args = new String[] {"1000", "2000", "4000"};
+		final Path directory = Files.createTempDirectory("maze");
+		System.out.println("size         storage  pathways[ms] distances[ms]  heap used[MB]");
+		for (String arg : args) {
+			if ("-mapped".equals(arg))
+				continue;
+			final int size = Integer.parseInt(arg);
+			if (heap)
+				run(size, null);
+			run(size, directory);
+		}
+		Files.delete(directory);
+	}
+	/**
+	 * Generates a perfect maze and its distances and prints the times.
+	 * @param size width and height of the maze
+	 * @param directory for memory mapped files, null for the heap
+	 * @throws IOException if files can not be mapped
+	 */
+	private static void run(int size, Path directory) throws IOException {
+		System.gc();
+		final Runtime runtime = Runtime.getRuntime();
+		final long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+		MazeBuilderEller builder = new MazeBuilderEller();
+		builder.buildOrder(new StubOrder(0, Order.Builder.Eller, true, 13));
+		builder.width = size;
+		builder.height = size;
+		builder.floorplan = (null == directory) ? new Floorplan(size, size) : new Floorplan(size, size, directory);
+		builder.floorplan.initialize();
+		long start = System.nanoTime();
+		builder.generatePathways();
+		final double pathways = (System.nanoTime() - start)/1e6;
+		Distance distance = (null == directory) ? new Distance(size, size) : new Distance(size, size, directory);
+		start = System.nanoTime();
+		distance.computeDistances(builder.floorplan, false);
+		final double distances = (System.nanoTime() - start)/1e6;
+		final long used = runtime.totalMemory() - runtime.freeMemory() - usedBefore;
+		System.out.printf("%5dx%-5d %8s %13.0f %13.0f %14d%n", size, size, 
+				(null == directory) ? "heap" : "mapped", pathways, distances, used >> 20);
+		builder.floorplan.close();
+		distance.close();
+	}
+}
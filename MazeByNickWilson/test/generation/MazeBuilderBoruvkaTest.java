@@ -0,0 +1,108 @@
+package generation;
+
+import static generation.SpanningTreeChecker.assertAllCellsReachable;
+import static generation.SpanningTreeChecker.assertSameForAnyPool;
+import static generation.SpanningTreeChecker.countOpenings;
+import static generation.SpanningTreeChecker.generate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests mazes generated with Boruvka's algorithm.
+ * The spanning tree is unique for the edge weights of a seed,
+ * so the tests compare with Kruskal's algorithm for the same weights
+ * and with runs in pools of different sizes.
+ * The generic checks of the maze factory test run with Boruvka's algorithm as well.
+ */
+class MazeBuilderBoruvkaTest extends MazeFactoryTest {
+	/**
+	 * Generates pathways in pools of different sizes and
+	 * with a different seed.
+	 * Goal: The maze only depends on the seed and not on the number of threads.
+	 */
+	@Test
+	void testSeeds() {
+		Floorplan expected = assertSameForAnyPool(MazeBuilderBoruvka::new, 6, 97, 61, 4);
+		assertTrue(expected.equals(generate(new MazeBuilderBoruvka(), 97, 61, 4)));
+	}
+	/**
+	 * Computes the minimum spanning tree for the edge keys of the builder
+	 * with Kruskal's algorithm on the sorted edges.
+	 * Goal: Boruvka's algorithm finds the same minimum spanning tree.
+	 */
+	@Test
+	void testSameTreeAsKruskal() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		int[][] sizes = {{1, 1}, {1, 17}, {17, 1}, {2, 2}, {50, 40}, {123, 7}};
+		for (int[] size : sizes) {
+			int width = size[0];
+			int height = size[1];
+			Floorplan floorplan = generate(new MazeBuilderBoruvka(pool), width, height, 8);
+			// the builder draws its salt first from the generator of the order
+			int salt = new MazeRandom(8).nextIntWithinInterval(0, Integer.MAX_VALUE-1);
+			long[] keys = new long[2*width*height];
+			int n = 0;
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					int cell = x*height+y;
+					if (x+1 < width)
+						keys[n++] = MazeBuilderBoruvka.edgeKey(salt, 2*cell);
+					if (y+1 < height)
+						keys[n++] = MazeBuilderBoruvka.edgeKey(salt, 2*cell+1);
+				}
+			}
+			keys = Arrays.copyOf(keys, n);
+			Arrays.sort(keys);
+			int[] parent = new int[width*height];
+			for (int i = 0; i < parent.length; i++) {
+				parent[i] = i;
+			}
+			Floorplan expected = new Floorplan(width, height);
+			expected.initialize();
+			for (long key : keys) {
+				int edge = (int)key;
+				int cell = edge >>> 1;
+				boolean south = (edge & 1) == 1;
+				int a = MazeBuilderKruskal.find(parent, cell);
+				int b = MazeBuilderKruskal.find(parent, south ? cell+1 : cell+height);
+				if (a != b) {
+					parent[a] = b;
+					expected.deleteWallboard(cell/height, cell%height, south ? CardinalDirection.South : CardinalDirection.East);
+				}
+			}
+			assertTrue(expected.equals(floorplan));
+		}
+		pool.shutdown();
+	}
+	/**
+	 * Checks that every cell has a finite distance to the exit for all
+	 * small skill levels, with and without rooms, and that a perfect maze
+	 * has width*height-1 openings.
+	 * Goal: Rooms and their doors are connected to the spanning tree.
+	 */
+	@Test @Override
+	void testAllCellsReachable() {
+		for (int skill = 0; skill <= 5; skill++) {
+			for (boolean perfect : new boolean[] {true, false}) {
+				Maze maze = makeMaze(skill, getBuilder(), perfect, 13);
+				assertAllCellsReachable(maze);
+				if (perfect)
+					assertEquals(maze.getWidth()*maze.getHeight() - 1, countOpenings(maze.getFloorplan()));
+			}
+		}
+	}
+	/**
+	 * Runs the generic checks of the maze factory test with Boruvka's algorithm.
+	 */
+	@Override
+	Builder getBuilder() {
+		return Builder.Boruvka;
+	}
+}
@@ -0,0 +1,62 @@
+package generation;
+
+/**
+ * The previous implementation of the randomized depth first search in
+ * MazeBuilder that keeps the way back in a matrix of CardinalDirection
+ * objects and tests each wallboard with a Wallboard object.
+ * It is kept as a reference for BuilderBenchmark and MazeBuilderDFSReferenceTest
+ * and not used otherwise.
+ */
+class MazeBuilderDFSReference extends MazeBuilder {
+	/**
+	 * This method generates pathways into the maze.
+	 * Comments have been removed to make students 
+	 * recognize the difference between readable and unreadable code
+	 * and what kind of comments are needed to understand code.
+	 */
+	@Override
+	protected void generatePathways() {
+		int x = random.nextIntWithinInterval(0, width-1);
+		int y = 0; 
+		final int firstx = x; 
+		final int firsty = y;
+		
+		CardinalDirection[][] origcds = new CardinalDirection[width][height]; 
+		CardinalDirection cd = CardinalDirection.East;
+		CardinalDirection origcd = cd;
+		
+		floorplan.setCellAsVisited(x, y); 
+		Wallboard wallboard = new Wallboard(x, y, cd);
+		while (true) { 
+			wallboard.setLocationDirection(x, y, cd);
+			if (!floorplan.canTearDown(wallboard)) {
+				cd = cd.rotateClockwise();
+				if (origcd == cd) {				
+					if (x == firstx && y == firsty)
+						break; 			
+					int[] dxy = origcds[x][y].getDirection();
+					x -= dxy[0];
+					y -= dxy[1];
+					if (null == origcds[x][y]) {
+						// Happens at starting position
+						assert (x == firstx && y == firsty) : "catching null elsewhere than starting position" ;
+						cd = random.nextDirection() ;
+					}
+					else
+						cd = origcds[x][y] ;
+					cd = cd.rotateClockwise();
+					origcd = cd;
+				}
+			} else {
+				floorplan.deleteWallboard(wallboard);
+				int[] dxy = cd.getDirection();
+				x += dxy[0];
+				y += dxy[1];
+				floorplan.setCellAsVisited(x, y);
+				origcds[x][y] = cd;
+				cd = random.nextDirection();
+				origcd = cd;
+			}
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Compares the randomized depth first search of {@link MazeBuilder}
+ * with the previous implementation in {@link MazeBuilderDFSReference}.
+ */
+class MazeBuilderDFSReferenceTest {
+
+	private static Maze build(MazeBuilder builder, int skill, boolean perfect, int seed) {
+		StubOrder order = new StubOrder(skill, Builder.DFS, perfect, seed);
+		builder.buildOrder(order);
+		builder.run();
+		return order.getMaze();
+	}
+	/**
+	 * Builds mazes with both implementations for several skill levels and seeds,
+	 * with rooms and without.
+	 * Goal: The byte per cell backtracking draws the same random values in the
+	 * same order, so a seed gives the same maze as before.
+	 */
+	@Test
+	void testSameMazeAsReference() {
+		for (int skill = 0; skill <= 9; skill += 3) {
+			for (int seed = 1; seed <= 3; seed++) {
+				for (boolean perfect : new boolean[] {true, false}) {
+					Maze maze = build(new MazeBuilder(), skill, perfect, seed);
+					Maze reference = build(new MazeBuilderDFSReference(), skill, perfect, seed);
+					assertTrue(reference.getFloorplan().equals(maze.getFloorplan()));
+					assertEquals(reference.getStartingPosition()[0], maze.getStartingPosition()[0]);
+					assertEquals(reference.getStartingPosition()[1], maze.getStartingPosition()[1]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package generation;
+
+import static generation.SpanningTreeChecker.assertAllCellsReachable;
+import static generation.SpanningTreeChecker.countOpenings;
+import static generation.SpanningTreeChecker.union;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests mazes generated with Eller's algorithm in normal mode
+ * through the maze factory and in streaming mode with a row sink.
+ * The generic checks of the maze factory test run with Eller's algorithm as well.
+ */
+class MazeBuilderEllerTest extends MazeFactoryTest {
+	/**
+	 * Checks that every cell has a finite distance to the exit for all
+	 * small skill levels, with and without rooms.
+	 * Goal: Make sure rows are connected, also if borders of rooms are in the way.
+	 */
+	@Test @Override
+	void testAllCellsReachable() {
+		for (int skill = 0; skill <= 6; skill++) {
+			for (boolean perfect : new boolean[] {true, false}) {
+				for (int seed = 1; seed <= 3; seed++) {
+					assertAllCellsReachable(makeMaze(skill, getBuilder(), perfect, seed));
+				}
+			}
+		}
+	}
+	/**
+	 * Counts the openings between adjacent cells of a perfect maze.
+	 * Goal: No opening closes a loop and there are width*height-1 of them,
+	 * so the maze is a spanning tree.
+	 */
+	@Test
+	void testPerfectMazeIsTree() {
+		for (int skill = 0; skill <= 6; skill++) {
+			Floorplan floorplan = makeMaze(skill, getBuilder(), true, 7).getFloorplan();
+			assertEquals(floorplan.getWidth()*floorplan.getHeight() - 1, countOpenings(floorplan));
+		}
+	}
+	/**
+	 * Generate mazes with the same and with different seeds.
+	 * Goal: Make sure a maze can be reproduced from its seed and the seed is taken into account.
+	 */
+	@Test
+	void testSeeds() {
+		assertTrue(makeMaze(5, getBuilder(), true, 10).getFloorplan().equals(makeMaze(5, getBuilder(), true, 10).getFloorplan()));
+		assertTrue(makeMaze(5, getBuilder(), false, 10).getFloorplan().equals(makeMaze(5, getBuilder(), false, 10).getFloorplan()));
+		assertFalse(makeMaze(5, getBuilder(), true, 10).getFloorplan().equals(makeMaze(5, getBuilder(), true, 20).getFloorplan()));
+	}
+	/**
+	 * Streams rows for a perfect maze and compares them with the floorplan
+	 * of the normal mode for the same dimensions and seed.
+	 * Goal: Both modes deliver the same maze, rows arrive in order.
+	 */
+	@Test
+	void testStreamingMatchesNormalMode() {
+		int[][] sizes = {{1, 1}, {1, 5}, {5, 1}, {12, 12}, {37, 21}};
+		for (int[] size : sizes) {
+			int width = size[0];
+			int height = size[1];
+			MazeBuilderEller builder = new MazeBuilderEller();
+			builder.buildOrder(new StubOrder(0, Builder.Eller, true, 3));
+			builder.width = width;
+			builder.height = height;
+			builder.floorplan = new Floorplan(width, height);
+			builder.floorplan.initialize();
+			builder.generatePathways();
+			List<int[]> rows = new ArrayList<int[]>();
+			new MazeBuilderEller().generateRows(width, height, 3, (y, row) -> {
+				assertEquals(rows.size(), y);
+				rows.add(row.clone());
+			});
+			assertEquals(height, rows.size());
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					assertEquals(builder.floorplan.getValueOfCell(x, y), rows.get(y)[x]);
+				}
+			}
+		}
+	}
+	/**
+	 * Streams a maze that is much taller than any skill level and
+	 * checks with a union-find over all cells that no opening closes a loop
+	 * and that there are width*height-1 openings, so the maze is a spanning tree.
+	 * Goal: Streaming mode works without a floorplan for the whole maze.
+	 */
+	@Test
+	void testStreamingTallMaze() {
+		final int width = 40;
+		final int height = 50000;
+		// cell (x,y) has index y*width+x
+		final int[] parent = new int[width*height];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		final int[] previous = new int[width];
+		final int[] openings = new int[1];
+		new MazeBuilderEller().generateRows(width, height, 11, (y, row) -> {
+			for (int x = 0; x < width; x++) {
+				if (x+1 < width && (row[x] & Floorplan.CW_RIGHT) == 0) {
+					assertEquals(0, row[x+1] & Floorplan.CW_LEFT);
+					assertTrue(union(parent, y*width+x, y*width+x+1));
+					openings[0]++;
+				}
+				if (y > 0 && (row[x] & Floorplan.CW_TOP) == 0) {
+					assertEquals(0, previous[x] & Floorplan.CW_BOT);
+					assertTrue(union(parent, (y-1)*width+x, y*width+x));
+					openings[0]++;
+				}
+			}
+			System.arraycopy(row, 0, previous, 0, width);
+		});
+		assertEquals(width*height - 1, openings[0]);
+	}
+	/**
+	 * Runs the generic checks of the maze factory test with Eller's algorithm.
+	 */
+	@Override
+	Builder getBuilder() {
+		return Builder.Eller;
+	}
+}
@@ -23,7 +23,7 @@ public class MazeBuilderKruskalTest extends MazeFactoryTest {
 		//Tests if the generated maze has exactly one exit
 		//Goal: Check if there is exactly one exit
 		//Create the maze
-		Maze tempMaze = makeMaze(5, false, 15); 
+		Maze tempMaze = makeMaze(5, getBuilder(), false, 15); 
 		//Instantiate a counter for the number of exits, record the height and width, create a variable for the floorplan
 		int numExits = 0;
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
@@ -67,7 +67,7 @@ public class MazeBuilderKruskalTest extends MazeFactoryTest {
 		//Tests if the generated maze has exactly one exit even with no rooms
 		//Goal: Check if there is exactly one exit
 		//Create the maze
-		Maze tempMaze = makeMaze(5, true, 10); 
+		Maze tempMaze = makeMaze(5, getBuilder(), true, 10); 
 		//Instantiate a counter for the number of exits, record the height and width, create a variable for the floorplan
 		int numExits = 0;
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
@@ -116,7 +116,7 @@ public class MazeBuilderKruskalTest extends MazeFactoryTest {
 		//If the maze is not square, it is (m-1)(n-1), where m is the width and n is the height of the maze
 		//Eg, a 4 x 5 perfect maze should have 3*4 = 12 internal wallboards
 		//Create the maze with no rooms
-		Maze tempMaze = makeMaze(5, true, 20);
+		Maze tempMaze = makeMaze(5, getBuilder(), true, 20);
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
 		int height = tempFloorplan.getHeight();
 		int width = tempFloorplan.getWidth();
@@ -152,7 +152,7 @@ public class MazeBuilderKruskalTest extends MazeFactoryTest {
 		//Tests if every cell in the maze has a valid path to the exit
 		//Goal: Check that every cell in the maze has a valid path to the exit
 		//Create the maze
-		Maze tempMaze = makeMaze(5, false, 20);
+		Maze tempMaze = makeMaze(5, getBuilder(), false, 20);
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
 		int height = tempFloorplan.getHeight();
 		int width = tempFloorplan.getWidth();
@@ -213,7 +213,7 @@ public class MazeBuilderKruskalTest extends MazeFactoryTest {
 		//Tests if every cell in the maze has a valid path to the exit
 		//Goal: Check that every cell in the maze has a valid path to the exit even with no rooms
 		//Create the maze
-		Maze tempMaze = makeMaze(5, true, 20);
+		Maze tempMaze = makeMaze(5, getBuilder(), true, 20);
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
 		int height = tempFloorplan.getHeight();
 		int width = tempFloorplan.getWidth();
@@ -269,7 +269,7 @@ public class MazeBuilderKruskalTest extends MazeFactoryTest {
 		//Tests if rooms have generated in the maze
 		//Goal: make sure rooms can generate in the maze
 		//Create a maze with rooms
-		Maze tempMaze = makeMaze(5, false, 20);
+		Maze tempMaze = makeMaze(5, getBuilder(), false, 20);
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
 		int height = tempFloorplan.getHeight();
 		int width = tempFloorplan.getWidth();
@@ -291,14 +291,25 @@ public class MazeBuilderKruskalTest extends MazeFactoryTest {
 		//Goal: Make sure implementation takes seed into account
 		//Create a maze with a certain seed
 		//Perfect maze so rooms don't mess things up, since rooms might create different mazes with the same seed
-		Maze maze10 = makeMaze(5, true, 10); 
+		Maze maze10 = makeMaze(5, getBuilder(), true, 10); 
 		//Create a maze of the same size, with a different seed
-		Maze maze20 = makeMaze(5, true, 20);
+		Maze maze20 = makeMaze(5, getBuilder(), true, 20);
 		//Compare the floorplans of the two
 		//If they're equal, fail
 		//Else, succeed
 		assertFalse(maze10.getFloorplan().equals(maze20.getFloorplan()));
 	}
+	/**
+	 * Generate two mazes of the same size with the same seed, check that they're equal.
+	 * Goal: Make sure the shuffled edges only depend on the seed, so a maze can be reproduced.
+	 * Covers perfect mazes and mazes with rooms.
+	 */
+	@Test
+	void testGenerateSameSeed() {
+		//Generate two mazes of the same size with the same seed, check that they're equal
+		assertTrue(makeMaze(5, getBuilder(), true, 10).getFloorplan().equals(makeMaze(5, getBuilder(), true, 10).getFloorplan()));
+		assertTrue(makeMaze(5, getBuilder(), false, 10).getFloorplan().equals(makeMaze(5, getBuilder(), false, 10).getFloorplan()));
+	}
 	/**
 	 * Goal: Generate a Small, non-perfect Maze.
 	 * Designed to increase coverage on MazeBuilder.java.
@@ -312,22 +323,14 @@ public class MazeBuilderKruskalTest extends MazeFactoryTest {
 		//Designed to increase coverage on MazeBuilder.java.
 		//To make sure that nothing  obviouslybreaks when there's a failed attempt to place a room.
 		//Not testing anything about the maze itself.
-		Maze maze0 = makeMaze(0, false, 10);
-		Maze maze1 = makeMaze(1, false, 10);
+		Maze maze0 = makeMaze(0, getBuilder(), false, 10);
+		Maze maze1 = makeMaze(1, getBuilder(), false, 10);
 	}
-	/** 
-	 * Makes and returns a Maze with a given skill, perfect status, and seed.
-	 * The builder is always Kruskal.
-	 * @param skill		An integer that corresponds to the difficulty of the created Maze.
-	 * @param p			A boolean reprenting perfect status.
-	 * @param s			An integer that serves as the seed for the Maze.
-	*/
-	private Maze makeMaze(int skill, boolean p, int s) { //No builder required, since I'm only testing Kruskal
-		//Makes a Maze with a given skill, Kruskal builder, given perfect status, and given seed
-		StubOrder myOrder = new StubOrder(skill, Builder.Kruskal, p, s);
-		MazeFactory myMazeFactory = new MazeFactory();
-		myMazeFactory.order(myOrder);
-		myMazeFactory.waitTillDelivered();
-		return myOrder.getMaze();
+	/**
+	 * Runs the generic checks of the maze factory test with Kruskal's algorithm.
+	 */
+	@Override
+	Builder getBuilder() {
+		return Builder.Kruskal;
 	}
 }
@@ -0,0 +1,55 @@
+package generation;
+
+import static generation.SpanningTreeChecker.assertAllCellsReachable;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests mazes generated with Prim's algorithm.
+ * The candidate pool is reordered on every removal, so the tests
+ * make sure that the result still only depends on the seed.
+ * The generic checks of the maze factory test run with Prim's algorithm as well.
+ */
+class MazeBuilderPrimTest extends MazeFactoryTest {
+	/**
+	 * Generate two mazes of the same size with the same seed, check that they're equal.
+	 * Goal: Make sure a maze can be reproduced from its seed, with and without rooms.
+	 */
+	@Test
+	void testGenerateSameSeed() {
+		assertTrue(makeMaze(5, getBuilder(), true, 10).getFloorplan().equals(makeMaze(5, getBuilder(), true, 10).getFloorplan()));
+		assertTrue(makeMaze(5, getBuilder(), false, 10).getFloorplan().equals(makeMaze(5, getBuilder(), false, 10).getFloorplan()));
+	}
+	/**
+	 * Generate two mazes of the same size with different seeds, check that they're different.
+	 * Goal: Make sure implementation takes seed into account.
+	 */
+	@Test @Override
+	void testGenerateDifferentSeeds() {
+		assertFalse(makeMaze(5, getBuilder(), true, 10).getFloorplan().equals(makeMaze(5, getBuilder(), true, 20).getFloorplan()));
+	}
+	/**
+	 * Checks that every cell has a finite distance to the exit for all
+	 * small skill levels, with and without rooms.
+	 * Goal: Make sure the spanning tree covers the whole maze.
+	 */
+	@Test @Override
+	void testAllCellsReachable() {
+		for (int skill = 0; skill <= 5; skill++) {
+			for (boolean perfect : new boolean[] {true, false}) {
+				assertAllCellsReachable(makeMaze(skill, getBuilder(), perfect, 13));
+			}
+		}
+	}
+	/**
+	 * Runs the generic checks of the maze factory test with Prim's algorithm.
+	 */
+	@Override
+	Builder getBuilder() {
+		return Builder.Prim;
+	}
+}
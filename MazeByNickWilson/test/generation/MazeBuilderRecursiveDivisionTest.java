@@ -0,0 +1,66 @@
+package generation;
+
+import static generation.SpanningTreeChecker.assertAllCellsReachable;
+import static generation.SpanningTreeChecker.assertSameForAnyPool;
+import static generation.SpanningTreeChecker.countOpenings;
+import static generation.SpanningTreeChecker.generate;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests mazes generated with recursive division.
+ * Sizes above MazeBuilderRecursiveDivision.SEQUENTIAL_CELLS
+ * make the builder fork tasks.
+ * The generic checks of the maze factory test run with recursive division as well.
+ */
+class MazeBuilderRecursiveDivisionTest extends MazeFactoryTest {
+	/**
+	 * Generates a large maze in pools of different sizes and
+	 * with a different seed.
+	 * Goal: The maze only depends on the seed and not on the number of threads.
+	 */
+	@Test
+	void testSeeds() {
+		assertSameForAnyPool(MazeBuilderRecursiveDivision::new, 6, 301, 157, 4);
+	}
+	/**
+	 * Counts the openings between adjacent cells with a union-find
+	 * for small and large perfect mazes.
+	 * Goal: The maze is a spanning tree, there are no loops and no isolated cells.
+	 */
+	@Test
+	void testPerfectMazeIsTree() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		int[][] sizes = {{1, 1}, {1, 9}, {9, 1}, {2, 2}, {31, 17}, {301, 157}};
+		for (int[] size : sizes) {
+			Floorplan floorplan = generate(new MazeBuilderRecursiveDivision(pool), size[0], size[1], 6);
+			assertEquals(size[0]*size[1] - 1, countOpenings(floorplan));
+		}
+		pool.shutdown();
+	}
+	/**
+	 * Checks that every cell has a finite distance to the exit for all
+	 * small skill levels, with and without rooms.
+	 * Goal: Areas that borders of rooms separated get connected.
+	 */
+	@Test @Override
+	void testAllCellsReachable() {
+		for (int skill = 0; skill <= 5; skill++) {
+			for (boolean perfect : new boolean[] {true, false}) {
+				assertAllCellsReachable(makeMaze(skill, getBuilder(), perfect, 13));
+			}
+		}
+	}
+	/**
+	 * Runs the generic checks of the maze factory test with recursive division.
+	 */
+	@Override
+	Builder getBuilder() {
+		return Builder.RecursiveDivision;
+	}
+}
@@ -0,0 +1,95 @@
+package generation;
+
+import static generation.SpanningTreeChecker.assertAllCellsReachable;
+import static generation.SpanningTreeChecker.assertSameForAnyPool;
+import static generation.SpanningTreeChecker.countOpenings;
+import static generation.SpanningTreeChecker.generate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import generation.Order.Builder;
+import gui.Constants;
+
+/**
+ * Tests mazes generated tile by tile in parallel.
+ * Tiles are smaller than the maze and do not divide its dimensions,
+ * so there are narrow tiles in the last column and row.
+ */
+class MazeBuilderTiledTest {
+
+	private static final Builder[] ALGORITHMS = {Builder.DFS, Builder.Prim, Builder.Kruskal, Builder.Eller};
+
+	/**
+	 * Generates perfect mazes with all tile algorithms and counts openings 
+	 * with a union-find over all cells.
+	 * Goal: Stitched tiles form a single spanning tree, there are no loops
+	 * and no cell is cut off.
+	 */
+	@Test
+	void testPerfectMazeIsTree() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (Builder algorithm : ALGORITHMS) {
+			Floorplan floorplan = generate(new MazeBuilderTiled(algorithm, 16, 9, pool), 70, 41, 5);
+			assertEquals(70*41 - 1, countOpenings(floorplan));
+		}
+		pool.shutdown();
+	}
+	/**
+	 * Generates the same maze with pools of different sizes and with
+	 * a different seed.
+	 * Goal: The maze only depends on the seed and not on the number of threads.
+	 */
+	@Test
+	void testSeeds() {
+		for (Builder algorithm : ALGORITHMS) {
+			assertSameForAnyPool(pool -> new MazeBuilderTiled(algorithm, 12, 12, pool), 5, 50, 30, 9);
+		}
+	}
+	/**
+	 * Orders mazes through the maze factory's builder with rooms and without,
+	 * the default tile size is larger than any skill level.
+	 * Goal: Small mazes and mazes with rooms are generated sequentially and all cells are reachable.
+	 */
+	@Test
+	void testSequentialFallback() {
+		for (boolean perfect : new boolean[] {true, false}) {
+			MazeBuilderTiled builder = new MazeBuilderTiled(Builder.Kruskal);
+			StubOrder order = new StubOrder(4, Builder.Kruskal, perfect, 3);
+			builder.buildOrder(order);
+			builder.run();
+			assertAllCellsReachable(order.getMaze());
+		}
+	}
+	/**
+	 * Orders mazes of 150x120 cells through a maze factory whose tiling threshold
+	 * is that size, so the default tiles give two tiles, and through a factory without tiling.
+	 * Goal: Perfect mazes from the first factory are tiled, reproducible and still
+	 * spanning trees, they are not cached. Mazes with rooms are not tiled.
+	 */
+	@Test
+	void testFactoryTilingThreshold() throws Exception {
+		final int skill = 14;
+		MazeFactory plain = new MazeFactory();
+		assertEquals(Integer.MAX_VALUE, plain.getTilingThreshold());
+		MazeFactory tiling = new MazeFactory();
+		tiling.setTilingThreshold(Constants.SKILL_X[skill]*Constants.SKILL_Y[skill]);
+		MazeCache cache = new MazeCache(1 << 20, null);
+		tiling.setCache(cache);
+		StubOrder order = new StubOrder(skill, Builder.Kruskal, true, 4);
+		Floorplan tiled = tiling.submit(order).get().getFloorplan();
+		assertEquals(tiled.getWidth()*tiled.getHeight() - 1, countOpenings(tiled));
+		assertTrue(tiled.equals(tiling.submit(new StubOrder(skill, Builder.Kruskal, true, 4)).get().getFloorplan()));
+		assertFalse(tiled.equals(plain.submit(new StubOrder(skill, Builder.Kruskal, true, 4)).get().getFloorplan()));
+		assertNull(cache.get(order));
+		Floorplan rooms = tiling.submit(new StubOrder(skill, Builder.Kruskal, false, 4)).get().getFloorplan();
+		assertTrue(rooms.equals(plain.submit(new StubOrder(skill, Builder.Kruskal, false, 4)).get().getFloorplan()));
+		tiling.shutdown();
+		plain.shutdown();
+	}
+}
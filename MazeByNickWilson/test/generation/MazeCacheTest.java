@@ -0,0 +1,171 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the cache of generated mazes, {@link MazeCache}.
+ */
+public class MazeCacheTest {
+
+	@TempDir
+	Path directory;
+
+	/**
+	 * Generates a maze with a factory that uses the given cache.
+	 * @return the delivered maze
+	 */
+	private static Maze generate(MazeCache cache, int skill, Order.Builder builder, boolean perfect, int seed) {
+		MazeFactory factory = new MazeFactory();
+		factory.setCache(cache);
+		Maze maze = MazeFactoryTest.makeMaze(factory, skill, builder, perfect, seed);
+		assertNotNull(maze);
+		return maze;
+	}
+	/**
+	 * Checks that two mazes have the same floorplan, distances, start and BSP tree.
+	 */
+	private static void assertSameMaze(Maze expected, Maze actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getFloorplan(), actual.getFloorplan());
+		assertArrayEquals(expected.getStartingPosition(), actual.getStartingPosition());
+		for (int x = 0; x < expected.getWidth(); x++) {
+			for (int y = 0; y < expected.getHeight(); y++) {
+				assertEquals(expected.getDistanceToExit(x, y), actual.getDistanceToExit(x, y));
+			}
+		}
+		assertSameNode(expected.getRootnode(), actual.getRootnode());
+	}
+	private static void assertSameNode(BSPNode expected, BSPNode actual) {
+		assertEquals(expected.isIsleaf(), actual.isIsleaf());
+		assertEquals(expected.getLowerBoundX(), actual.getLowerBoundX());
+		assertEquals(expected.getUpperBoundY(), actual.getUpperBoundY());
+		if (expected.isIsleaf()) {
+			List<Wall> walls = ((BSPLeaf)expected).getAllWalls();
+			List<Wall> others = ((BSPLeaf)actual).getAllWalls();
+			assertEquals(walls, others);
+			for (int i = 0; i < walls.size(); i++) {
+				assertEquals(walls.get(i).getColor(), others.get(i).getColor());
+				assertEquals(walls.get(i).isPartition(), others.get(i).isPartition());
+			}
+		} else {
+			assertSameNode(((BSPBranch)expected).getLeftBranch(), ((BSPBranch)actual).getLeftBranch());
+			assertSameNode(((BSPBranch)expected).getRightBranch(), ((BSPBranch)actual).getRightBranch());
+		}
+	}
+	/**
+	 * Test case: a repeated order is served from memory.
+	 * Correct behavior: the cached maze is the same as a generated one
+	 * but a different object, counters tell one miss and one hit.
+	 */
+	@Test
+	public void testMemoryHit() throws IOException {
+		MazeCache cache = new MazeCache(1L << 24, null);
+		Maze generated = generate(cache, 2, Order.Builder.Prim, false, 7);
+		assertEquals(1, cache.getMisses());
+		assertEquals(0, cache.getMemoryHits());
+		Maze cached = generate(cache, 2, Order.Builder.Prim, false, 7);
+		assertEquals(1, cache.getMemoryHits());
+		assertEquals(1, cache.getMisses());
+		assertNotSame(generated, cached);
+		assertSameMaze(generated, cached);
+		// a different seed is a different maze
+		generate(cache, 2, Order.Builder.Prim, false, 8);
+		assertEquals(2, cache.getMisses());
+	}
+	/**
+	 * Test case: an order is served from the cache.
+	 * Correct behavior: the order is told 100% progress before the delivery,
+	 * the same as for a maze from a builder.
+	 */
+	@Test
+	public void testProgressOnHit() throws IOException {
+		MazeCache cache = new MazeCache(1L << 24, null);
+		generate(cache, 1, Order.Builder.Kruskal, false, 5);
+		MazeFactory factory = new MazeFactory();
+		factory.setCache(cache);
+		int[] progress = {-1, -1}; // last percentage, percentage at delivery
+		StubOrder order = new StubOrder(1, Order.Builder.Kruskal, false, 5) {
+			@Override
+			public void updateProgress(int percentage) {
+				progress[0] = percentage;
+			}
+			@Override
+			public void deliver(Maze mazeConfig) {
+				progress[1] = progress[0];
+				super.deliver(mazeConfig);
+			}
+		};
+		assertTrue(factory.order(order));
+		factory.waitTillDelivered();
+		assertEquals(1, cache.getMemoryHits());
+		assertEquals(100, progress[1]);
+	}
+	/**
+	 * Test case: a factory with a cache keeps mazes in memory mapped files.
+	 * Correct behavior: the maze is delivered in mapped files, it is neither
+	 * put into the cache nor served from it.
+	 */
+	@Test
+	public void testMappedMazesNotCached() throws IOException {
+		MazeCache cache = new MazeCache(1L << 24, null);
+		MazeFactory factory = new MazeFactory();
+		factory.setCache(cache);
+		factory.setStorageDirectory(directory);
+		for (int i = 0; i < 2; i++) {
+			MazeContainer maze = (MazeContainer)MazeFactoryTest.makeMaze(factory, 1, Order.Builder.DFS, true, 3);
+			assertTrue(maze.getFloorplan().isMapped());
+			maze.close();
+		}
+		assertEquals(0, cache.getMisses());
+		assertEquals(0, cache.getMemoryHits());
+		assertEquals(0L, cache.getMemoryBytes());
+	}
+	/**
+	 * Test case: the second tier serves mazes that are not in memory.
+	 * Correct behavior: a new cache on the same directory gives the maze
+	 * from disk, it is in memory afterwards.
+	 */
+	@Test
+	public void testDiskHit() throws IOException {
+		Maze generated = generate(new MazeCache(1L << 24, directory), 1, Order.Builder.DFS, true, 3);
+		MazeCache cache = new MazeCache(1L << 24, directory);
+		Maze cached = cache.get(new StubOrder(1, Order.Builder.DFS, true, 3));
+		assertNotNull(cached);
+		assertEquals(1, cache.getDiskHits());
+		assertSameMaze(generated, cached);
+		assertNotNull(cache.get(new StubOrder(1, Order.Builder.DFS, true, 3)));
+		assertEquals(1, cache.getMemoryHits());
+		// a broken file is dropped
+		Files.write(directory.resolve("1-DFS-perfect-4.maze"), new byte[] {1, 2, 3});
+		assertNull(cache.get(new StubOrder(1, Order.Builder.DFS, true, 4)));
+		assertFalse(Files.exists(directory.resolve("1-DFS-perfect-4.maze")));
+	}
+	/**
+	 * Test case: the memory tier evicts the least recently used mazes.
+	 * Correct behavior: memory stays below the cap, the maze that was used
+	 * last is kept.
+	 */
+	@Test
+	public void testEviction() throws IOException {
+		Maze maze = generate(null, 1, Order.Builder.DFS, true, 3);
+		byte[] data = MazeCache.encode(maze);
+		MazeCache cache = new MazeCache(2L*data.length, null);
+		cache.put(new StubOrder(1, Order.Builder.DFS, true, 1), data);
+		cache.put(new StubOrder(1, Order.Builder.DFS, true, 2), data);
+		assertNotNull(cache.get(new StubOrder(1, Order.Builder.DFS, true, 1)));
+		cache.put(new StubOrder(1, Order.Builder.DFS, true, 3), data);
+		assertEquals(2L*data.length, cache.getMemoryBytes());
+		assertNotNull(cache.get(new StubOrder(1, Order.Builder.DFS, true, 1)));
+		assertNull(cache.get(new StubOrder(1, Order.Builder.DFS, true, 2)));
+		assertNotNull(cache.get(new StubOrder(1, Order.Builder.DFS, true, 3)));
+	}
+}
@@ -0,0 +1,202 @@
+package generation;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests of the maze factory itself rather than of a builder: frozen mazes,
+ * reproducible parallel orders, pooled factories with futures and factories
+ * that run each order on a thread of its own.
+ * The builder tests extend {@link MazeFactoryTest}, this class is not extended,
+ * so its tests run once.
+ */
+class MazeFactoryOrdersTest {
+	/**
+	 * Tests if a frozen maze gives the same answers as the maze it was made from.
+	 * Goal: Check all read methods for all cells, that changes are rejected,
+	 * that changes to the original maze do not show, and that several threads
+	 * can walk to the exit in the same frozen maze.
+	 */
+	@Test
+	void testFreeze() throws InterruptedException {
+		Maze maze = MazeFactoryTest.makeMaze(5, Builder.Kruskal, false, 10);
+		Maze frozen = maze.freeze();
+		assertSame(frozen, frozen.freeze());
+		assertEquals(maze.getWidth(), frozen.getWidth());
+		assertEquals(maze.getHeight(), frozen.getHeight());
+		assertArrayEquals(maze.getStartingPosition(), frozen.getStartingPosition());
+		assertTrue(maze.getFloorplan().equals(frozen.getFloorplan()));
+		assertSame(maze.getRootnode(), frozen.getRootnode());
+		int rooms = 0;
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertTrue(frozen.isValidPosition(x, y));
+				assertEquals(maze.getDistanceToExit(x, y), frozen.getDistanceToExit(x, y));
+				assertEquals(maze.getDistanceToExit(x, y), frozen.getMazedists().getDistanceValue(x, y));
+				assertEquals(maze.isExitPosition(x, y), frozen.isExitPosition(x, y));
+				assertEquals(maze.getFloorplan().isExitPosition(x, y), frozen.isExitPosition(x, y));
+				assertEquals(maze.isInRoom(x, y), frozen.isInRoom(x, y));
+				assertEquals(maze.getFloorplan().isInRoom(x, y), frozen.isInRoom(x, y));
+				if (frozen.isInRoom(x, y))
+					rooms++;
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					assertEquals(maze.hasWall(x, y, cd), frozen.hasWall(x, y, cd));
+				}
+				assertArrayEquals(maze.getNeighborCloserToExit(x, y), frozen.getNeighborCloserToExit(x, y));
+			}
+		}
+		assertTrue(0 < rooms);
+		assertFalse(frozen.isValidPosition(-1, 0));
+		assertFalse(frozen.isValidPosition(0, maze.getHeight()));
+		assertThrows(UnsupportedOperationException.class, () -> frozen.setStartingPosition(0, 0));
+		assertThrows(UnsupportedOperationException.class, () -> frozen.setFloorplan(null));
+		// changes to copies and to the original do not show in the frozen maze
+		frozen.getFloorplan().setCellAsVisited(0, 0);
+		frozen.getStartingPosition()[0] = -1;
+		Wallboard wallboard = new Wallboard(2, 2, CardinalDirection.East);
+		if (maze.hasWall(2, 2, CardinalDirection.East))
+			maze.getFloorplan().deleteWallboard(wallboard);
+		else
+			maze.getFloorplan().addWallboard(wallboard, true);
+		assertFalse(maze.hasWall(2, 2, CardinalDirection.East) == frozen.hasWall(2, 2, CardinalDirection.East));
+		assertEquals(maze.getStartingPosition()[0], frozen.getStartingPosition()[0]);
+		assertFalse(maze.getFloorplan().equals(frozen.getFloorplan()));
+		assertTrue(frozen.getFloorplan().equals(frozen.getFloorplan()));
+		// several threads walk from the start to the exit 
+		final int[] start = frozen.getStartingPosition();
+		final int[] steps = new int[4];
+		Thread[] threads = new Thread[steps.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread(() -> {
+				int[] position = start;
+				for (int[] next = frozen.getNeighborCloserToExit(start[0], start[1]); null != next; 
+						next = frozen.getNeighborCloserToExit(position[0], position[1])) {
+					position = next;
+					steps[id]++;
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int count : steps) {
+			assertEquals(frozen.getDistanceToExit(start[0], start[1]) - 1, count);
+		}
+	}
+	/**
+	 * Tests if mazes that are built at the same time only depend on their seeds.
+	 * Goal: Each order has a random number generator of its own, so orders
+	 * that run in parallel in separate factories give the same floorplans
+	 * as the same orders built one after the other.
+	 */
+	@Test
+	void testParallelOrdersReproducible() {
+		Builder[] builders = {Builder.DFS, Builder.Prim, Builder.Kruskal, Builder.Eller};
+		StubOrder[] orders = new StubOrder[builders.length];
+		MazeFactory[] factories = new MazeFactory[builders.length];
+		for (int i = 0; i < orders.length; i++) {
+			orders[i] = new StubOrder(6, builders[i], false, 20 + i);
+			factories[i] = new MazeFactory();
+			factories[i].order(orders[i]);
+		}
+		for (MazeFactory factory : factories) {
+			factory.waitTillDelivered();
+		}
+		for (int i = 0; i < orders.length; i++) {
+			Maze sequential = MazeFactoryTest.makeMaze(6, builders[i], false, 20 + i);
+			assertTrue(sequential.getFloorplan().equals(orders[i].getMaze().getFloorplan()));
+		}
+	}
+	/**
+	 * Tests a pooled factory with a batch of orders.
+	 * Goal: All futures complete with the maze that the order received,
+	 * which is the same maze as from a factory that builds one order at a time.
+	 */
+	@Test
+	void testOrderAll() throws Exception {
+		MazeFactory factory = new MazeFactory(3, 2);
+		List<StubOrder> orders = new ArrayList<StubOrder>();
+		for (int i = 0; i < 10; i++) {
+			orders.add(new StubOrder(2, (i % 2 == 0) ? Builder.DFS : Builder.Kruskal, false, 30 + i));
+		}
+		List<CompletableFuture<Maze>> results = factory.orderAll(orders);
+		assertEquals(orders.size(), results.size());
+		for (int i = 0; i < orders.size(); i++) {
+			Maze maze = results.get(i).get(60, TimeUnit.SECONDS);
+			assertSame(orders.get(i).getMaze(), maze);
+			Maze sequential = MazeFactoryTest.makeMaze(2, orders.get(i).getBuilder(), false, 30 + i);
+			assertTrue(sequential.getFloorplan().equals(maze.getFloorplan()));
+		}
+		factory.shutdown();
+	}
+	/**
+	 * Tests that orders beyond parallelism and queue capacity are refused
+	 * and that cancelling a future cancels its order.
+	 * Goal: A factory that takes one order at a time refuses a second one, 
+	 * the cancelled order is not delivered and the factory takes the next order.
+	 */
+	@Test
+	void testSubmitAndCancel() throws Exception {
+		MazeFactory factory = new MazeFactory();
+		StubOrder large = new StubOrder(9, Builder.Prim, false, 3);
+		CompletableFuture<Maze> result = factory.submit(large);
+		CompletableFuture<Maze> refused = factory.submit(new StubOrder(0, Builder.DFS, false, 3));
+		assertTrue(refused.isCompletedExceptionally());
+		assertThrows(ExecutionException.class, () -> refused.get());
+		assertFalse(factory.order(new StubOrder(0, Builder.DFS, false, 3)));
+		assertTrue(result.cancel(true));
+		factory.waitTillDelivered();
+		assertNull(large.getMaze());
+		// the factory takes orders again
+		StubOrder small = new StubOrder(0, Builder.DFS, false, 3);
+		assertNotNull(factory.submit(small).get(60, TimeUnit.SECONDS));
+		assertNotNull(small.getMaze());
+	}
+	/**
+	 * Tests a factory that runs each order on a thread of its own.
+	 * Goal: All orders are built in parallel and give the same mazes as
+	 * a factory with a single worker, orders beyond the limit are refused.
+	 */
+	@Test
+	void testWithVirtualThreads() throws Exception {
+		MazeFactory factory = MazeFactory.withVirtualThreads(8);
+		// orders keep their threads until the gate opens, builds do not sleep and would be done too soon
+		CountDownLatch gate = new CountDownLatch(1);
+		List<StubOrder> orders = new ArrayList<StubOrder>();
+		List<CompletableFuture<Maze>> results = new ArrayList<CompletableFuture<Maze>>();
+		for (int i = 0; i < 8; i++) {
+			orders.add(new StubOrder(1, Builder.Prim, false, 40 + i) {
+				@Override
+				public void deliver(Maze mazeConfig) {
+					try {
+						gate.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					super.deliver(mazeConfig);
+				}
+			});
+			results.add(factory.submit(orders.get(i)));
+		}
+		assertFalse(factory.order(new StubOrder(1, Builder.Prim, false, 48)));
+		gate.countDown();
+		for (int i = 0; i < orders.size(); i++) {
+			Maze maze = results.get(i).get(60, TimeUnit.SECONDS);
+			assertTrue(MazeFactoryTest.makeMaze(1, Builder.Prim, false, 40 + i).getFloorplan().equals(maze.getFloorplan()));
+		}
+		factory.shutdown();
+	}
+}
@@ -15,7 +15,7 @@ import generation.Order.Builder;
  * @author Nicholas Wilson
  *
  */
-class MazeFactoryTest {
+public class MazeFactoryTest {
 	/**
 	 * Does nothing. Auto-generated.
 	 * @throws java.lang.Exception
@@ -44,7 +44,7 @@ class MazeFactoryTest {
 		//Tests if the generated maze has exactly one exit
 		//Goal: Check if there is exactly one exit
 		//Create the maze
-		Maze tempMaze = makeMaze(5, Builder.DFS, false, 10); //Builder can be changed to different builders as needed
+		Maze tempMaze = makeMaze(5, getBuilder(), false, 10); //Subclasses choose the builder with getBuilder
 		//Instantiate a counter for the number of exits, record the height and width, create a variable for the floorplan
 		int numExits = 0;
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
@@ -92,7 +92,7 @@ class MazeFactoryTest {
 		//If the maze is not square, it is (m-1)(n-1), where m is the width and n is the height of the maze
 		//Eg, a 4 x 5 perfect maze should have 3*4 = 12 internal wallboards
 		//Create the maze with no rooms
-		Maze tempMaze = makeMaze(5, Builder.DFS, true, 20);
+		Maze tempMaze = makeMaze(5, getBuilder(), true, 20);
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
 		int height = tempFloorplan.getHeight();
 		int width = tempFloorplan.getWidth();
@@ -128,7 +128,7 @@ class MazeFactoryTest {
 		//Tests if every cell in the maze has a valid path to the exit
 		//Goal: Check that every cell in the maze has a valid path to the exit
 		//Create the maze
-		Maze tempMaze = makeMaze(5, Builder.DFS, false, 20);
+		Maze tempMaze = makeMaze(5, getBuilder(), false, 20);
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
 		int height = tempFloorplan.getHeight();
 		int width = tempFloorplan.getWidth();
@@ -184,7 +184,7 @@ class MazeFactoryTest {
 		//Tests if rooms have generated in the maze
 		//Goal: make sure rooms can generate in the maze
 		//Create a maze with rooms
-		Maze tempMaze = makeMaze(5, Builder.DFS, false, 20);
+		Maze tempMaze = makeMaze(5, getBuilder(), false, 20);
 		Floorplan tempFloorplan = tempMaze.getFloorplan();
 		int height = tempFloorplan.getHeight();
 		int width = tempFloorplan.getWidth();
@@ -206,14 +206,23 @@ class MazeFactoryTest {
 		//Goal: Make sure implementation takes seed into account
 		//Create a maze with a certain seed
 		//Perfect maze so rooms don't mess things up, since rooms might create different mazes with the same seed
-		Maze maze10 = makeMaze(5, Builder.DFS, true, 10); 
+		Maze maze10 = makeMaze(5, getBuilder(), true, 10); 
 		//Create a maze of the same size, with a different seed
-		Maze maze20 = makeMaze(5, Builder.DFS, true, 20);
+		Maze maze20 = makeMaze(5, getBuilder(), true, 20);
 		//Compare the floorplans of the two
 		//If they're equal, fail
 		//Else, succeed
 		assertFalse(maze10.getFloorplan().equals(maze20.getFloorplan()));
 	}
+	/**
+	 * Gives the builder for the generic maze checks.
+	 * Tests of a single builder extend this class and override it,
+	 * so they inherit the checks for their algorithm.
+	 * @return the builder, DFS by default
+	 */
+	Builder getBuilder() {
+		return Builder.DFS;
+	}
 	/** 
 	 * Makes and returns a Maze with a given skill, builder, perfect status, and seed.
 	 * @param skill		An integer that corresponds to the difficulty of the created Maze.
@@ -221,12 +230,24 @@ class MazeFactoryTest {
 	 * @param p			A boolean reprenting perfect status.
 	 * @param s			An integer that serves as the seed for the Maze.
 	*/
-	private Maze makeMaze(int skill, Builder b, boolean p, int s) {
+	public static Maze makeMaze(int skill, Builder b, boolean p, int s) {
+		return makeMaze(new MazeFactory(), skill, b, p, s);
+	}
+	/** 
+	 * Makes and returns a Maze with a given skill, builder, perfect status, and seed
+	 * with the given factory, e.g. one with a cache or a storage directory.
+	 * @param factory	The MazeFactory that takes the order.
+	 * @param skill		An integer that corresponds to the difficulty of the created Maze.
+	 * @param b			A Builder object for the generation algorithm.
+	 * @param p			A boolean reprenting perfect status.
+	 * @param s			An integer that serves as the seed for the Maze.
+	 * @return the Maze, null if the factory refused the order
+	*/
+	public static Maze makeMaze(MazeFactory factory, int skill, Builder b, boolean p, int s) {
 		//Makes a Maze with a given skill, builder, perfect status, and seed
 		StubOrder myOrder = new StubOrder(skill, b, p, s);
-		MazeFactory myMazeFactory = new MazeFactory();
-		myMazeFactory.order(myOrder);
-		myMazeFactory.waitTillDelivered();
+		factory.order(myOrder);
+		factory.waitTillDelivered();
 		return myOrder.getMaze();
 	}
 
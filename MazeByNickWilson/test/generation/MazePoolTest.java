@@ -0,0 +1,85 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import gui.Constants;
+
+/**
+ * Tests for the warm pool of ready mazes, {@link MazePool}.
+ */
+public class MazePoolTest {
+
+	private MazePool pool;
+
+	@AfterEach
+	public void tearDown() {
+		if (null != pool)
+			pool.shutdown();
+	}
+	/**
+	 * Waits until the pool has the given number of mazes of a kind ready.
+	 * @return true if the mazes got ready within 30 seconds
+	 */
+	private boolean awaitReady(int skill, Order.Builder builder, boolean perfect, int count) throws InterruptedException {
+		for (int i = 0; i < 3000 && pool.getReadyCount(skill, builder, perfect) < count; i++) {
+			Thread.sleep(10);
+		}
+		return pool.getReadyCount(skill, builder, perfect) >= count;
+	}
+	/**
+	 * Test case: the pool fills up a kind after warm up and after each take.
+	 * Correct behavior: take gives a maze of the requested size right away
+	 * once the pool is warm, the pool never has more than mazesPerKind mazes ready.
+	 */
+	@Test
+	public void testTakeAndRefill() throws InterruptedException {
+		pool = new MazePool(new MazeFactory(1, 16), 2, Long.MAX_VALUE);
+		assertNull(pool.take(1, Order.Builder.DFS, true));
+		assertTrue(awaitReady(1, Order.Builder.DFS, true, 2));
+		Maze maze = pool.take(1, Order.Builder.DFS, true);
+		assertNotNull(maze);
+		assertEquals(Constants.SKILL_X[1], maze.getWidth());
+		assertEquals(Constants.SKILL_Y[1], maze.getHeight());
+		assertNotNull(maze.getStartingPosition());
+		assertTrue(awaitReady(1, Order.Builder.DFS, true, 2));
+		Thread.sleep(50);
+		assertEquals(2, pool.getReadyCount(1, Order.Builder.DFS, true));
+		// other kinds are separate
+		assertEquals(0, pool.getReadyCount(1, Order.Builder.DFS, false));
+		assertEquals(0, pool.getReadyCount(0, Order.Builder.DFS, true));
+	}
+	/**
+	 * Test case: the memory cap limits the number of mazes that are kept.
+	 * Correct behavior: a cap for a single maze gives a single maze,
+	 * a cap below the size of a maze gives none.
+	 */
+	@Test
+	public void testMemoryCap() throws InterruptedException {
+		pool = new MazePool(new MazeFactory(1, 16), 3, MazePool.estimateBytes(0));
+		pool.warmUp(0, Order.Builder.Prim, false);
+		pool.warmUp(1, Order.Builder.Prim, false);
+		assertTrue(awaitReady(0, Order.Builder.Prim, false, 1));
+		Thread.sleep(200);
+		assertEquals(1, pool.getReadyCount(0, Order.Builder.Prim, false));
+		assertEquals(0, pool.getReadyCount(1, Order.Builder.Prim, false));
+		// a take frees the memory for a replacement
+		assertNotNull(pool.take(0, Order.Builder.Prim, false));
+		assertTrue(awaitReady(0, Order.Builder.Prim, false, 1));
+	}
+	/**
+	 * Test case: shutdown drops the mazes and stops refilling.
+	 * Correct behavior: take gives null after shutdown.
+	 */
+	@Test
+	public void testShutdown() throws InterruptedException {
+		pool = new MazePool(new MazeFactory(1, 16), 1, Long.MAX_VALUE);
+		pool.warmUp(0, Order.Builder.DFS, true);
+		assertTrue(awaitReady(0, Order.Builder.DFS, true, 1));
+		pool.shutdown();
+		assertNull(pool.take(0, Order.Builder.DFS, true));
+		assertEquals(0, pool.getReadyCount(0, Order.Builder.DFS, true));
+	}
+}
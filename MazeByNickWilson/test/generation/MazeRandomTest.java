@@ -0,0 +1,54 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the random number generator of a single order.
+ */
+class MazeRandomTest {
+	/**
+	 * Goal: the same seed gives the same numbers, also for generators
+	 * that are split off in the same order.
+	 */
+	@Test
+	void testReproducible() {
+		MazeRandom first = new MazeRandom(13);
+		MazeRandom second = new MazeRandom(13);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(first.nextInt(), second.nextInt());
+			assertEquals(first.nextIntWithinInterval(-5, 5), second.nextIntWithinInterval(-5, 5));
+			assertEquals(first.nextDirection(), second.nextDirection());
+		}
+		MazeRandom firstSplit = first.split();
+		MazeRandom secondSplit = second.split();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(firstSplit.nextInt(), secondSplit.nextInt());
+		}
+		// a split generator does not repeat the numbers of its parent
+		assertNotEquals(first.nextInt(), first.split().nextInt());
+	}
+	/**
+	 * Goal: values stay within the interval including both bounds,
+	 * all values of a small interval show up.
+	 */
+	@Test
+	void testNextIntWithinInterval() {
+		MazeRandom random = new MazeRandom(7);
+		boolean[] seen = new boolean[4];
+		for (int i = 0; i < 1000; i++) {
+			int value = random.nextIntWithinInterval(3, 6);
+			assertTrue(3 <= value && value <= 6);
+			seen[value - 3] = true;
+			assertEquals(2, random.nextIntWithinInterval(2, 2));
+			assertTrue(0 <= random.nextIntWithinInterval(0, Integer.MAX_VALUE));
+			assertTrue(Integer.MAX_VALUE - 1 <= random.nextIntWithinInterval(Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+		}
+		for (boolean s : seen) {
+			assertTrue(s);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the throttled progress updates of a build, {@link ProgressChannel}.
+ */
+public class ProgressChannelTest {
+
+	/**
+	 * Order that records its progress updates and the threads that deliver them.
+	 */
+	private static class RecordingOrder extends StubOrder {
+		final List<Integer> updates = new CopyOnWriteArrayList<Integer>();
+		final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+
+		RecordingOrder() {
+			super(0, Order.Builder.DFS, true, 13);
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			updates.add(percentage);
+			threads.add(Thread.currentThread());
+		}
+	}
+	/**
+	 * Test case: many reports within a short time.
+	 * Correct behavior: reports return right away, the order gets far fewer
+	 * updates on another thread, the first report is among them.
+	 */
+	@Test
+	public void testThrottled() throws InterruptedException {
+		RecordingOrder order = new RecordingOrder();
+		ProgressChannel progress = new ProgressChannel(order, 1000);
+		for (int i = 0; i < 100000; i++) {
+			progress.report(i % 100);
+		}
+		Thread.sleep(200);
+		assertEquals(List.of(0), order.updates);
+		assertNotSame(Thread.currentThread(), order.threads.get(0));
+	}
+	/**
+	 * Test case: reports after the interval.
+	 * Correct behavior: each report is forwarded, none after close.
+	 */
+	@Test
+	public void testIntervalAndClose() throws InterruptedException {
+		RecordingOrder order = new RecordingOrder();
+		ProgressChannel progress = new ProgressChannel(order, 0);
+		progress.report(10);
+		Thread.sleep(100);
+		progress.report(20);
+		Thread.sleep(100);
+		progress.close();
+		progress.report(30);
+		Thread.sleep(100);
+		assertEquals(List.of(10, 20), order.updates);
+	}
+	/**
+	 * Test case: a channel without an order and the check for cancellation.
+	 * Correct behavior: reports are ignored, the check throws only
+	 * for an interrupted thread and keeps its interrupted status.
+	 */
+	@Test
+	public void testCheckCancelled() throws InterruptedException {
+		new ProgressChannel(null).report(50);
+		ProgressChannel.checkCancelled();
+		Thread.currentThread().interrupt();
+		assertThrows(InterruptedException.class, () -> ProgressChannel.checkCancelled());
+		assertTrue(Thread.interrupted());
+	}
+}
@@ -0,0 +1,117 @@
+package generation;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import generation.Order.Builder;
+
+/**
+ * Checks shared by the tests of the maze builders.
+ * A perfect maze is a spanning tree over its cells, so it has
+ * width*height-1 openings and none of them closes a loop.
+ */
+final class SpanningTreeChecker {
+
+	private SpanningTreeChecker() {
+	}
+	/**
+	 * Generates pathways for a perfect maze of the given size
+	 * without going through the maze factory.
+	 * @param builder the maze builder
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @param seed for the random number generator
+	 * @return the floorplan with the pathways
+	 */
+	static Floorplan generate(MazeBuilder builder, int width, int height, int seed) {
+		// the builder only takes the seed from the order, its algorithm is fixed
+		builder.buildOrder(new StubOrder(0, Builder.DFS, true, seed));
+		builder.width = width;
+		builder.height = height;
+		builder.floorplan = new Floorplan(width, height);
+		builder.floorplan.initialize();
+		builder.generatePathways();
+		return builder.floorplan;
+	}
+	/**
+	 * Generates pathways with a pool of one thread and with a pool of several threads,
+	 * the pathways must be the same for the same seed and differ for the next seed.
+	 * The pools are shut down even if a check fails.
+	 * @param builders makes a builder that runs its tasks in the given pool
+	 * @param threads number of threads of the larger pool
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @param seed for the random number generator
+	 * @return the floorplan that was generated with one thread
+	 */
+	static Floorplan assertSameForAnyPool(Function<ForkJoinPool, MazeBuilder> builders, int threads,
+			int width, int height, int seed) {
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool many = new ForkJoinPool(threads);
+		try {
+			Floorplan expected = generate(builders.apply(single), width, height, seed);
+			assertTrue(expected.equals(generate(builders.apply(many), width, height, seed)));
+			assertFalse(expected.equals(generate(builders.apply(many), width, height, seed+1)));
+			return expected;
+		} finally {
+			single.shutdown();
+			many.shutdown();
+		}
+	}
+	/**
+	 * Counts the openings between adjacent cells and checks with
+	 * a union-find that no opening closes a loop.
+	 * @param floorplan of the maze
+	 * @return number of pairs of adjacent cells without a wallboard in between
+	 */
+	static int countOpenings(Floorplan floorplan) {
+		int width = floorplan.getWidth();
+		int height = floorplan.getHeight();
+		// cell (x,y) has index x*height+y
+		int[] parent = new int[width*height];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		int result = 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (x+1 < width && floorplan.hasNoWall(x, y, CardinalDirection.East)) {
+					assertTrue(union(parent, x*height+y, (x+1)*height+y));
+					result++;
+				}
+				if (y+1 < height && floorplan.hasNoWall(x, y, CardinalDirection.South)) {
+					assertTrue(union(parent, x*height+y, x*height+y+1));
+					result++;
+				}
+			}
+		}
+		return result;
+	}
+	/**
+	 * Merges the sets of two cells.
+	 * @param parent union-find array
+	 * @param a first cell
+	 * @param b second cell
+	 * @return true if the cells were in different sets, false otherwise
+	 */
+	static boolean union(int[] parent, int a, int b) {
+		a = MazeBuilderKruskal.find(parent, a);
+		b = MazeBuilderKruskal.find(parent, b);
+		parent[b] = a;
+		return a != b;
+	}
+	/**
+	 * Checks that every cell of the maze has a finite distance to the exit.
+	 * @param maze to check
+	 */
+	static void assertAllCellsReachable(Maze maze) {
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertTrue(maze.getDistanceToExit(x, y) < Distance.INFINITY);
+			}
+		}
+	}
+}
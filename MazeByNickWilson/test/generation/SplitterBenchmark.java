@@ -0,0 +1,103 @@
+package generation;
+
+import gui.Constants;
+
+/**
+ * Compares the BSP trees of exact splitter selection, see {@link SplitterSelector},
+ * with the previous selection from a sample of walls, {@link BSPBuilderSamplingReference}.
+ * This is not a junit test, run its main method to obtain numbers.
+ * Both build the tree for the same maze at each skill level, the table gives
+ * the build time, the depth of the tree and the average depth of its leaves.
+ * Optional argument: builder, e.g. Prim, default is DFS.
+ */
+public class SplitterBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws InterruptedException {
+		final Order.Builder builder = (args.length > 0) ? Order.Builder.valueOf(args[0]) : Order.Builder.DFS;
+		System.out.println("size       walls  exact[ms] depth  leaf-depth  sampled[ms] depth  leaf-depth");
+		for (int skill = 0; skill < Constants.SKILL_X.length; skill++) {
+			Maze maze = MazeFactoryTest.makeMaze(skill, builder, false, 13);
+			final int walls = new ListOfWallsBuilder(maze.getWidth(), maze.getHeight(), maze.getFloorplan(),
+					maze.getMazedists(), 0).generateWalls().size();
+			System.out.printf("%4dx%-4d %7d", maze.getWidth(), maze.getHeight(), walls);
+			print(maze, false);
+			print(maze, true);
+			System.out.println();
+		}
+	}
+	/**
+	 * Builds the tree several times and prints the best time and the shape.
+	 * @param maze provides floorplan and distances
+	 * @param sampled true for the selection from a sample, false for the exact one
+	 */
+	static void print(Maze maze, boolean sampled) throws InterruptedException {
+		long best = Long.MAX_VALUE;
+		BSPNode root = null;
+		for (int i = 0; i < ROUNDS; i++) {
+			final long start = System.nanoTime();
+			root = build(maze, sampled);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		final int[] leaves = new int[2]; // number of leaves, sum of their depths
+		leafDepths(root, 0, leaves);
+		System.out.printf(" %10.2f %5d %11.2f", best/1e6, depth(root), (double)leaves[1]/leaves[0]);
+	}
+	/**
+	 * Builds the BSP tree for the maze.
+	 * @param maze provides floorplan and distances
+	 * @param sampled true for the selection from a sample, false for the exact one
+	 * @return root of the tree
+	 */
+	static BSPNode build(Maze maze, boolean sampled) throws InterruptedException {
+		final BSPBuilder builder = !sampled ? new BSPBuilder(null, maze.getMazedists(), maze.getFloorplan(),
+				maze.getWidth(), maze.getHeight(), 0, Integer.MAX_VALUE) :
+			new BSPBuilderSamplingReference(null, maze.getMazedists(), maze.getFloorplan(),
+					maze.getWidth(), maze.getHeight(), 0, Integer.MAX_VALUE);
+		return builder.generateBSPNodes();
+	}
+	/**
+	 * Gives the depth of the tree.
+	 * @param node root of the tree
+	 * @return number of nodes on the longest path from the root to a leaf
+	 */
+	static int depth(BSPNode node) {
+		if (node.isIsleaf())
+			return 1;
+		final BSPBranch branch = (BSPBranch)node;
+		return 1 + Math.max(depth(branch.getLeftBranch()), depth(branch.getRightBranch()));
+	}
+	/**
+	 * Gives the total length of all walls in the leaves of the tree.
+	 * @param node root of the tree
+	 * @return sum of the lengths of the walls
+	 */
+	static int length(BSPNode node) {
+		if (node.isIsleaf()) {
+			int result = 0;
+			for (Wall wall : ((BSPLeaf)node).getAllWalls()) {
+				result += wall.getLength();
+			}
+			return result;
+		}
+		final BSPBranch branch = (BSPBranch)node;
+		return length(branch.getLeftBranch()) + length(branch.getRightBranch());
+	}
+	/**
+	 * Counts the leaves and sums up their depths.
+	 * @param node root of a subtree
+	 * @param depth of the node
+	 * @param leaves number of leaves and sum of their depths, updated
+	 */
+	private static void leafDepths(BSPNode node, int depth, int[] leaves) {
+		if (node.isIsleaf()) {
+			leaves[0]++;
+			leaves[1] += depth;
+			return;
+		}
+		final BSPBranch branch = (BSPBranch)node;
+		leafDepths(branch.getLeftBranch(), depth + 1, leaves);
+		leafDepths(branch.getRightBranch(), depth + 1, leaves);
+	}
+}
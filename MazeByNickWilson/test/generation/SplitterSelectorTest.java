@@ -0,0 +1,96 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the exact grades of splitters, {@link SplitterSelector}.
+ */
+public class SplitterSelectorTest {
+
+	/**
+	 * Gives the walls of a generated maze before the BSP tree is built.
+	 */
+	private static List<Wall> makeWalls(int skill, Order.Builder builder, boolean perfect, int seed) {
+		Maze maze = MazeFactoryTest.makeMaze(skill, builder, perfect, seed);
+		return new ListOfWallsBuilder(maze.getWidth(), maze.getHeight(), maze.getFloorplan(),
+				maze.getMazedists(), 0).generateWalls();
+	}
+	/**
+	 * Calculates the grade of a splitter by splitting the walls.
+	 */
+	private static int splitGrade(Wall splitter, List<Wall> walls) {
+		List<Wall> left = new ArrayList<Wall>();
+		List<Wall> right = new ArrayList<Wall>();
+		splitter.splitWalls(walls, left, right, 0);
+		Map<Wall, Boolean> original = new IdentityHashMap<Wall, Boolean>();
+		for (Wall wall : walls) {
+			original.put(wall, true);
+		}
+		int pieces = 0;
+		for (Wall wall : left) {
+			if (!original.containsKey(wall))
+				pieces++;
+		}
+		// each split wall gives one piece to the left and one to the right
+		return Math.abs(left.size() - right.size()) + 3 * pieces;
+	}
+	/**
+	 * Test case: grades for short lists of walls.
+	 * Correct behavior: same as Wall.calculateGrade, which looks
+	 * at all walls of lists with less than 100 walls.
+	 */
+	@Test
+	public void testSameAsCalculateGrade() {
+		List<Wall> all = makeWalls(3, Order.Builder.Prim, false, 5);
+		Collections.shuffle(all, new java.util.Random(5));
+		for (int from = 0; from + 99 <= all.size(); from += 37) {
+			List<Wall> walls = all.subList(from, from + 99);
+			SplitterSelector selector = new SplitterSelector(walls);
+			for (Wall wall : walls) {
+				assertEquals(wall.calculateGrade(walls), selector.grade(wall));
+			}
+		}
+	}
+	/**
+	 * Test case: grades for all walls of a maze.
+	 * Correct behavior: same as the numbers of walls that splitting
+	 * puts on either side and cuts.
+	 */
+	@Test
+	public void testSameAsSplitting() {
+		List<Wall> walls = makeWalls(2, Order.Builder.DFS, false, 7);
+		assertTrue(walls.size() >= 100);
+		SplitterSelector selector = new SplitterSelector(walls);
+		for (Wall wall : walls) {
+			assertEquals(splitGrade(wall, walls), selector.grade(wall));
+		}
+	}
+	/**
+	 * Test case: the BSP tree of a maze with exact splitter selection.
+	 * Correct behavior: every wall is in a leaf, the tree is not deeper
+	 * than the one with sampled splitters.
+	 */
+	@Test
+	public void testTreeDepth() throws InterruptedException {
+		List<Wall> walls = makeWalls(4, Order.Builder.Kruskal, true, 9);
+		Maze maze = MazeFactoryTest.makeMaze(4, Order.Builder.Kruskal, true, 9);
+		BSPNode exact = new BSPBuilder(null, maze.getMazedists(), maze.getFloorplan(), maze.getWidth(), maze.getHeight(), 0, 1000)
+				.generateBSPNodes();
+		BSPNode sampled = new BSPBuilderSamplingReference(null, maze.getMazedists(), maze.getFloorplan(), maze.getWidth(), maze.getHeight(), 0, 1000)
+				.generateBSPNodes();
+		assertTrue(SplitterBenchmark.depth(exact) <= SplitterBenchmark.depth(sampled));
+		int length = 0;
+		for (Wall wall : walls) {
+			length += wall.getLength();
+		}
+		assertEquals(length, SplitterBenchmark.length(exact));
+	}
+}
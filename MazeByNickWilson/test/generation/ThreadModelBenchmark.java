@@ -0,0 +1,99 @@
+package generation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares the throughput of a fixed pool of platform threads with
+ * one thread per job, virtual threads if the runtime supports them, see {@link VirtualThreads}.
+ * This is not a junit test, run its main method to obtain numbers.
+ * Generation runs many small orders through a MazeFactory. Sessions imitate headless robots that walk from
+ * the start to the exit of a frozen maze and pause after each step
+ * like the slowed down redraw of a playing robot, with a shorter pause.
+ * Optional arguments: number of orders, number of sessions.
+ */
+public class ThreadModelBenchmark {
+
+	private static final int PLATFORM_THREADS = 4*Runtime.getRuntime().availableProcessors();
+	private static final long STEP_PAUSE = 1; // milliseconds a session sleeps after each step
+
+	public static void main(String[] args) throws Exception {
+		final int orders = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+		final int sessions = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+		final String perTask = VirtualThreads.isSupported() ? "virtual" : "platform per task";
+		System.out.println("platform pool: " + PLATFORM_THREADS + " threads, one thread per job: " + perTask);
+		System.out.printf("generation of %d orders: pool %.0f orders/s, per task %.0f orders/s%n", orders,
+				generate(new MazeFactory(PLATFORM_THREADS, orders), orders),
+				generate(MazeFactory.withVirtualThreads(orders), orders));
+		final Maze maze = makeMaze();
+		System.out.printf("%d robot sessions: pool %.0f sessions/s, per task %.0f sessions/s%n", sessions,
+				drive(Executors.newFixedThreadPool(PLATFORM_THREADS), maze, sessions),
+				drive(VirtualThreads.newThreadPerTaskExecutor("session-"), maze, sessions));
+	}
+	/**
+	 * Builds small mazes with the factory.
+	 * @param factory builds the mazes
+	 * @param orders number of mazes
+	 * @return orders per second
+	 */
+	static double generate(MazeFactory factory, int orders) throws Exception {
+		List<StubOrder> list = new ArrayList<StubOrder>();
+		for (int i = 0; i < orders; i++) {
+			list.add(new StubOrder(0, Order.Builder.DFS, true, i));
+		}
+		final long start = System.nanoTime();
+		for (CompletableFuture<Maze> result : factory.orderAll(list)) {
+			result.get();
+		}
+		final double seconds = (System.nanoTime() - start)/1e9;
+		factory.shutdown();
+		return orders/seconds;
+	}
+	/**
+	 * Runs sessions that each walk from the start to the exit.
+	 * @param executor runs the sessions
+	 * @param maze frozen maze that all sessions share
+	 * @param sessions number of sessions
+	 * @return sessions per second
+	 */
+	static double drive(ExecutorService executor, Maze maze, int sessions) throws Exception {
+		final long start = System.nanoTime();
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>(sessions);
+		for (int i = 0; i < sessions; i++) {
+			results.add(executor.submit(() -> walk(maze)));
+		}
+		for (Future<Integer> result : results) {
+			result.get();
+		}
+		final double seconds = (System.nanoTime() - start)/1e9;
+		executor.shutdown();
+		return sessions/seconds;
+	}
+	/**
+	 * Walks from the start to the exit and pauses after each step.
+	 * @param maze the maze
+	 * @return number of steps
+	 */
+	static int walk(Maze maze) throws InterruptedException {
+		int[] position = maze.getStartingPosition();
+		int steps = 0;
+		for (int[] next = maze.getNeighborCloserToExit(position[0], position[1]); null != next;
+				next = maze.getNeighborCloserToExit(position[0], position[1])) {
+			position = next;
+			steps++;
+			Thread.sleep(STEP_PAUSE);
+		}
+		return steps;
+	}
+	/**
+	 * Makes the maze for the sessions.
+	 * @return frozen maze of skill level 2
+	 */
+	static Maze makeMaze() {
+		return MazeFactoryTest.makeMaze(2, Order.Builder.DFS, true, 13).freeze();
+	}
+}
@@ -0,0 +1,32 @@
+package generation;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the running time of pathway generation for a large maze
+ * with a single builder and with tiles that are generated in parallel
+ * by pools of increasing size up to the number of available processors.
+ * This is not a junit test, run its main method to obtain numbers.
+ * Only generatePathways is measured, see {@link BuilderBenchmark#run(MazeBuilder, int, int)}.
+ */
+public class TiledBuilderBenchmark {
+
+	private static final int SIZE = 2000;
+
+	public static void main(String[] args) {
+		int processors = Runtime.getRuntime().availableProcessors();
+		System.out.println(SIZE + "x" + SIZE + " maze, " + processors + " processors");
+		System.out.println("algorithm   threads  single[ms]   tiled[ms]");
+		for (Order.Builder algorithm : new Order.Builder[] {Order.Builder.DFS, Order.Builder.Prim, Order.Builder.Kruskal, Order.Builder.Eller}) {
+			double single = BuilderBenchmark.run(MazeFactory.createBuilder(algorithm), SIZE, SIZE);
+			for (int threads = 1; threads <= processors; threads *= 2) {
+				ForkJoinPool pool = new ForkJoinPool(threads);
+				MazeBuilderTiled builder = new MazeBuilderTiled(algorithm, MazeBuilderTiled.DEFAULT_TILE_SIZE,
+						MazeBuilderTiled.DEFAULT_TILE_SIZE, pool);
+				System.out.printf("%-9s %9d %11.2f %11.2f%n", algorithm, threads, single,
+						BuilderBenchmark.run(builder, SIZE, SIZE));
+				pool.shutdown();
+			}
+		}
+	}
+}
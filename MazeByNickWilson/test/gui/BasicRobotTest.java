@@ -259,10 +259,10 @@ public class BasicRobotTest {
 	}
 	/**
 	 * 
-	 * @return a skill level 0 perfect maze with seed 13 and the DFS builder for testing purposes
+	 * @return a skill level 0 perfect maze with seed 11 and the DFS builder for testing purposes
 	 */
 	private Maze makeTestMaze() {
-		StubOrder myOrder = new StubOrder(0, Builder.DFS, true, 13);
+		StubOrder myOrder = new StubOrder(0, Builder.DFS, true, 11);
 		MazeFactory myMazeFactory = new MazeFactory();
 		myMazeFactory.order(myOrder);
 		myMazeFactory.waitTillDelivered();
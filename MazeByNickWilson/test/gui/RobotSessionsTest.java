@@ -0,0 +1,66 @@
+package gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import generation.Maze;
+import generation.MazeFactoryTest;
+import generation.Order.Builder;
+
+/**
+ * Tests robot sessions that play without graphics, see {@link RobotSessions}.
+ * Unlike WallFollowerTest, no JFrame is needed, so these tests also run headless.
+ * Collaborators: Controller, BasicRobot, Wizard, WallFollower
+ */
+public class RobotSessionsTest {
+
+	/**
+	 * Test case: a Wizard plays a maze in the current thread.
+	 * Correct behavior: the robot reaches the exit, the path is
+	 * at least as long as the distance from the start to the exit.
+	 */
+	@Test
+	public void testPlay() {
+		Maze maze = MazeFactoryTest.makeMaze(2, Builder.Prim, true, 56);
+		int[] start = maze.getStartingPosition();
+		int pathLength = RobotSessions.play(maze, new Wizard());
+		assertTrue(maze.getDistanceToExit(start[0], start[1]) - 1 <= pathLength);
+	}
+	/**
+	 * Test case: many Wizards and WallFollowers play the same frozen maze at the same time,
+	 * one session per thread.
+	 * Correct behavior: all robots reach the exit with the same path length
+	 * as a session of the same driver on the maze in the current thread.
+	 */
+	@Test
+	public void testSessionsPerThread() throws Exception {
+		Maze maze = MazeFactoryTest.makeMaze(1, Builder.Prim, true, 56);
+		int wizardPath = RobotSessions.play(maze, new Wizard());
+		int wallFollowerPath = RobotSessions.play(maze, new WallFollower());
+		assertTrue(0 <= wizardPath);
+		assertTrue(0 <= wallFollowerPath);
+		Maze frozen = maze.freeze();
+		ExecutorService executor = RobotSessions.newExecutor();
+		try {
+			List<Future<Integer>> wizards = new ArrayList<Future<Integer>>();
+			List<Future<Integer>> wallFollowers = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < 16; i++) {
+				wizards.add(RobotSessions.submit(executor, frozen, new Wizard()));
+				wallFollowers.add(RobotSessions.submit(executor, frozen, new WallFollower()));
+			}
+			for (Future<Integer> session : wizards)
+				assertEquals(wizardPath, (int)session.get());
+			for (Future<Integer> session : wallFollowers)
+				assertEquals(wallFollowerPath, (int)session.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}